@@ -0,0 +1,63 @@
+/**
+ * ClosureBenchmarks.java
+ * ---------------------------------
+ * Copyright (c) 2016
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.resolve.proving;
+
+import edu.clemson.resolve.proving.absyn.PExp;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building congruence closures: whole VCs, as the prover does before applying any theorems, and the antecedents of
+ * every VC of a workload fed straight into a single {@link ConjunctionOfNormalizedAtomicExpressions}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ClosureBenchmarks {
+
+    @Param({"corpus:Integer_Bench", "corpus:Boolean_Bench",
+            "synthetic:chain:256", "synthetic:tower:64", "synthetic:arith:16"})
+    public String workload;
+
+    private Workload m_workload;
+    private List<PExp> m_formulas;
+
+    @Setup
+    public void load() {
+        m_workload = Workload.load(workload);
+        m_formulas = m_workload.antecedentFormulas();
+    }
+
+    @Benchmark
+    public void construct(Blackhole bh) {
+        for (int i = 0; i < m_workload.vcs.size(); i++) {
+            bh.consume(m_workload.newClosure(i));
+        }
+    }
+
+    @Benchmark
+    public ConjunctionOfNormalizedAtomicExpressions addExpression() {
+        ConjunctionOfNormalizedAtomicExpressions conj =
+                new ConjunctionOfNormalizedAtomicExpressions(new Registry(m_workload.g), null);
+        for (PExp e : m_formulas) {
+            conj.addExpression(e);
+        }
+        return conj;
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * MergeBenchmarks.java
+ * ---------------------------------
+ * Copyright (c) 2016
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.resolve.proving;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ConjunctionOfNormalizedAtomicExpressions#mergeOperators} on a {@code tower} VC (see {@link SyntheticVCs}):
+ * merging its two bottom symbols ripples up through every level. The closure is rebuilt before each merge and its
+ * construction isn't timed.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 200)
+@Measurement(iterations = 1000)
+@Fork(2)
+@State(Scope.Thread)
+public class MergeBenchmarks {
+
+    @Param({"16", "64", "256"})
+    public int height;
+
+    private Workload m_workload;
+    private ConjunctionOfNormalizedAtomicExpressions m_conj;
+    private int m_x, m_y;
+
+    @Setup(Level.Trial)
+    public void load() {
+        m_workload = Workload.load("synthetic:tower:" + height);
+    }
+
+    @Setup(Level.Iteration)
+    public void rebuild() {
+        VerificationConditionCongruenceClosureImpl vcc = m_workload.newClosure(0);
+        m_conj = vcc.getConjunct();
+        m_x = vcc.getRegistry().getIndexForSymbol("x");
+        m_y = vcc.getRegistry().getIndexForSymbol("y");
+    }
+
+    @Benchmark
+    public String mergeOperators() {
+        return m_conj.mergeOperators(m_x, m_y);
+    }
+}
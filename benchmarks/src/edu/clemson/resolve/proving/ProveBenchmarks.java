@@ -0,0 +1,57 @@
+/**
+ * ProveBenchmarks.java
+ * ---------------------------------
+ * Copyright (c) 2016
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.resolve.proving;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end {@link CongruenceClassProver#prove}, over every VC of a corpus module, with the module's own theorems
+ * and the default timeout. Fresh closures are built before each invocation (and not timed), since proving
+ * consumes them.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 30)
+@Fork(2)
+@State(Scope.Thread)
+public class ProveBenchmarks {
+
+    @Param({"corpus:Integer_Bench", "corpus:Boolean_Bench"})
+    public String workload;
+
+    private Workload m_workload;
+    private List<VerificationConditionCongruenceClosureImpl> m_closures;
+
+    @Setup(Level.Trial)
+    public void load() {
+        m_workload = Workload.load(workload);
+    }
+
+    @Setup(Level.Iteration)
+    public void rebuild() {
+        m_closures = m_workload.newClosures();
+    }
+
+    @Benchmark
+    public int prove() {
+        int proved = 0;
+        for (VerificationConditionCongruenceClosureImpl vcc : m_closures) {
+            if (m_workload.prover.prove(vcc) == VerificationConditionCongruenceClosureImpl.STATUS.PROVED) proved++;
+        }
+        return proved;
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * SyntheticVCs.java
+ * ---------------------------------
+ * Copyright (c) 2016
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.resolve.proving;
+
+import edu.clemson.resolve.proving.absyn.PApply;
+import edu.clemson.resolve.proving.absyn.PExp;
+import edu.clemson.resolve.proving.absyn.PSymbol;
+import edu.clemson.resolve.semantics.DumbMathClssftnHandler;
+import edu.clemson.resolve.semantics.MathClssftn;
+import edu.clemson.resolve.semantics.MathFunctionClssftn;
+import edu.clemson.resolve.semantics.MathNamedClssftn;
+import edu.clemson.resolve.semantics.Quantification;
+import edu.clemson.resolve.vcgen.ListBackedSequent;
+import edu.clemson.resolve.vcgen.VC;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates VCs over a single sort {@code Z} with one unary function {@code f} and a binary {@code +}, each family
+ * stressing a different part of the prover as its size grows:
+ * <ul>
+ * <li>{@code chain}: {@code a0 = a1, ..., a(n-1) = an} implies {@code f(a0) = f(an)}; a long run of merges, all
+ * settled while the VC is built.</li>
+ * <li>{@code tower}: {@code f(...f(x)...) = f(...f(y)...)}, {@code n} deep, with nothing assumed. Merging {@code x}
+ * and {@code y} afterwards sets off {@code n} congruences, one per level.</li>
+ * <li>{@code arith}: sums of {@code n} constants that are only equal up to commutativity and associativity of
+ * {@code +}, which is what {@link #theorems()} provides. Generated from a fixed seed, so every run sees the same
+ * VCs.</li>
+ * </ul>
+ */
+final class SyntheticVCs {
+
+    private static final int ARITH_VCS = 8;
+    private static final long SEED = 20160517L;
+
+    final DumbMathClssftnHandler g;
+    final MathClssftn z;
+
+    private final PSymbol m_f, m_plus, m_eq;
+
+    SyntheticVCs(@NotNull DumbMathClssftnHandler g) {
+        this.g = g;
+        this.z = new MathNamedClssftn(g, "Z", 1, g.SSET);
+        m_f = new PSymbol.PSymbolBuilder("f").mathClssfctn(new MathFunctionClssftn(g, z, z)).build();
+        m_plus = new PSymbol.PSymbolBuilder("+").mathClssfctn(new MathFunctionClssftn(g, z, z, z)).build();
+        m_eq = new PSymbol.PSymbolBuilder("=B").mathClssfctn(g.EQUALITY_FUNCTION).build();
+    }
+
+    @NotNull
+    List<VC> generate(@NotNull String family, int size) {
+        switch (family) {
+            case "chain": return Collections.singletonList(chain(size));
+            case "tower": return Collections.singletonList(tower(size));
+            case "arith": return arith(size);
+            default: throw new IllegalArgumentException("unknown synthetic vc family: " + family);
+        }
+    }
+
+    /** Commutativity and associativity of {@code +}, set up the way the prover sets up equality theorems. */
+    @NotNull
+    List<TheoremCongruenceClosureImpl> theorems() {
+        PSymbol x = var("x"), y = var("y"), w = var("w");
+        List<TheoremCongruenceClosureImpl> result = new ArrayList<>();
+        result.add(equalityTheorem(eq(plus(x, y), plus(y, x)), true, "Plus_Commutes"));
+        PApply assoc = eq(plus(plus(x, y), w), plus(x, plus(y, w)));
+        result.add(equalityTheorem(assoc, true, "Plus_Associates_left"));
+        result.add(equalityTheorem(assoc, false, "Plus_Associates_right"));
+        return result;
+    }
+
+    private VC chain(int n) {
+        List<PExp> ants = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ants.add(eq(constant("a" + i), constant("a" + (i + 1))));
+        }
+        PExp goal = eq(f(constant("a0")), f(constant("a" + n)));
+        return new VC(null, 1, "chain", new ListBackedSequent(ants, Collections.singletonList(goal)));
+    }
+
+    private VC tower(int n) {
+        PExp x = constant("x"), y = constant("y");
+        for (int i = 0; i < n; i++) {
+            x = f(x);
+            y = f(y);
+        }
+        return new VC(null, 1, "tower", new ListBackedSequent(Collections.<PExp>singletonList(g.getTrueExp()),
+                Collections.singletonList(eq(x, y))));
+    }
+
+    private List<VC> arith(int n) {
+        Random r = new Random(SEED);
+        List<VC> result = new ArrayList<>();
+        for (int i = 1; i <= ARITH_VCS; i++) {
+            List<PExp> leaves = new ArrayList<>();
+            for (int j = 0; j < n; j++) {
+                leaves.add(constant("c" + r.nextInt(Math.max(2, n / 2))));
+            }
+            PExp sum = sum(leaves, r);
+            Collections.shuffle(leaves, r);
+            PExp d = constant("d");
+            List<PExp> ants = Collections.<PExp>singletonList(eq(sum, d));
+            List<PExp> goal = Collections.<PExp>singletonList(eq(sum(leaves, r), d));
+            result.add(new VC(null, i, "arith", new ListBackedSequent(ants, goal)));
+        }
+        return result;
+    }
+
+    // a random bracketing of the leaves, in order
+    private PExp sum(List<PExp> leaves, Random r) {
+        if (leaves.size() == 1) return leaves.get(0);
+        int split = 1 + r.nextInt(leaves.size() - 1);
+        return plus(sum(leaves.subList(0, split), r), sum(leaves.subList(split, leaves.size()), r));
+    }
+
+    private TheoremCongruenceClosureImpl equalityTheorem(PApply theorem, boolean matchLeft, String name) {
+        PExp lhs = theorem.getArguments().get(matchLeft ? 0 : 1);
+        PExp rhs = theorem.getArguments().get(matchLeft ? 1 : 0);
+        return new TheoremCongruenceClosureImpl(g, theorem, lhs, rhs, theorem, false, false, name);
+    }
+
+    private PSymbol constant(String name) {
+        return new PSymbol.PSymbolBuilder(name).mathClssfctn(z).build();
+    }
+
+    private PSymbol var(String name) {
+        return new PSymbol.PSymbolBuilder(name).mathClssfctn(z).quantification(Quantification.UNIVERSAL).build();
+    }
+
+    private PApply f(PExp arg) {
+        return new PApply.PApplyBuilder(m_f).arguments(arg).applicationType(z).build();
+    }
+
+    private PApply plus(PExp l, PExp r) {
+        return new PApply.PApplyBuilder(m_plus).arguments(l, r).applicationType(z).build();
+    }
+
+    private PApply eq(PExp l, PExp r) {
+        return new PApply.PApplyBuilder(m_eq).arguments(l, r).applicationType(g.BOOLEAN).build();
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * TheoremBenchmarks.java
+ * ---------------------------------
+ * Copyright (c) 2016
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.resolve.proving;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TheoremCongruenceClosureImpl#applyTo}: searching every VC of a workload for the bindings of every one of its
+ * theorems. The closures are built once up front; applying a theorem without taking any of its bindings leaves a
+ * closure as it was, so each invocation does the same work.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TheoremBenchmarks {
+
+    @Param({"corpus:Integer_Bench", "corpus:Boolean_Bench", "synthetic:arith:8", "synthetic:arith:16"})
+    public String workload;
+
+    private Workload m_workload;
+    private List<VerificationConditionCongruenceClosureImpl> m_closures;
+
+    @Setup
+    public void load() {
+        m_workload = Workload.load(workload);
+        m_closures = m_workload.newClosures();
+    }
+
+    @Benchmark
+    public int applyTo() {
+        int bindings = 0;
+        for (VerificationConditionCongruenceClosureImpl vcc : m_closures) {
+            for (TheoremCongruenceClosureImpl t : m_workload.theorems) {
+                bindings += t.applyTo(vcc, Long.MAX_VALUE);
+            }
+        }
+        return bindings;
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Workload.java
+ * ---------------------------------
+ * Copyright (c) 2016
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.resolve.proving;
+
+import edu.clemson.resolve.RESOLVECompiler;
+import edu.clemson.resolve.compiler.AnnotatedModule;
+import edu.clemson.resolve.proving.absyn.PExp;
+import edu.clemson.resolve.semantics.DumbMathClssftnHandler;
+import edu.clemson.resolve.semantics.MathClssftn;
+import edu.clemson.resolve.vcgen.VC;
+import edu.clemson.resolve.vcgen.VCOutputFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A set of VCs for the benchmarks to chew on, along with the theorems to prove them with.
+ * <p>
+ * A workload is named by a spec of the form {@code corpus:<Module>}, for one of the modules checked in under
+ * {@code benchmarks/corpus}, or {@code synthetic:<generator>:<size>}, for one of the {@link SyntheticVCs}. Corpus
+ * modules are run through the compiler (with {@code -vcs}) when loaded, so their VCs always come from the VC
+ * generator and theorems of the current tree; {@code $RESOLVEROOT} needs to point at the checkout so the modules in
+ * {@code src} can be found. The corpus directory defaults to {@code corpus}, relative to where the benchmarks are
+ * run from, and can be changed with {@code -Dresolve.corpus=<dir>}.</p>
+ */
+final class Workload {
+
+    final String spec;
+    final DumbMathClssftnHandler g;
+    final List<VC> vcs;
+    final List<TheoremCongruenceClosureImpl> theorems;
+
+    // only corpus workloads come with a prover
+    @Nullable
+    final CongruenceClassProver prover;
+    @Nullable
+    private final MathClssftn m_z, m_n;
+
+    private Workload(String spec, DumbMathClssftnHandler g, List<VC> vcs, List<TheoremCongruenceClosureImpl> theorems,
+                     @Nullable CongruenceClassProver prover, @Nullable MathClssftn z, @Nullable MathClssftn n) {
+        this.spec = spec;
+        this.g = g;
+        this.vcs = vcs;
+        this.theorems = theorems;
+        this.prover = prover;
+        m_z = z;
+        m_n = n;
+    }
+
+    @NotNull
+    static Workload load(@NotNull String spec) {
+        String[] parts = spec.split(":");
+        if (parts.length == 2 && parts[0].equals("corpus")) {
+            return loadCorpusModule(spec, parts[1]);
+        }
+        if (parts.length == 3 && parts[0].equals("synthetic")) {
+            SyntheticVCs s = new SyntheticVCs(new DumbMathClssftnHandler());
+            List<VC> vcs = s.generate(parts[1], Integer.parseInt(parts[2]));
+            return new Workload(spec, s.g, vcs, s.theorems(), null, s.z, s.z);
+        }
+        throw new IllegalArgumentException("unknown workload: " + spec);
+    }
+
+    @NotNull
+    VerificationConditionCongruenceClosureImpl newClosure(int i) {
+        if (prover != null) return prover.newClosure(i);
+        return new VerificationConditionCongruenceClosureImpl(g, vcs.get(i), m_z, m_n);
+    }
+
+    /** Every antecedent conjunct of every VC, as it would be handed to the VC's conjunction. */
+    @NotNull
+    List<PExp> antecedentFormulas() {
+        List<PExp> result = new ArrayList<>();
+        for (VC vc : vcs) {
+            for (PExp e : g.formConjuncts(vc.getSequent().getLeftFormulas()).splitIntoConjuncts()) {
+                result.add(prover != null ? prover.normalize(e) : Utilities.replacePExp(e, g, m_z, m_n));
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    List<VerificationConditionCongruenceClosureImpl> newClosures() {
+        List<VerificationConditionCongruenceClosureImpl> result = new ArrayList<>(vcs.size());
+        for (int i = 0; i < vcs.size(); i++) {
+            result.add(newClosure(i));
+        }
+        return result;
+    }
+
+    private static Workload loadCorpusModule(String spec, String moduleName) {
+        File dir = new File(System.getProperty("resolve.corpus", "corpus"));
+        File file = new File(dir, moduleName + RESOLVECompiler.NATIVE_FILE_EXTENSION);
+        if (!file.isFile()) {
+            throw new IllegalArgumentException("no corpus module " + file.getAbsolutePath());
+        }
+        RESOLVECompiler rc = new RESOLVECompiler(new String[]{"-vcs", "-proofVerbosity", "summary",
+                "-lib", dir.getPath(), file.getPath()});
+        rc.processCommandLineTargets();
+        if (rc.errMgr.getErrorCount() > 0) {
+            throw new IllegalStateException("corpus module " + moduleName + " doesn't compile");
+        }
+        for (AnnotatedModule m : rc.commandlineTargets) {
+            VCOutputFile out = m.getVCOutput();
+            if (!m.getNameToken().getText().equals(moduleName) || out == null) continue;
+            DumbMathClssftnHandler g = rc.symbolTable.getTypeGraph();
+            CongruenceClassProver prover = new CongruenceClassProver(rc, m, g, new ArrayList<>(out.getFinalVCs()));
+            return new Workload(spec, g, prover.getVCs(), prover.getTheorems(), prover, null, null);
+        }
+        throw new IllegalStateException("no vcs were generated for corpus module " + moduleName);
+    }
+
+    @Override
+    public String toString() {
+        return spec + " (" + vcs.size() + " vcs, " + theorems.size() + " theorems)";
+    }
+}
@@ -78,6 +78,13 @@ public class RESOLVECompiler {
     public String genCode;
     public String timeout;
     public String tries;
+    public String vcgenThreads;
+    public String proverThreads;
+    public String proofCache;
+    public String proofVerbosity;
+    public String proverStats;
+    public String relevanceRounds;
+    public String portfolio;
 
     public String libDirectory;
     public boolean helpFlag = false;
@@ -94,8 +101,15 @@ public class RESOLVECompiler {
             new Option("genCode", "-genCode", OptionArgType.STRING, "generate code"),
             new Option("vcs", "-vcs", "generate verification conditions (VCs)"),
             new Option("prove", "-prove", "attempt to prove generated VCs for the current file"),
+            new Option("vcgenThreads", "-vcgenThreads", OptionArgType.STRING, "number of worker threads used to apply proof rules to operations concurrently"),
             new Option("timeout", "-timeout", OptionArgType.STRING, "how much time to spend attempting to dispatch a given vc (in milliseconds)"),
             new Option("tries", "-numTries", OptionArgType.STRING, "number of tries to dispatch a vc"),
+            new Option("proverThreads", "-proverThreads", OptionArgType.STRING, "number of worker threads used to prove vcs concurrently"),
+            new Option("proofCache", "-proofCache", OptionArgType.STRING, "reuse results for unchanged vcs from the .proofcache file: trust or replay"),
+            new Option("proofVerbosity", "-proofVerbosity", OptionArgType.STRING, "how much of each proof to trace: summary, applications, trace or steps"),
+            new Option("proverStats", "-proverStats", OptionArgType.STRING, "write per-vc prover statistics to the given .json or .csv file"),
+            new Option("relevanceRounds", "-relevanceRounds", OptionArgType.STRING, "only try theorems usable on a vc within this many rounds of theorem applications, or off to try them all"),
+            new Option("portfolio", "-portfolio", OptionArgType.STRING, "race these prover strategies on every vc: all, or a list of default, wide, diverse and eager"),
             new Option("log", "-Xlog", "dump lots of logging info to edu.clemson.resolve-timestamp.log"),
             new Option("printEnv", "-env", "print path variables"),
             new Option("libDirectory", "-lib", OptionArgType.STRING, "specify custom location of resolve source files"),
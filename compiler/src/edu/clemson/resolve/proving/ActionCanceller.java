@@ -1,11 +1,22 @@
 package edu.clemson.resolve.proving;
 
+import org.jetbrains.annotations.Nullable;
+
 public class ActionCanceller {
 
-    public boolean running;
+    public volatile boolean running;
+
+    // if set, cancelling it cancels this too
+    @Nullable
+    private final ActionCanceller parent;
 
     public ActionCanceller() {
+        this(null);
+    }
+
+    public ActionCanceller(@Nullable ActionCanceller parent) {
         running = true;
+        this.parent = parent;
     }
 
     public void cancel() {
@@ -13,6 +24,6 @@ public class ActionCanceller {
     }
 
     public boolean amRunning() {
-        return running;
+        return running && (parent == null || parent.amRunning());
     }
 }
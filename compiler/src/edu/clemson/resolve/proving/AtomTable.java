@@ -0,0 +1,127 @@
+/**
+ * AtomTable.java
+ * ---------------------------------
+ * Copyright (c) 2016
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.resolve.proving;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The congruence table of a {@link ConjunctionOfNormalizedAtomicExpressions}: finds the atom with the same operator
+ * and arguments as a given one, if the conjunction has it.
+ * <p>
+ * It is an open addressing (linear probing) table of atom ids into the conjunction's list of atoms, with the hash of
+ * each entry kept alongside it so probes rarely touch the atoms themselves. Compared to a {@code HashMap} from each
+ * atom to itself this saves an entry object per atom and keeps a lookup within a couple of cache lines.</p>
+ */
+final class AtomTable {
+
+    private static final int EMPTY = -1, DELETED = -2;
+
+    private final List<NormalizedAtomicExpression> m_atoms;
+    private int[] m_ids;
+    private int[] m_hashes;
+    private int m_size = 0;
+    private int m_used = 0; // entries plus deletion markers
+
+    /** A table of atoms from {@code atoms} (by atom id), with room for about {@code expected} of them. */
+    AtomTable(List<NormalizedAtomicExpression> atoms, int expected) {
+        m_atoms = atoms;
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        m_ids = new int[capacity];
+        m_hashes = new int[capacity];
+        Arrays.fill(m_ids, EMPTY);
+    }
+
+    /** The atom equal to {@code key}, or {@code null} if there isn't one. */
+    NormalizedAtomicExpression get(NormalizedAtomicExpression key) {
+        int hash = key.hashCode();
+        int mask = m_ids.length - 1;
+        for (int i = mix(hash) & mask; ; i = (i + 1) & mask) {
+            int id = m_ids[i];
+            if (id == EMPTY) return null;
+            if (id != DELETED && m_hashes[i] == hash) {
+                NormalizedAtomicExpression nae = m_atoms.get(id);
+                if (nae.equals(key)) return nae;
+            }
+        }
+    }
+
+    boolean contains(NormalizedAtomicExpression key) {
+        return get(key) != null;
+    }
+
+    /** Adds {@code nae}, which must have its atom id and must not be equal to any atom already in here. */
+    void add(NormalizedAtomicExpression nae) {
+        if ((m_used + 1) * 2 > m_ids.length) {
+            rehash(m_size + 1 > m_ids.length / 4 ? m_ids.length * 2 : m_ids.length);
+        }
+        int hash = nae.hashCode();
+        int mask = m_ids.length - 1;
+        int i = mix(hash) & mask;
+        while (m_ids[i] >= 0) {
+            i = (i + 1) & mask;
+        }
+        if (m_ids[i] == EMPTY) m_used++;
+        m_ids[i] = nae.getAtomId();
+        m_hashes[i] = hash;
+        m_size++;
+    }
+
+    /** Removes {@code nae} (the very atom, found by its id) if it is in here. */
+    void remove(NormalizedAtomicExpression nae) {
+        int hash = nae.hashCode();
+        int mask = m_ids.length - 1;
+        for (int i = mix(hash) & mask; m_ids[i] != EMPTY; i = (i + 1) & mask) {
+            if (m_ids[i] == nae.getAtomId()) {
+                m_ids[i] = DELETED;
+                m_size--;
+                return;
+            }
+        }
+    }
+
+    int size() {
+        return m_size;
+    }
+
+    void clear() {
+        Arrays.fill(m_ids, EMPTY);
+        m_size = 0;
+        m_used = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] ids = m_ids;
+        int[] hashes = m_hashes;
+        m_ids = new int[capacity];
+        m_hashes = new int[capacity];
+        Arrays.fill(m_ids, EMPTY);
+        int mask = capacity - 1;
+        for (int j = 0; j < ids.length; j++) {
+            if (ids[j] < 0) continue;
+            int i = mix(hashes[j]) & mask;
+            while (m_ids[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            m_ids[i] = ids[j];
+            m_hashes[i] = hashes[j];
+        }
+        m_used = m_size;
+    }
+
+    // Arrays.hashCode of small ids clusters badly in the low bits
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * AtomUseIndex.java
+ * ---------------------------------
+ * Copyright (c) 2016
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.resolve.proving;
+
+import java.util.Arrays;
+
+/**
+ * Where the symbols of a {@link ConjunctionOfNormalizedAtomicExpressions} are used. For each symbol id and position
+ * (0 for the operator, n for the n-th argument and -1 for the root) it keeps a sorted posting list of the ids of the
+ * atoms with that symbol there.
+ * <p>
+ * The conjunction hands out atom ids in increasing order, so indexing a new atom is an append. Queries for atoms
+ * matching several (symbol, position) keys at once gallop through the lists in step, leaving the matching ids in a
+ * reused buffer rather than building intermediate sets.</p>
+ */
+class AtomUseIndex {
+
+    private static final int[] NONE = new int[0];
+
+    // m_lists[symbol][position + 1] holds m_sizes[symbol][position + 1] atom ids in ascending order
+    private int[][][] m_lists = new int[64][][];
+    private int[][] m_sizes = new int[64][];
+    private int[] m_result = new int[16];
+    private final int[] m_cursors = new int[8];
+
+    /** Indexes a use of {@code symbol} by {@code atom}, returning {@code false} if it was already indexed. */
+    boolean add(int symbol, int position, int atom) {
+        if (symbol >= m_lists.length) {
+            int capacity = Math.max(m_lists.length * 2, symbol + 1);
+            m_lists = Arrays.copyOf(m_lists, capacity);
+            m_sizes = Arrays.copyOf(m_sizes, capacity);
+        }
+        int p = position + 1;
+        if (m_lists[symbol] == null || p >= m_lists[symbol].length) {
+            int width = Math.max(p + 1, 4);
+            m_lists[symbol] = m_lists[symbol] == null ? new int[width][] : Arrays.copyOf(m_lists[symbol], width);
+            m_sizes[symbol] = m_sizes[symbol] == null ? new int[width] : Arrays.copyOf(m_sizes[symbol], width);
+        }
+        int[] list = m_lists[symbol][p];
+        int size = m_sizes[symbol][p];
+        if (list == null) {
+            list = m_lists[symbol][p] = new int[4];
+        }
+        int at = size;
+        if (size > 0 && list[size - 1] >= atom) {
+            // an atom that is already indexed elsewhere picking up a new use of this symbol
+            at = Arrays.binarySearch(list, 0, size, atom);
+            if (at >= 0) return false;
+            at = -at - 1;
+        }
+        if (size == list.length) {
+            list = m_lists[symbol][p] = Arrays.copyOf(list, size * 2);
+        }
+        System.arraycopy(list, at, list, at + 1, size - at);
+        list[at] = atom;
+        m_sizes[symbol][p] = size + 1;
+        return true;
+    }
+
+    /** Removes a use of {@code symbol} by {@code atom}, returning {@code false} if it wasn't indexed. */
+    boolean remove(int symbol, int position, int atom) {
+        int size = size(symbol, position);
+        if (size == 0) return false;
+        int[] list = m_lists[symbol][position + 1];
+        int at = Arrays.binarySearch(list, 0, size, atom);
+        if (at < 0) return false;
+        System.arraycopy(list, at + 1, list, at, size - at - 1);
+        m_sizes[symbol][position + 1] = size - 1;
+        return true;
+    }
+
+    /**
+     * Forgets every use of {@code symbol}; used once it has been merged away.
+     *
+     * @return the detached uses, which {@link #restoreSymbol} can put back, or {@code null} if there were none.
+     */
+    Object removeSymbol(int symbol) {
+        if (symbol >= m_lists.length || m_lists[symbol] == null) return null;
+        Object[] detached = {m_lists[symbol], m_sizes[symbol]};
+        m_lists[symbol] = null;
+        m_sizes[symbol] = null;
+        return detached;
+    }
+
+    /** Replaces the uses of {@code symbol} with ones detached by {@link #removeSymbol}. */
+    void restoreSymbol(int symbol, Object detached) {
+        if (symbol >= m_lists.length) return; // nothing was ever detached
+        m_lists[symbol] = detached == null ? null : (int[][]) ((Object[]) detached)[0];
+        m_sizes[symbol] = detached == null ? null : (int[]) ((Object[]) detached)[1];
+    }
+
+    /** A copy of {@code other}'s posting lists, to be changed independently of it. */
+    AtomUseIndex(AtomUseIndex other) {
+        m_lists = new int[other.m_lists.length][][];
+        m_sizes = new int[other.m_sizes.length][];
+        for (int s = 0; s < m_lists.length; s++) {
+            if (other.m_lists[s] == null) continue;
+            m_sizes[s] = other.m_sizes[s].clone();
+            m_lists[s] = new int[other.m_lists[s].length][];
+            for (int p = 0; p < m_lists[s].length; p++) {
+                int[] list = other.m_lists[s][p];
+                if (list != null) m_lists[s][p] = Arrays.copyOf(list, Math.max(m_sizes[s][p], 4));
+            }
+        }
+    }
+
+    AtomUseIndex() {
+    }
+
+    void clear() {
+        Arrays.fill(m_lists, null);
+        Arrays.fill(m_sizes, null);
+    }
+
+    boolean isUsed(int symbol) {
+        if (symbol < 0 || symbol >= m_sizes.length || m_sizes[symbol] == null) return false;
+        for (int size : m_sizes[symbol]) {
+            if (size > 0) return true;
+        }
+        return false;
+    }
+
+    int size(int symbol, int position) {
+        int p = position + 1;
+        if (symbol < 0 || symbol >= m_sizes.length || m_sizes[symbol] == null || p >= m_sizes[symbol].length) {
+            return 0;
+        }
+        return m_sizes[symbol][p];
+    }
+
+    /** The ids of all atoms using {@code symbol} anywhere, in ascending order. */
+    int[] getUses(int symbol) {
+        if (!isUsed(symbol)) return NONE;
+        int total = 0;
+        for (int size : m_sizes[symbol]) {
+            total += size;
+        }
+        int[] rArray = new int[total];
+        int n = 0;
+        for (int p = 0; p < m_sizes[symbol].length; ++p) {
+            if (m_sizes[symbol][p] == 0) continue;
+            System.arraycopy(m_lists[symbol][p], 0, rArray, n, m_sizes[symbol][p]);
+            n += m_sizes[symbol][p];
+        }
+        Arrays.sort(rArray);
+        int u = 0;
+        for (int i = 0; i < n; ++i) {
+            if (u == 0 || rArray[u - 1] != rArray[i]) rArray[u++] = rArray[i];
+        }
+        return u == n ? rArray : Arrays.copyOf(rArray, u);
+    }
+
+    /** The ids of the atoms using {@code symbol} at {@code position}, in ascending order. */
+    int[] getUses(int symbol, int position) {
+        int size = size(symbol, position);
+        return size == 0 ? NONE : Arrays.copyOf(m_lists[symbol][position + 1], size);
+    }
+
+    /**
+     * Finds the atoms that, for every {@code i < n}, use {@code symbols[i]} at {@code positions[i]}. Their ids are
+     * left in ascending order at the front of {@link #result()}.
+     *
+     * @return the number of matching atoms.
+     */
+    int intersect(int[] symbols, int[] positions, int n) {
+        if (n == 0) return 0;
+        // drive the search from the shortest list
+        int shortest = 0;
+        for (int k = 0; k < n; ++k) {
+            int size = size(symbols[k], positions[k]);
+            if (size == 0) return 0;
+            if (size < size(symbols[shortest], positions[shortest])) shortest = k;
+        }
+        int[] driver = m_lists[symbols[shortest]][positions[shortest] + 1];
+        int driverSize = m_sizes[symbols[shortest]][positions[shortest] + 1];
+        if (m_result.length < driverSize) {
+            m_result = new int[Math.max(driverSize, m_result.length * 2)];
+        }
+        int[] cursors = n <= 8 ? m_cursors : new int[n];
+        Arrays.fill(cursors, 0, n, 0);
+        int count = 0;
+        next: for (int d = 0; d < driverSize; ++d) {
+            int atom = driver[d];
+            for (int k = 0; k < n; ++k) {
+                if (k == shortest) continue;
+                int[] list = m_lists[symbols[k]][positions[k] + 1];
+                int size = m_sizes[symbols[k]][positions[k] + 1];
+                int c = gallop(list, cursors[k], size, atom);
+                cursors[k] = c;
+                if (c == size) break next;
+                if (list[c] != atom) continue next;
+            }
+            m_result[count++] = atom;
+        }
+        return count;
+    }
+
+    /** Buffer holding the ids found by the last call to {@link #intersect}. */
+    int[] result() {
+        return m_result;
+    }
+
+    // index of the first element of list[from, size) that is >= key, or size if there is none
+    private static int gallop(int[] list, int from, int size, int key) {
+        int step = 1;
+        int lo = from;
+        int hi = from;
+        while (hi < size && list[hi] < key) {
+            lo = hi + 1;
+            hi += step;
+            step <<= 1;
+        }
+        if (hi > size) hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (list[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
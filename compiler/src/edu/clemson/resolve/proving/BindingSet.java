@@ -0,0 +1,123 @@
+/**
+ * BindingSet.java
+ * ---------------------------------
+ * Copyright (c) 2016
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.resolve.proving;
+
+import java.util.Arrays;
+
+/**
+ * An insertion ordered set of theorem bindings. A binding is an {@code int[]} with one entry per binding slot of a
+ * theorem (see {@link TheoremCongruenceClosureImpl}) holding the id of the VC class bound there, {@link #UNBOUND} or
+ * {@link #ABSENT}. Bindings are compared by content; deduplication uses an open addressing table of indices, so
+ * neither lookups nor insertions box or allocate per entry.
+ * <p>
+ * Arrays handed to {@link #add(int[])} are kept by reference and must not be modified afterwards.</p>
+ */
+class BindingSet {
+
+    /** The slot takes part in matching but nothing has been bound to it yet. */
+    static final int UNBOUND = -1;
+    /** The slot plays no part in this binding at all. */
+    static final int ABSENT = -2;
+
+    private int[][] m_bindings;
+    private int[] m_hashes;
+    private int[] m_table; // entry index + 1, 0 meaning free
+    private int m_size = 0;
+
+    BindingSet() {
+        this(16);
+    }
+
+    BindingSet(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        m_table = new int[capacity];
+        m_bindings = new int[capacity / 2][];
+        m_hashes = new int[capacity / 2];
+    }
+
+    int size() {
+        return m_size;
+    }
+
+    boolean isEmpty() {
+        return m_size == 0;
+    }
+
+    int[] get(int i) {
+        return m_bindings[i];
+    }
+
+    boolean contains(int[] binding) {
+        int h = hash(binding);
+        int mask = m_table.length - 1;
+        for (int i = h & mask; m_table[i] != 0; i = (i + 1) & mask) {
+            int e = m_table[i] - 1;
+            if (m_hashes[e] == h && Arrays.equals(m_bindings[e], binding)) return true;
+        }
+        return false;
+    }
+
+    /** Adds {@code binding}, returning {@code false} if an equal binding was already present. */
+    boolean add(int[] binding) {
+        int h = hash(binding);
+        int mask = m_table.length - 1;
+        int i = h & mask;
+        for (; m_table[i] != 0; i = (i + 1) & mask) {
+            int e = m_table[i] - 1;
+            if (m_hashes[e] == h && Arrays.equals(m_bindings[e], binding)) return false;
+        }
+        if (m_size == m_bindings.length) {
+            grow();
+            return add(binding);
+        }
+        m_bindings[m_size] = binding;
+        m_hashes[m_size] = h;
+        m_table[i] = ++m_size;
+        return true;
+    }
+
+    void addAll(BindingSet other) {
+        for (int i = 0; i < other.m_size; i++) {
+            add(other.m_bindings[i]);
+        }
+    }
+
+    void clear() {
+        Arrays.fill(m_table, 0);
+        Arrays.fill(m_bindings, 0, m_size, null);
+        m_size = 0;
+    }
+
+    private void grow() {
+        int capacity = m_table.length * 2;
+        m_bindings = Arrays.copyOf(m_bindings, capacity / 2);
+        m_hashes = Arrays.copyOf(m_hashes, capacity / 2);
+        m_table = new int[capacity];
+        int mask = capacity - 1;
+        for (int e = 0; e < m_size; e++) {
+            int i = m_hashes[e] & mask;
+            while (m_table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            m_table[i] = e + 1;
+        }
+    }
+
+    private static int hash(int[] binding) {
+        int h = Arrays.hashCode(binding);
+        return h ^ (h >>> 16);
+    }
+}
@@ -4,6 +4,7 @@ import edu.clemson.resolve.RESOLVECompiler;
 import edu.clemson.resolve.compiler.AnnotatedModule;
 import edu.clemson.resolve.proving.absyn.PApply;
 import edu.clemson.resolve.proving.absyn.PExp;
+import edu.clemson.resolve.proving.absyn.PExpFactory;
 import edu.clemson.resolve.proving.absyn.PSymbol;
 import edu.clemson.resolve.semantics.*;
 import edu.clemson.resolve.semantics.query.NameQuery;
@@ -14,22 +15,27 @@ import edu.clemson.resolve.semantics.symbol.TheoremSymbol;
 import edu.clemson.resolve.vcgen.ListBackedSequent;
 import edu.clemson.resolve.vcgen.Sequent;
 import edu.clemson.resolve.vcgen.VC;
+import edu.clemson.resolve.vcgen.VCQueue;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 public final class CongruenceClassProver {
 
     private static final long DEFAULT_TIMEOUT = 5000;
     private static final int DEFAULT_TRIES = -1;
+    private static final int DEFAULT_THREADS = 1;
     private static final boolean SHOW_RESULTS_IF_NOT_PROVED = true;
 
-    private final List<VerificationConditionCongruenceClosureImpl> m_ccVCs = new ArrayList<>();
+    // per vc, by index. Synchronized as, when VCs are streamed in (see VCQueue), workers read them while more arrive.
+    // A closure is null until built (see closure), which for a streamed vc is done by the worker that proves it
+    private final List<VerificationConditionCongruenceClosureImpl> m_ccVCs =
+            Collections.synchronizedList(new ArrayList<>());
     private final List<TheoremCongruenceClosureImpl> m_theorems = new ArrayList<>();
     private final Set<String> m_nonQuantifiedTheoremSymbols = new HashSet<>();
     private final Set<TheoremCongruenceClosureImpl> m_smallEndEquations = new HashSet<>();
@@ -39,24 +45,86 @@ public final class CongruenceClassProver {
     @NotNull
     private final DumbMathClssftnHandler m_typeGraph;
 
-    private String m_results;
-    private boolean printVCEachStep = false;
+    private final ProofLog.Verbosity m_verbosity;
     private long timeout;
     private long totalTime = 0;
 
-    private final PerVCProverModel[] models;
+    private final List<PerVCProverModel> models = Collections.synchronizedList(new ArrayList<>());
     private final int numTriesBeforeQuitting;
+    private final int numThreads;
+    // how many rounds of theorem applications TheoremRelevance looks ahead, TheoremRelevance.UNBOUNDED or OFF
+    private final int m_relevanceRounds;
+    // the strategies raced on every vc; just the default one unless -portfolio says otherwise
+    private final List<ProverStrategy> m_strategies;
+    // the threads the strategies race on (enough for every worker's vc at once), when there is more than one
+    @Nullable
+    private ExecutorService m_strategyPool;
+    // how many vcs each strategy won, when there is more than one
+    private final Map<String, Integer> m_strategyWins = new LinkedHashMap<>();
     private final RESOLVECompiler compiler;
     private final AnnotatedModule tr;
     private ProverListener proverListener;
 
+    @Nullable
+    private final ProofCache m_proofCache;
+    private final List<String> m_cacheKeys = Collections.synchronizedList(new ArrayList<>());
+    // what the cache keys of vcs are salted with: the theorems and the settings that can change a result
+    private String m_theoremFingerprint;
+    private final Map<String, TheoremCongruenceClosureImpl> m_theoremsByName = new HashMap<>();
+    @Nullable
+    private final ProverStats m_stats;
+
+    // kept so that fresh closures of the VCs can be built again later (see newClosure)
+    private final List<VC> m_vcs = Collections.synchronizedList(new ArrayList<>());
+    private final MathClssftn m_z, m_n;
+    // building a closure isn't safe to do concurrently, so closures (and the two maps below) are built under this
+    private final Object m_closureLock = new Object();
+    // closures of the antecedents shared by more than one VC, which closures of those VCs fork from (see closureOf)
+    private final Map<List<PExp>, VerificationConditionCongruenceClosureImpl> m_antecedentClosures = new HashMap<>();
+    // how many of the vcs so far have each list of antecedents
+    private final Map<List<PExp>, Integer> m_antecedentUses = new HashMap<>();
+    // the flattened formulas are rebuilt from scratch, so they are interned again to keep them shared between vcs
+    private final PExpFactory m_factory = new PExpFactory();
+
+    // where the VCs come from when they are streamed in rather than given up front
+    @Nullable
+    private final VCQueue m_incoming;
+
     public CongruenceClassProver(@NotNull RESOLVECompiler compiler,
                                  @NotNull AnnotatedModule target,
                                  @NotNull DumbMathClssftnHandler g,
                                  @NotNull List<VC> vcs) {
+        this(compiler, target, g, vcs, null);
+    }
+
+    /**
+     * A prover for the VCs that will arrive through {@code incoming}, as VC generation finishes them; {@link #start()}
+     * proves each as soon as it arrives (on up to {@code -proverThreads} workers) and returns once the queue is
+     * closed and every VC has been dealt with.
+     */
+    public CongruenceClassProver(@NotNull RESOLVECompiler compiler,
+                                 @NotNull AnnotatedModule target,
+                                 @NotNull DumbMathClssftnHandler g,
+                                 @NotNull VCQueue incoming) {
+        this(compiler, target, g, Collections.emptyList(), incoming);
+    }
+
+    private CongruenceClassProver(@NotNull RESOLVECompiler compiler,
+                                  @NotNull AnnotatedModule target,
+                                  @NotNull DumbMathClssftnHandler g,
+                                  @NotNull List<VC> vcs,
+                                  @Nullable VCQueue incoming) {
         this.compiler = compiler;
+        this.m_incoming = incoming;
         this.timeout = compiler.timeout != null ? Long.parseLong(compiler.timeout) : DEFAULT_TIMEOUT;
         this.numTriesBeforeQuitting = compiler.tries != null ? Integer.parseInt(compiler.tries) : DEFAULT_TRIES;
+        this.numThreads = compiler.proverThreads != null ?
+                Math.max(1, Integer.parseInt(compiler.proverThreads)) : DEFAULT_THREADS;
+        this.m_relevanceRounds = compiler.relevanceRounds == null ? TheoremRelevance.UNBOUNDED :
+                compiler.relevanceRounds.trim().equalsIgnoreCase("off") ? TheoremRelevance.OFF :
+                        Integer.parseInt(compiler.relevanceRounds);
+        this.m_strategies = parseStrategies(compiler.portfolio);
+        this.m_verbosity = parseVerbosity(compiler.proofVerbosity);
         this.totalTime = System.currentTimeMillis();
         this.m_typeGraph = g;
         try {
@@ -75,25 +143,11 @@ public final class CongruenceClassProver {
             compiler.info("warning: could not find some fundamental base sorts/classifications " +
                     "used by the prover: N and/or Z");
         }
-        models = new PerVCProverModel[vcs.size()];
         if (compiler.proverListener != null) {
             this.proverListener = compiler.proverListener;
         }
-        List<VC> preprocessedVcs = preprocessVCs(vcs);
-        //List<VC> preprocessedVcs = new ArrayList<>();
-
-        //VC test = buildTestVC5(m_scope, g, z, n);
-        //preprocessedVcs.add(test);
-        //m_ccVCs.add(new VerificationConditionCongruenceClosureImpl(g, test, z, n));
-
-        //preprocessedVcs.add(test);
-        int i = 0;
-        for (VC vc : preprocessedVcs) {
-            m_ccVCs.add(new VerificationConditionCongruenceClosureImpl(g, vc, z, n));
-            models[i++] = new PerVCProverModel(g, String.valueOf(vc.getNumber()),
-                    vc.getSequent().getLeftFormulas(),
-                    vc.getSequent().getRightFormulas());
-        }
+        this.m_z = z;
+        this.m_n = n;
         List<TheoremSymbol> theoremSymbols = new ArrayList<>();
         try {
             theoremSymbols.addAll(
@@ -102,12 +156,103 @@ public final class CongruenceClassProver {
                             MathSymbolTable.FacilityStrategy.FACILITY_IGNORE)));
         } catch (NoSuchModuleException|UnexpectedSymbolException e) {
         }
+        // theorems are compiled once per module (see TheoremLibrary) and shared with later runs on the same table
+        Map<ModuleIdentifier, List<TheoremSymbol>> theoremsByModule = new LinkedHashMap<>();
+        for (TheoremSymbol e : theoremSymbols) {
+            theoremsByModule.computeIfAbsent(e.getModuleIdentifier(), k -> new ArrayList<>()).add(e);
+        }
+        final MathClssftn libZ = z, libN = n;
+        for (Map.Entry<ModuleIdentifier, List<TheoremSymbol>> m : theoremsByModule.entrySet()) {
+            Supplier<TheoremLibrary> compile = () -> compileTheorems(m.getValue(), libZ, libN);
+            addLibrary(g == compiler.symbolTable.getTypeGraph() ?
+                    TheoremLibrary.get(compiler.symbolTable, m.getKey(), z, n, compile) : compile.get());
+        }
+        if (n != null && z != null) {
+            TheoremLibrary conversions = new TheoremLibrary();
+            sumConversion(n, z, conversions);
+            addLibrary(conversions);
+        }
+        m_proofCache = openProofCache(compiler.proofCache);
+        m_stats = compiler.proverStats != null ?
+                new ProverStats(String.valueOf(m_scope.getModuleIdentifier()), timeout) : null;
+        if (m_proofCache != null) {
+            for (TheoremCongruenceClosureImpl t : m_theorems) {
+                m_theoremsByName.put(t.m_name, t);
+            }
+            String theoremFingerprint = ProofCache.fingerprintTheorems(m_theorems, timeout);
+            // settings that can change the result of a vc count as part of the theorems it was proved with
+            String settings = "";
+            if (m_relevanceRounds != TheoremRelevance.UNBOUNDED) {
+                settings += "\nrelevance " + m_relevanceRounds;
+            }
+            if (!m_strategies.equals(Collections.singletonList(ProverStrategy.DEFAULT))) {
+                settings += "\nstrategies " + m_strategies;
+            }
+            if (!settings.isEmpty()) {
+                theoremFingerprint = ProofCache.sha256(theoremFingerprint + settings);
+            }
+            m_theoremFingerprint = theoremFingerprint;
+        }
+
+        //VC test = buildTestVC5(m_scope, g, z, n);
+        //vcs = Collections.singletonList(test);
+        List<VC> preprocessedVcs = new ArrayList<>();
+        for (VC vc : vcs) {
+            preprocessedVcs.add(preprocess(vc));
+        }
+        for (VC vc : preprocessedVcs) {
+            add(vc);
+        }
+        // every vc is known up front, so build all of their closures now, each forking from its antecedents' if shared
+        for (int i = 0; i < m_ccVCs.size(); i++) {
+            closure(i);
+        }
+    }
+
+    /** Adds the (preprocessed) {@code vc} to those to prove, returning its index; its closure is built later. */
+    private int add(VC vc) {
+        synchronized (m_closureLock) {
+            m_antecedentUses.merge(antecedentsOf(vc), 1, Integer::sum);
+        }
+        m_vcs.add(vc);
+        m_ccVCs.add(null);
+        models.add(new PerVCProverModel(m_typeGraph, String.valueOf(vc.getNumber()),
+                vc.getSequent().getLeftFormulas(),
+                vc.getSequent().getRightFormulas()));
+        m_cacheKeys.add(m_theoremFingerprint != null ? ProofCache.fingerprint(vc, m_theoremFingerprint) : null);
+        return m_ccVCs.size() - 1;
+    }
+
+    /**
+     * The closure of the {@code i}th VC, building it if that hasn't been done yet. Safe to call from a worker thread;
+     * the building itself is done one closure at a time.
+     */
+    private VerificationConditionCongruenceClosureImpl closure(int i) {
+        synchronized (m_closureLock) {
+            VerificationConditionCongruenceClosureImpl vcc = m_ccVCs.get(i);
+            if (vcc == null) {
+                vcc = closureOf(m_vcs.get(i));
+                m_ccVCs.set(i, vcc);
+            }
+            return vcc;
+        }
+    }
+
+    private void addLibrary(TheoremLibrary lib) {
+        m_theorems.addAll(lib.theorems);
+        m_nonQuantifiedTheoremSymbols.addAll(lib.nonQuantifiedSymbols);
+        m_smallEndEquations.addAll(lib.smallEndEquations);
+    }
+
+    private TheoremLibrary compileTheorems(List<TheoremSymbol> theoremSymbols, MathClssftn z, MathClssftn n) {
+        TheoremLibrary lib = new TheoremLibrary();
+        DumbMathClssftnHandler g = m_typeGraph;
         for (TheoremSymbol e : theoremSymbols) {
             PExp assertion = Utilities.replacePExp(e.getAssertion(), m_typeGraph, z, n);
             String eName = e.getName();
             if (assertion.getTopLevelOperationName().equals("=B") && assertion.getQuantifiedVariables().size() > 0) {
-                addEqualityTheorem(true, assertion, eName + "_left"); // match left
-                addEqualityTheorem(false, assertion, eName + "_right"); // match right
+                addEqualityTheorem(true, assertion, eName + "_left", lib); // match left
+                addEqualityTheorem(false, assertion, eName + "_right", lib); // match right
                 //m_theorems.add(new TheoremCongruenceClosureImpl(g, assertion, assertion, assertion, false,
                 //false, eName + "_whole")); // match whole*/
             }
@@ -117,7 +262,7 @@ public final class CongruenceClassProver {
 
                     //O.k. it seems we can safely assume the assertion (at the top level at least) will be an instance
                     //of a function app (PApply) TODO: bp this(103) when m_theorems is size 7
-                    addGoalSearchingTheorem((PApply)assertion, eName);
+                    addGoalSearchingTheorem((PApply)assertion, eName, lib);
                     //first arg (.get(1)) of function implies, second arg (.get(2))
                     t =
                             new TheoremCongruenceClosureImpl(g, assertion,
@@ -132,15 +277,64 @@ public final class CongruenceClassProver {
                                     assertion, assertion, assertion, false,
                                     false, eName);
                 }
-                m_theorems.add(t);
-                m_nonQuantifiedTheoremSymbols.addAll(t.getNonQuantifiedSymbols());
+                lib.add(t);
+                lib.nonQuantifiedSymbols.addAll(t.getNonQuantifiedSymbols());
                 //addContrapositive(assertion, eName);
             }
         }
-        if (n != null && z != null) {
-           sumConversion(n, z);
+        return lib;
+    }
+
+    private ProofLog.Verbosity parseVerbosity(@Nullable String level) {
+        if (level == null) return ProofLog.DEFAULT_VERBOSITY;
+        try {
+            return ProofLog.Verbosity.valueOf(level.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            compiler.info("warning: unknown -proofVerbosity level '" + level + "' (expected summary, applications, " +
+                    "trace or steps); using " + ProofLog.DEFAULT_VERBOSITY.name().toLowerCase());
+            return ProofLog.DEFAULT_VERBOSITY;
         }
-        m_results = "";
+    }
+
+    private List<ProverStrategy> parseStrategies(@Nullable String names) {
+        if (names == null) return Collections.singletonList(ProverStrategy.DEFAULT);
+        if (names.trim().equalsIgnoreCase("all")) return ProverStrategy.BUILT_IN;
+        List<ProverStrategy> result = new ArrayList<>();
+        for (String name : names.split(",")) {
+            ProverStrategy s = ProverStrategy.named(name.trim());
+            if (s == null) {
+                List<String> known = new ArrayList<>();
+                for (ProverStrategy b : ProverStrategy.BUILT_IN) {
+                    known.add(b.name);
+                }
+                compiler.info("warning: unknown prover strategy '" + name.trim() + "' (expected all or some of " +
+                        String.join(", ", known) + "); ignoring it");
+            }
+            else if (!result.contains(s)) {
+                result.add(s);
+            }
+        }
+        if (result.isEmpty()) result.add(ProverStrategy.DEFAULT);
+        return result;
+    }
+
+    // whether proof traces include what is logged at the given level
+    private boolean logs(ProofLog.Verbosity level) {
+        return m_verbosity.compareTo(level) >= 0;
+    }
+
+    @Nullable
+    private ProofCache openProofCache(@Nullable String mode) {
+        if (mode == null) return null;
+        ProofCache.Mode m;
+        try {
+            m = ProofCache.Mode.valueOf(mode.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            compiler.info("warning: unknown -proofCache mode '" + mode + "' (expected trust or replay); " +
+                    "proving without a cache");
+            return null;
+        }
+        return new ProofCache(new File(moduleFileBase() + ".proofcache"), m);
     }
 /*
     private VC buildTestVC1(Scope s, DumbMathClssftnHandler g, MathClssftn z, MathClssftn n) {
@@ -596,26 +790,20 @@ public final class CongruenceClassProver {
         return result;
     }*/
 
-    private List<VC> preprocessVCs(List<VC> vcs) {
-        List<VC> result = new ArrayList<>();
-        for (VC vc : vcs) {
-            List<PExp> l = new LinkedList<>();
-            List<PExp> r = new LinkedList<>();
-
-            for (PExp e : vc.getSequent().getLeftFormulas()) {
-                l.add(Utilities.flattenPSelectors(e));
-            }
-            for (PExp e : vc.getSequent().getRightFormulas()) {
-                r.add(Utilities.flattenPSelectors(e));
-            }
-            Sequent newSequent = new ListBackedSequent(l, r);
-            VC newVC = new VC(vc.getLocation(), vc.getNumber(), vc.getExplanation(), newSequent);
-            //newVC.convertAllToPsymbols(m_typeGraph);
+    private VC preprocess(VC vc) {
+        List<PExp> l = new LinkedList<>();
+        List<PExp> r = new LinkedList<>();
 
-            result.add(newVC);
+        for (PExp e : vc.getSequent().getLeftFormulas()) {
+            l.add(m_factory.intern(Utilities.flattenPSelectors(e)));
         }
-        //result.addAll(vcs); //TODO: Not doing the conversions now. (I don't use lambdas right now, etc)
-        return result;
+        for (PExp e : vc.getSequent().getRightFormulas()) {
+            r.add(m_factory.intern(Utilities.flattenPSelectors(e)));
+        }
+        Sequent newSequent = new ListBackedSequent(l, r);
+        //newVC.convertAllToPsymbols(m_typeGraph);
+        //TODO: Not doing the conversions now. (I don't use lambdas right now, etc)
+        return new VC(vc.getLocation(), vc.getNumber(), vc.getExplanation(), newSequent);
     }
 
     //TODO: Need to use one with import recursive...
@@ -631,7 +819,7 @@ public final class CongruenceClassProver {
         return (MathClssftnWrappingSymbol)result;
     }
 
-    private void addEqualityTheorem(boolean matchLeft, PExp theorem, String thName) {
+    private void addEqualityTheorem(boolean matchLeft, PExp theorem, String thName, TheoremLibrary lib) {
         PExp lhs, rhs;
         List<? extends PExp> subExps = theorem.getSubExpressions();
         if (theorem instanceof PApply) {
@@ -652,9 +840,9 @@ public final class CongruenceClassProver {
         if (lhs.getSubExpressions().size() > 0 || rhs.getSubExpressions().size() > 0) {
             TheoremCongruenceClosureImpl t =
                     new TheoremCongruenceClosureImpl(m_typeGraph, theorem, lhs, rhs, theorem, false, false, thName);
-            m_theorems.add(t);
+            lib.add(t);
             if (lhs.getSymbolNames().size() < rhs.getSymbolNames().size()) {
-                m_smallEndEquations.add(t);
+                lib.smallEndEquations.add(t);
             }
         }
     }
@@ -663,7 +851,7 @@ public final class CongruenceClassProver {
     // forall x,y,_g.((q(x) = _g) )
     //              -> (_g = (p(x) or _g))
     // the idea is to find q(x) = g, then add all p(x,y) we can find to goal
-    private void addGoalSearchingTheorem(PApply theorem, String name) {
+    private void addGoalSearchingTheorem(PApply theorem, String name, TheoremLibrary lib) {
         // search method will do a search for each current goal, replacing _g with goal in the binding map
 
         //create a goal symbol
@@ -693,12 +881,12 @@ public final class CongruenceClassProver {
         TheoremCongruenceClosureImpl t =
                 new TheoremCongruenceClosureImpl(m_typeGraph, theorem, ant,
                         consequent, consequent, true, false, name + "_goalSearch");
-        m_theorems.add(t);
+        lib.add(t);
     }
 
     // Temporarily coding conversion theorem for natural / integer addition
     // forall x,y:N, +N(x,y) = +Z(x,y) match left only
-    void sumConversion(MathClssftn n, MathClssftn z) {
+    void sumConversion(MathClssftn n, MathClssftn z, TheoremLibrary lib) {
 
         PSymbol x = new PSymbol.PSymbolBuilder("x")
                 .quantification(Quantification.UNIVERSAL)
@@ -734,74 +922,441 @@ public final class CongruenceClassProver {
                 .applicationType(m_typeGraph.BOOLEAN)
                 .build();
         String name = "Integer / Natural Sum Conversion";
-        addEqualityTheorem(true, eq, name + "_left");
-        addEqualityTheorem(false, eq, name + "_right");
+        addEqualityTheorem(true, eq, name + "_left", lib);
+        addEqualityTheorem(false, eq, name + "_right", lib);
     }
 
     //START
 
+    /**
+     * What came of one VC: its final status, the trace of theorem applications, how long it took and what the prover
+     * did along the way.
+     */
+    private static final class ProofAttempt {
+        final VerificationConditionCongruenceClosureImpl.STATUS status;
+        final String trace;
+        final long durationMS;
+        // the theorem instantiations made, in order, for the proof cache
+        final List<ProofCache.Step> steps;
+        final Metrics metrics;
+
+        ProofAttempt(VerificationConditionCongruenceClosureImpl.STATUS status, String trace, long durationMS,
+                     List<ProofCache.Step> steps, Metrics metrics) {
+            this.status = status;
+            this.trace = trace;
+            this.durationMS = durationMS;
+            this.steps = steps;
+            this.metrics = metrics;
+            metrics.setProofDuration(durationMS);
+        }
+    }
+
+    /**
+     * Proves every VC, streaming the trace of each to the {@code .proof} file (and standard out) as soon as it is
+     * done. The file is flushed after every VC, so whatever was finished survives a cancelled or aborted run.
+     */
     public void start() throws IOException {
+        if (m_strategies.size() > 1) {
+            m_strategyPool = Executors.newFixedThreadPool(numThreads * m_strategies.size());
+        }
+        try (ProofLog log = new ProofLog(new File(proofFileName()),
+                "Proofs for " + m_scope.getModuleIdentifier(), System.out)) {
+            StringBuilder summary;
+            if (m_incoming != null) {
+                summary = startStreaming(log);
+            }
+            else if (numThreads > 1 && m_ccVCs.size() > 1) {
+                summary = startConcurrent(log);
+            }
+            else {
+                summary = startSequential(log);
+            }
+            totalTime = System.currentTimeMillis() - totalTime;
+            if (m_strategies.size() > 1) {
+                summary.append("Proofs won by strategy:");
+                for (ProverStrategy s : m_strategies) {
+                    summary.append(" ").append(s.name).append(" ").append(m_strategyWins.getOrDefault(s.name, 0));
+                }
+                summary.append("\n");
+            }
+            summary.append("Elapsed time from construction: ").append(totalTime).append(" ms").append("\n");
+            String div = divLine("Summary");
+            log.write(div + summary + div + "\n");
+        } finally {
+            if (m_strategyPool != null) m_strategyPool.shutdownNow();
+        }
+        if (m_proofCache != null) {
+            m_proofCache.save();
+        }
+        if (m_stats != null) {
+            m_stats.save(new File(compiler.proverStats));
+        }
+    }
 
-        String summary = "";
-        int i = 0;
+    private StringBuilder startSequential(ProofLog log) throws IOException {
+        StringBuilder summary = new StringBuilder();
         int numUnproved = 0;
-        for (VerificationConditionCongruenceClosureImpl vcc : m_ccVCs) {
-            //printVCEachStep = true;
-            //if (!vcc.m_name.equals("0_2")) continue;
-            long startTime = System.nanoTime();
-            String whyQuit = "";
+        for (int i = 0; i < m_ccVCs.size(); i++) {
+            VerificationConditionCongruenceClosureImpl vcc = m_ccVCs.get(i);
             // Skip proof loop
             if (numTriesBeforeQuitting >= 0 && numUnproved >= numTriesBeforeQuitting) {
-                if (proverListener != null) {
-                    proverListener.vcResult(false, models[i], new Metrics(0, 0));
-                }
-                summary += vcc.m_name + " skipped\n";
-                ++i;
+                summary.append(reportSkipped(i));
                 continue;
             }
+            ProofAttempt attempt = attempt(i, new ActionCanceller());
+            if (!isProvedOrFalseAssumption(attempt.status)) numUnproved++;
+            summary.append(report(i, attempt, log));
+        }
+        return summary;
+    }
 
-            VerificationConditionCongruenceClosureImpl.STATUS proved = null;
-            if (isCancelled()) {
-                whyQuit += "Cancelled";
-                proved = VerificationConditionCongruenceClosureImpl.STATUS.CANCELLED;
-                numUnproved++;
+    /**
+     * Proves the VCs on a pool of {@code numThreads} workers. Results are still reported (to the summary, the proof
+     * file and the {@link ProverListener}) in VC order, and once {@code numTriesBeforeQuitting} VCs have gone
+     * unproved the remaining ones are reported as skipped (and any work still in flight for them is cancelled), just
+     * as in the sequential case.
+     */
+    private StringBuilder startConcurrent(ProofLog log) throws IOException {
+        StringBuilder summary = new StringBuilder();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(numThreads, m_ccVCs.size()));
+        List<Future<ProofAttempt>> futures = new ArrayList<>();
+        List<ActionCanceller> cancellers = new ArrayList<>();
+        try {
+            for (int i = 0; i < m_ccVCs.size(); i++) {
+                final int vcIndex = i;
+                ActionCanceller canceller = new ActionCanceller();
+                cancellers.add(canceller);
+                futures.add(pool.submit(() -> attempt(vcIndex, canceller)));
             }
-            else {
-                proved = prove(vcc);
-                if (proved.equals(VerificationConditionCongruenceClosureImpl.STATUS.PROVED)) {
-                    whyQuit += " Proved ";
+            int numUnproved = 0;
+            for (int i = 0; i < futures.size(); i++) {
+                if (numTriesBeforeQuitting >= 0 && numUnproved >= numTriesBeforeQuitting) {
+                    for (int j = i; j < futures.size(); j++) {
+                        cancellers.get(j).cancel();
+                        futures.get(j).cancel(false);
+                    }
+                    summary.append(reportSkipped(i));
+                    continue;
+                }
+                ProofAttempt attempt = awaitAttempt(futures.get(i));
+                futures.set(i, null); // its trace is in the log now, let it go
+                if (!isProvedOrFalseAssumption(attempt.status)) numUnproved++;
+                summary.append(report(i, attempt, log));
+            }
+        } finally {
+            for (ActionCanceller c : cancellers) {
+                c.cancel();
+            }
+            pool.shutdownNow();
+        }
+        return summary;
+    }
+
+    /**
+     * Proves the VCs coming in through {@link #m_incoming} as they arrive, on {@code numThreads} workers (or on this
+     * thread if there is just the one). As with {@link #startConcurrent} results are reported in VC order; at most a
+     * couple of VCs per worker are let ahead of the oldest unreported one, so a slow VC holds up taking more off the
+     * queue, and in turn VC generation, rather than leaving their traces to pile up. This thread just takes VCs off
+     * the queue and preprocesses them; each closure is built by the worker proving it (see {@link #closure}). Once
+     * {@code numTriesBeforeQuitting} VCs have gone unproved the rest are still taken off the queue, so VC generation
+     * can finish, but only reported as skipped.
+     */
+    private StringBuilder startStreaming(ProofLog log) throws IOException {
+        StringBuilder summary = new StringBuilder();
+        ExecutorService pool = numThreads > 1 ? Executors.newFixedThreadPool(numThreads) : null;
+        Deque<Future<ProofAttempt>> inFlight = new ArrayDeque<>();
+        List<ActionCanceller> cancellers = new ArrayList<>();
+        int numUnproved = 0;
+        int reported = 0; // index of the oldest vc not yet reported
+        try {
+            for (VC vc = takeIncoming(); vc != null; vc = takeIncoming()) {
+                int i = add(preprocess(vc));
+                if (numTriesBeforeQuitting >= 0 && numUnproved >= numTriesBeforeQuitting) {
+                    continue; // reported as skipped below, along with any still in flight
                 }
-                else if (proved.equals(VerificationConditionCongruenceClosureImpl.STATUS.FALSE_ASSUMPTION)) {
-                    whyQuit += " Proved (Assumption(s) false) ";
+                if (pool == null) {
+                    ProofAttempt attempt = attempt(i, new ActionCanceller());
+                    if (!isProvedOrFalseAssumption(attempt.status)) numUnproved++;
+                    summary.append(report(i, attempt, log));
+                    reported++;
+                    continue;
                 }
-                else if (proved.equals(VerificationConditionCongruenceClosureImpl.STATUS.STILL_EVALUATING)) {
-                    whyQuit += " Out of theorems, or timed out ";
-                    numUnproved++;
+                ActionCanceller canceller = new ActionCanceller();
+                cancellers.add(canceller);
+                inFlight.add(pool.submit(() -> attempt(i, canceller)));
+                while (inFlight.size() > 2 * numThreads ||
+                        (!inFlight.isEmpty() && inFlight.peek().isDone())) {
+                    ProofAttempt attempt = awaitAttempt(inFlight.poll());
+                    if (!isProvedOrFalseAssumption(attempt.status)) numUnproved++;
+                    summary.append(report(reported, attempt, log));
+                    reported++;
+                    if (numTriesBeforeQuitting >= 0 && numUnproved >= numTriesBeforeQuitting) {
+                        for (ActionCanceller c : cancellers) {
+                            c.cancel();
+                        }
+                        break;
+                    }
                 }
-                else {
-                    whyQuit += " Goal false "; // this isn't currently reachable
+            }
+            while (!inFlight.isEmpty() && (numTriesBeforeQuitting < 0 || numUnproved < numTriesBeforeQuitting)) {
+                ProofAttempt attempt = awaitAttempt(inFlight.poll());
+                if (!isProvedOrFalseAssumption(attempt.status)) numUnproved++;
+                summary.append(report(reported, attempt, log));
+                reported++;
+            }
+            for (Future<ProofAttempt> f : inFlight) {
+                f.cancel(false);
+            }
+            for (; reported < m_ccVCs.size(); reported++) {
+                summary.append(reportSkipped(reported));
+            }
+        } finally {
+            for (ActionCanceller c : cancellers) {
+                c.cancel();
+            }
+            if (pool != null) pool.shutdownNow();
+        }
+        return summary;
+    }
+
+    @Nullable
+    private VC takeIncoming() {
+        try {
+            return m_incoming.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private ProofAttempt awaitAttempt(Future<ProofAttempt> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ProofAttempt(VerificationConditionCongruenceClosureImpl.STATUS.CANCELLED, "", 0,
+                    Collections.emptyList(), new Metrics(0, timeout));
+        } catch (ExecutionException e) {
+            throw new RuntimeException("prover worker failed", e.getCause());
+        }
+    }
+
+    /**
+     * Proves the {@code i}th VC, consulting the proof cache first if there is one; safe to call from a worker thread
+     * as long as each VC is only ever given to one.
+     */
+    private ProofAttempt attempt(int i, ActionCanceller canceller) {
+        VerificationConditionCongruenceClosureImpl vcc = closure(i);
+        long startTime = System.nanoTime();
+        ProofCache.Entry cached = m_proofCache != null ? m_proofCache.get(m_cacheKeys.get(i)) : null;
+        StrategyRun run;
+        if (isCancelled() || !canceller.amRunning()) {
+            run = new StrategyRun(vcc, m_strategies.get(0), timeout);
+            run.status = VerificationConditionCongruenceClosureImpl.STATUS.CANCELLED;
+        }
+        else if (cached != null && (m_proofCache.getMode() == ProofCache.Mode.TRUST ||
+                !isProvedOrFalseAssumption(cached.status))) {
+            run = new StrategyRun(vcc, m_strategies.get(0), timeout);
+            if (logs(ProofLog.Verbosity.APPLICATIONS)) {
+                String div = divLine(vcc.m_name);
+                run.trace.append(div).append("Cached result: ").append(cached.status).append("\n").append(div);
+            }
+            run.steps.addAll(cached.steps);
+            run.status = cached.status;
+        }
+        else if (m_strategies.size() > 1) {
+            run = runPortfolio(i, cached, canceller);
+        }
+        else {
+            run = run(vcc, m_strategies.get(0), cached, canceller);
+        }
+        long delayMS = TimeUnit.MILLISECONDS.convert(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        run.metrics.registrySize = run.vcc.getRegistry().m_indexToSymbol.size();
+        return new ProofAttempt(run.status, run.trace.toString(), delayMS, run.steps, run.metrics);
+    }
+
+    /** One strategy's go at a VC: the closure it worked on, what it came to and how it got there. */
+    private static final class StrategyRun {
+        final VerificationConditionCongruenceClosureImpl vcc;
+        final ProverStrategy strategy;
+        final StringBuilder trace = new StringBuilder();
+        final List<ProofCache.Step> steps = new ArrayList<>();
+        final Metrics metrics;
+        VerificationConditionCongruenceClosureImpl.STATUS status;
+
+        StrategyRun(VerificationConditionCongruenceClosureImpl vcc, ProverStrategy strategy, long timeout) {
+            this.vcc = vcc;
+            this.strategy = strategy;
+            this.metrics = new Metrics(0, timeout);
+        }
+    }
+
+    /** Replays {@code cached}'s steps (if any) on {@code vcc}, then proves it with {@code strategy}. */
+    private StrategyRun run(VerificationConditionCongruenceClosureImpl vcc, ProverStrategy strategy,
+                            @Nullable ProofCache.Entry cached, ActionCanceller canceller) {
+        StrategyRun run = new StrategyRun(vcc, strategy, timeout);
+        ConjunctionOfNormalizedAtomicExpressions conj = vcc.getConjunct();
+        long mergesBefore = conj.m_mergeCount;
+        long lookupsBefore = conj.m_useMapLookups;
+        if (cached != null) {
+            replay(vcc, cached.steps, run.steps);
+        }
+        run.status = prove(vcc, strategy, canceller, run.trace, run.steps, run.metrics);
+        if (cached != null && isProvedOrFalseAssumption(run.status) && run.steps.size() == cached.steps.size()
+                && logs(ProofLog.Verbosity.APPLICATIONS)) {
+            run.trace.insert(0, "Replayed " + run.steps.size() + " cached theorem application(s)\n");
+        }
+        run.metrics.merges = conj.m_mergeCount - mergesBefore;
+        run.metrics.useMapLookups = conj.m_useMapLookups - lookupsBefore;
+        run.metrics.strategy = strategy.name;
+        return run;
+    }
+
+    /**
+     * Races every strategy of the portfolio, each on its own closure of the {@code i}th VC, on
+     * {@link #m_strategyPool}. The first to prove the VC wins and the rest are cancelled; if none of them does, what
+     * the first strategy came to is what gets reported, along with what each of the others came to.
+     */
+    private StrategyRun runPortfolio(int i, @Nullable ProofCache.Entry cached, ActionCanceller canceller) {
+        CompletionService<StrategyRun> runs = new ExecutorCompletionService<>(m_strategyPool);
+        List<Future<StrategyRun>> futures = new ArrayList<>();
+        List<ActionCanceller> cancellers = new ArrayList<>();
+        StrategyRun[] finished = new StrategyRun[m_strategies.size()];
+        StrategyRun winner = null;
+        try {
+            for (int k = 0; k < m_strategies.size(); k++) {
+                // closures can't be shared, so all but the first strategy get a fresh one. Other vcs are being
+                // proved on the other -proverThreads workers, so this goes through the same lock as their closures
+                VerificationConditionCongruenceClosureImpl vcc = k == 0 ? closure(i) : newClosure(i);
+                ProverStrategy strategy = m_strategies.get(k);
+                ActionCanceller c = new ActionCanceller(canceller);
+                cancellers.add(c);
+                futures.add(runs.submit(() -> run(vcc, strategy, cached, c)));
+            }
+            for (int k = 0; k < m_strategies.size() && winner == null; k++) {
+                StrategyRun r = runs.take().get();
+                finished[m_strategies.indexOf(r.strategy)] = r;
+                if (isProvedOrFalseAssumption(r.status)) winner = r;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("prover strategy failed", e.getCause());
+        } finally {
+            // the pool outlives this vc, so the losers have to be stopped here rather than by shutting it down
+            for (ActionCanceller c : cancellers) {
+                c.cancel();
+            }
+            for (Future<StrategyRun> f : futures) {
+                f.cancel(true);
+            }
+        }
+        StrategyRun result = winner != null ? winner : finished[0];
+        if (result == null) { // interrupted before anything finished
+            result = new StrategyRun(closure(i), m_strategies.get(0), timeout);
+            result.status = VerificationConditionCongruenceClosureImpl.STATUS.CANCELLED;
+        }
+        if (logs(ProofLog.Verbosity.APPLICATIONS)) {
+            if (winner != null) {
+                result.trace.insert(0, "Proved by strategy " + winner.strategy + " (of " + m_strategies.size() +
+                        ")\n");
+            }
+            else {
+                StringBuilder statuses = new StringBuilder();
+                for (int k = 0; k < m_strategies.size(); k++) {
+                    statuses.append(k == 0 ? "" : ", ").append(m_strategies.get(k).name).append(": ")
+                            .append(finished[k] != null ? finished[k].status :
+                                    VerificationConditionCongruenceClosureImpl.STATUS.CANCELLED);
                 }
+                result.trace.insert(0, "None of the " + m_strategies.size() + " strategies proved it (" +
+                        statuses + "); showing " + result.strategy.name + "\n");
             }
-            long endTime = System.nanoTime();
-            long delayNS = endTime - startTime;
-            long delayMS = TimeUnit.MILLISECONDS.convert(delayNS, TimeUnit.NANOSECONDS);
-            summary += vcc.m_name + whyQuit + " time: " + delayMS + " ms\n";
-            if (proverListener != null) {
-                this.proverListener
-                        .vcResult(
-                                (proved == (VerificationConditionCongruenceClosureImpl.STATUS.PROVED) ||
-                                        (proved == VerificationConditionCongruenceClosureImpl.STATUS.FALSE_ASSUMPTION)),
-                                models[i], new Metrics(delayMS, timeout));
+        }
+        return result;
+    }
+
+    /**
+     * Applies cached theorem instantiations to {@code vcc} in their original order, stopping at the first one that no
+     * longer applies. Those applied are added to {@code applied}; whatever they don't settle is left to
+     * {@link #prove}.
+     */
+    private void replay(VerificationConditionCongruenceClosureImpl vcc, List<ProofCache.Step> steps,
+                        List<ProofCache.Step> applied) {
+        for (ProofCache.Step step : steps) {
+            if (!vcc.isProved().equals(VerificationConditionCongruenceClosureImpl.STATUS.STILL_EVALUATING)) return;
+            TheoremCongruenceClosureImpl t = m_theoremsByName.get(step.theoremName);
+            if (t == null) return;
+            String[] vars = t.getInsertQuantifiedVariables();
+            String[] values = new String[vars.length];
+            for (int j = 0; j < vars.length; j++) {
+                values[j] = step.bindings.get(vars[j]);
+                if (values[j] == null || !vcc.getRegistry().isSymbolInTable(values[j])) return;
             }
-            i++;
+            PExp inst = t.instantiate(values, vcc);
+            if (inst == null) return;
+            vcc.getConjunct().addExpressionAndTrackChanges(inst, Deadline.NONE, t.m_theoremString);
+            applied.add(step);
+        }
+    }
 
+    private String report(int i, ProofAttempt attempt, ProofLog log) throws IOException {
+        String whyQuit = "";
+        if (attempt.status.equals(VerificationConditionCongruenceClosureImpl.STATUS.CANCELLED)) {
+            whyQuit += "Cancelled";
+        }
+        else if (attempt.status.equals(VerificationConditionCongruenceClosureImpl.STATUS.PROVED)) {
+            whyQuit += " Proved ";
+        }
+        else if (attempt.status.equals(VerificationConditionCongruenceClosureImpl.STATUS.FALSE_ASSUMPTION)) {
+            whyQuit += " Proved (Assumption(s) false) ";
+        }
+        else if (attempt.status.equals(VerificationConditionCongruenceClosureImpl.STATUS.STILL_EVALUATING)) {
+            whyQuit += " Out of theorems, or timed out ";
+        }
+        else {
+            whyQuit += " Goal false "; // this isn't currently reachable
+        }
+        log.write(attempt.trace);
+        log.flush();
+        if (m_proofCache != null && attempt.status != VerificationConditionCongruenceClosureImpl.STATUS.CANCELLED) {
+            m_proofCache.put(m_cacheKeys.get(i), new ProofCache.Entry(attempt.status, attempt.steps));
+        }
+        if (m_stats != null) {
+            m_stats.add(nameOf(i), attempt.status.name(), attempt.metrics);
         }
-        totalTime = System.currentTimeMillis() - totalTime;
-        summary += "Elapsed time from construction: " + totalTime + " ms" + "\n";
-        String div = divLine("Summary");
-        summary = div + summary + div;
-        System.out.println(m_results + summary);
-        outputProofFile();
+        String wonBy = "";
+        if (m_strategies.size() > 1 && attempt.metrics.strategy != null && isProvedOrFalseAssumption(attempt.status)) {
+            m_strategyWins.merge(attempt.metrics.strategy, 1, Integer::sum);
+            wonBy = "(" + attempt.metrics.strategy + ")";
+        }
+        if (proverListener != null) {
+            this.proverListener.vcResult(isProvedOrFalseAssumption(attempt.status), models.get(i), attempt.metrics);
+        }
+        return nameOf(i) + whyQuit + wonBy + " time: " + attempt.durationMS + " ms\n";
+    }
+
+    private String reportSkipped(int i) {
+        ProofCache.Entry cached = m_proofCache != null ? m_proofCache.get(m_cacheKeys.get(i)) : null;
+        if (cached != null) {
+            m_proofCache.put(m_cacheKeys.get(i), cached); // not tried this time, but still good
+        }
+        if (m_stats != null) {
+            m_stats.add(nameOf(i), "SKIPPED", new Metrics(0, 0));
+        }
+        if (proverListener != null) {
+            proverListener.vcResult(false, models.get(i), new Metrics(0, 0));
+        }
+        return nameOf(i) + " skipped\n";
+    }
+
+    // what the ith vc goes by in reports, the same as its closure's name; a skipped vc may never get a closure
+    private String nameOf(int i) {
+        return String.valueOf(m_vcs.get(i).getNumber());
+    }
+
+    private static boolean isProvedOrFalseAssumption(VerificationConditionCongruenceClosureImpl.STATUS s) {
+        return s == VerificationConditionCongruenceClosureImpl.STATUS.PROVED ||
+                s == VerificationConditionCongruenceClosureImpl.STATUS.FALSE_ASSUMPTION;
     }
 
     private String divLine(String label) {
@@ -827,121 +1382,191 @@ public final class CongruenceClassProver {
                 choose new top rank
      */
     protected VerificationConditionCongruenceClosureImpl.STATUS prove(
-            VerificationConditionCongruenceClosureImpl vcc) {
-        ArrayList<TheoremCongruenceClosureImpl> theoremsForThisVC = new ArrayList<>();
-        theoremsForThisVC.addAll(m_theorems);
+            VerificationConditionCongruenceClosureImpl vcc, ProverStrategy strategy, ActionCanceller canceller,
+            StringBuilder trace, List<ProofCache.Step> steps, Metrics metrics) {
         long startTime = System.currentTimeMillis();
-        long endTime = timeout + startTime;
+        Deadline deadline = Deadline.after(timeout, canceller);
         Map<String, Integer> theoremAppliedCount = new HashMap<>();
         VerificationConditionCongruenceClosureImpl.STATUS status = vcc.isProved();
         String div = divLine(vcc.m_name);
-        String theseResults = div + ("Before app of theorems: " + vcc + "\n");
+        boolean logApplications = logs(ProofLog.Verbosity.APPLICATIONS);
+        boolean logTrace = logs(ProofLog.Verbosity.TRACE);
+        if (logApplications) trace.append(div);
+        if (logTrace) trace.append("Before app of theorems: ").append(vcc).append("\n");
 
         int iteration = 0;
-        // ++++++ Create new PQ for instantiated theorems
+        // drop the theorems that could never be tried on this vc before anything gets scored
+        List<TheoremCongruenceClosureImpl> relevant = TheoremRelevance.relevantTo(
+                vcc.getRegistry().m_symbolToIndex.keySet(), m_theorems, m_relevanceRounds);
+        metrics.theoremsPruned = m_theorems.size() - relevant.size();
+        if (logApplications) {
+            trace.append("Relevant theorems: ").append(relevant.size()).append(" of ").append(m_theorems.size())
+                    .append(" (").append(metrics.theoremsPruned).append(" pruned)\n");
+        }
+        //NOTE: DAN, DONE ON A PER VC BASIS. A thm prioritizer per vc.
+        TheoremPrioritizer rankedTheorems =
+                new TheoremPrioritizer(relevant,
+                        theoremAppliedCount, vcc,
+                        m_nonQuantifiedTheoremSymbols, m_smallEndEquations);
         chooseNewTheorem: while (status
                 .equals(VerificationConditionCongruenceClosureImpl.STATUS.STILL_EVALUATING)
-                && System.currentTimeMillis() <= endTime && !isCancelled()) {
+                && !deadline.expired() && !isCancelled()) {
             long time_at_theorem_pq_creation = System.currentTimeMillis();
-            // ++++++ Creates new PQ with all the theorems
-
-            //NOTE: DAN, DONE ON A PER VC BASIS. A thm prioritizer per vc.
-            TheoremPrioritizer rankedTheorems =
-                    new TheoremPrioritizer(theoremsForThisVC,
-                            theoremAppliedCount, vcc,
-                            m_nonQuantifiedTheoremSymbols, m_smallEndEquations);
-            int max_Theorems_to_choose = 1;
+            // ++++++ Requeues all the theorems, rescoring those affected by the last round
+            long rankStart = System.nanoTime();
+            rankedTheorems.refresh(deadline);
+            metrics.prioritizerRefreshes++;
+            metrics.rankingNanos += System.nanoTime() - rankStart;
+            int max_Theorems_to_choose = strategy.theoremsPerRound;
             int num_Theorems_chosen = 0;
-            while (!isCancelled() && !rankedTheorems.m_pQueue.isEmpty()
+            while (!isCancelled() && !deadline.expired() && !rankedTheorems.isEmpty()
                     && status
                     .equals(VerificationConditionCongruenceClosureImpl.STATUS.STILL_EVALUATING)
-                    && (num_Theorems_chosen < max_Theorems_to_choose || rankedTheorems.m_pQueue
-                    .peek().m_score <= 1)) {
+                    && (num_Theorems_chosen < max_Theorems_to_choose
+                            || rankedTheorems.peekScore() <= strategy.freeScore)) {
                 // +++++++ Chooses top of uninstantiated theorem PQ
                 long time_at_selection = System.currentTimeMillis();
-                int theoremScore = rankedTheorems.m_pQueue.peek().m_score;
+                int theoremScore = rankedTheorems.peekScore();
                 TheoremCongruenceClosureImpl cur = rankedTheorems.poll();
                 // Mark as used
                 int count = 0;
                 if (theoremAppliedCount.containsKey(cur.m_name)) count = theoremAppliedCount.get(cur.m_name);
                 theoremAppliedCount.put(cur.m_name, ++count);
                 // We are using it, even if it makes no difference
-                int instThMatches = cur.applyTo(vcc, endTime);
-                PExpWithScore tMatch = cur.getNext();
+                long matchStart = System.nanoTime();
+                int instThMatches = cur.applyTo(vcc, deadline, strategy);
+                PExpWithScore tMatch = cur.getNext(vcc);
+                long matchEnd = System.nanoTime();
+                metrics.matchingNanos += matchEnd - matchStart;
+                metrics.rulesTried++;
+                metrics.bindingsEnumerated += instThMatches;
+                Metrics.TheoremStats theoremStats = metrics.getTheoremStats(cur.m_name);
+                theoremStats.tries++;
+                theoremStats.nanos += matchEnd - matchStart;
                 if (tMatch != null) {
+                    metrics.bindingsAccepted++;
+                    steps.add(new ProofCache.Step(cur.m_name, bindingsOf(cur, tMatch)));
                     String substitutionMade = "";
                     int innerctr = 0;
                     long t2 = System.currentTimeMillis();
                     substitutionMade =
                             vcc.getConjunct().addExpressionAndTrackChanges(
-                                    tMatch.m_theorem, endTime,
+                                    tMatch.m_theorem, deadline,
                                     tMatch.m_theoremDefinitionString);
+                    long insertNanos = System.nanoTime() - matchEnd;
+                    metrics.insertingNanos += insertNanos;
+                    theoremStats.nanos += insertNanos;
                     if (cur.m_noQuants) {
-                        theoremsForThisVC.remove(cur);
+                        rankedTheorems.remove(cur);
                     }
                     if (!substitutionMade.equals("")) {
                         long curTime = System.currentTimeMillis();
-                        theseResults +=
-                                "Iter:"
-                                        + iteration++
-                                        + "."
-                                        + (innerctr++)
-                                        + " Iter Time: "
-                                        + (curTime - time_at_theorem_pq_creation)
-                                        + " Search Time for this theorem: "
-                                        + (curTime - time_at_selection)
-                                        + " Elapsed Time: "
-                                        + (curTime - startTime) + "\n["
-                                        + theoremScore + "]" + cur.m_name
-                                        + "\n" + tMatch.toString() + "\t"
-                                        + substitutionMade + "\n\n";
-                        if (printVCEachStep) theseResults += vcc.toString();
+                        if (logApplications) {
+                            trace.append("Iter:").append(iteration).append(".").append(innerctr++)
+                                    .append(" Iter Time: ").append(curTime - time_at_theorem_pq_creation)
+                                    .append(" Search Time for this theorem: ").append(curTime - time_at_selection)
+                                    .append(" Elapsed Time: ").append(curTime - startTime)
+                                    .append("\n[").append(theoremScore).append("]").append(cur.m_name)
+                                    .append("\n").append(tMatch).append("\t")
+                                    .append(substitutionMade).append("\n\n");
+                        }
+                        iteration++;
+                        metrics.ruleCount++;
+                        theoremStats.instantiations++;
+                        if (logs(ProofLog.Verbosity.STEPS)) trace.append(vcc);
                         status = vcc.isProved();
                         num_Theorems_chosen++;
                         //continue chooseNewTheorem;
                     }
-                    if (substitutionMade == "") {
-                        theseResults +=
-                                "Emptied queue for "
-                                        + cur.m_name
-                                        + " with no new results ["
-                                        + (System.currentTimeMillis() - time_at_selection)
-                                        + "ms]\n\n";
+                    if (substitutionMade == "" && logTrace) {
+                        trace.append("Emptied queue for ").append(cur.m_name).append(" with no new results [")
+                                .append(System.currentTimeMillis() - time_at_selection).append("ms]\n\n");
                     }
                 }
-                else {
-                    theseResults +=
-                            "Could not find any matches for "
-                                    + cur.m_name
-                                    + "["
-                                    + (System.currentTimeMillis() - time_at_selection)
-                                    + "ms]\n\n";
+                else if (logTrace) {
+                    trace.append("Could not find any matches for ").append(cur.m_name).append("[")
+                            .append(System.currentTimeMillis() - time_at_selection).append("ms]\n\n");
                 }
             }
         }
-        m_results += theseResults + div;
+        if (logApplications) trace.append(div);
         return vcc.isProved();
 
     }
 
+    /**
+     * Builds a new closure of the {@code i}th VC, just as it stood before any theorems were applied to it. This lets
+     * benchmarks (and tests) prove the same VC over and over without going through {@link #start()}. Safe to call
+     * from any thread, as closures are only ever built (or forked) one at a time.
+     */
+    VerificationConditionCongruenceClosureImpl newClosure(int i) {
+        synchronized (m_closureLock) {
+            return closureOf(m_vcs.get(i));
+        }
+    }
+
+    /**
+     * A closure of {@code vc}: forked from the closure of its antecedents if other VCs share them (every succeedent
+     * of an assertive block gets a VC of its own, so this is common), built from scratch otherwise. The closure of
+     * the antecedents is built the first time it's needed, so with streamed VCs the first of a group, built before
+     * the others arrive, is built from scratch. Only call this holding {@link #m_closureLock}.
+     */
+    private VerificationConditionCongruenceClosureImpl closureOf(VC vc) {
+        List<PExp> key = antecedentsOf(vc);
+        VerificationConditionCongruenceClosureImpl antecedents = m_antecedentClosures.get(key);
+        if (antecedents == null && m_antecedentUses.getOrDefault(key, 0) > 1) {
+            antecedents = new VerificationConditionCongruenceClosureImpl(m_typeGraph, key, m_z, m_n);
+            m_antecedentClosures.put(key, antecedents);
+        }
+        return antecedents != null ? antecedents.fork(vc) :
+                new VerificationConditionCongruenceClosureImpl(m_typeGraph, vc, m_z, m_n);
+    }
+
+    private static List<PExp> antecedentsOf(VC vc) {
+        return new ArrayList<>(vc.getSequent().getLeftFormulas());
+    }
+
+    /** {@code e} rewritten into the operators the closures work with, just as it is on its way into one. */
+    PExp normalize(PExp e) {
+        return Utilities.replacePExp(e, m_typeGraph, m_z, m_n);
+    }
+
+    /** The VCs being proved, after preprocessing. */
+    List<VC> getVCs() {
+        return Collections.unmodifiableList(m_vcs);
+    }
+
+    List<TheoremCongruenceClosureImpl> getTheorems() {
+        return Collections.unmodifiableList(m_theorems);
+    }
+
+    /** Proves {@code vcc} with this prover's theorems and timeout, leaving out the proof cache, log and listener. */
+    VerificationConditionCongruenceClosureImpl.STATUS prove(VerificationConditionCongruenceClosureImpl vcc) {
+        return prove(vcc, ProverStrategy.DEFAULT, new ActionCanceller(), new StringBuilder(), new ArrayList<>(),
+                new Metrics(0, timeout));
+    }
+
+    private static Map<String, String> bindingsOf(TheoremCongruenceClosureImpl t, PExpWithScore match) {
+        Map<String, String> bindings = new LinkedHashMap<>();
+        String[] vars = t.getInsertQuantifiedVariables();
+        for (int i = 0; i < vars.length && i < match.m_instantiation.length; i++) {
+            bindings.put(vars[i], match.m_instantiation[i]);
+        }
+        return bindings;
+    }
+
     public boolean isCancelled() {
         return proverListener != null && proverListener.isCancelled();
     }
 
 
-    private String proofFileName() {
+    private String moduleFileBase() {
         String filePath = tr.getModuleIdentifier().getFile().getPath();
         int temp = filePath.lastIndexOf(".");
-        String tempFilePath = filePath.substring(0, temp);
-        return tempFilePath + ".proof";
+        return filePath.substring(0, temp);
     }
 
-    private void outputProofFile() throws IOException {
-        FileWriter w = new FileWriter(new File(proofFileName()));
-        w.write("Proofs for " + m_scope.getModuleIdentifier() + " generated " + new Date() + "\n\n");
-        w.write(m_results);
-        w.write("\n");
-        w.flush();
-        w.close();
+    private String proofFileName() {
+        return moduleFileBase() + ".proof";
     }
 }
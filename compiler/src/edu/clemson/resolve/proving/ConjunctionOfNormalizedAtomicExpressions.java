@@ -12,14 +12,31 @@ import java.util.*;
 public class ConjunctionOfNormalizedAtomicExpressions {
 
     private final Registry m_registry;
-    protected final Map<NormalizedAtomicExpression, NormalizedAtomicExpression> m_expSet;
-    protected long m_timeToEnd = -1;
+    private final AtomTable m_expSet;
+    // the budget of the insertion under way, if any (see addExpressionAndTrackChanges)
+    private Deadline m_deadline = Deadline.NONE;
     protected boolean m_evaluates_to_false = false;
     private int f_num = 0;
     private String m_current_justification = "";
-    protected final Map<Integer, Map<Integer, Set<NormalizedAtomicExpression>>> m_useMap;
+    private final AtomUseIndex m_useMap;
+    private final List<NormalizedAtomicExpression> m_atoms; // by atom id, null once removed
+    private int[] m_searchSymbols = new int[8];
+    private int[] m_searchPositions = new int[8];
+    // running totals for the prover's statistics (see Metrics)
+    protected long m_mergeCount = 0;
+    protected long m_useMapLookups = 0;
+    // a count of the changes theorem matches could depend on, and the count as of the last change to each class
+    // (as root of a merge, or as the operator of an atom added or rewritten); see changedSince
+    private int m_changes = 0;
+    private int[] m_changedAt = new int[64];
     protected final VerificationConditionCongruenceClosureImpl m_VC;
 
+    // the VC's trail, null for theorems. Changes to the atoms and their uses are recorded while a checkpoint is open.
+    private final UndoTrail m_trail;
+    private final UndoTrail.Undoable m_undo = this::undo;
+    private static final int UNDO_ADD_ATOM = 0, UNDO_REMOVE_ATOM = 1, UNDO_ADD_USE = 2, UNDO_REMOVE_USE = 3,
+            UNDO_REMOVE_SYMBOL = 4, UNDO_ROOT = 5, UNDO_FALSE = 6;
+
     /**
      * @param registry the Registry symbols contained in the conjunction will
      *                 reference. This class will add entries to the registry if needed.
@@ -27,9 +44,94 @@ public class ConjunctionOfNormalizedAtomicExpressions {
     public ConjunctionOfNormalizedAtomicExpressions(Registry registry,
                                                     VerificationConditionCongruenceClosureImpl vc) {
         m_registry = registry;
-        m_expSet = new HashMap<NormalizedAtomicExpression, NormalizedAtomicExpression>(2048, .5f);
-        m_useMap = new HashMap<Integer, Map<Integer, Set<NormalizedAtomicExpression>>>(2048, .5f);
+        m_useMap = new AtomUseIndex();
+        m_atoms = new ArrayList<NormalizedAtomicExpression>(2048);
+        m_expSet = new AtomTable(m_atoms, 2048);
         m_VC = vc; // null if this is a theorem
+        m_trail = vc == null ? null : vc.getUndoTrail();
+    }
+
+    /**
+     * A copy of {@code other} over {@code registry} (a copy of {@code other}'s registry) for {@code vc}, which can
+     * then be changed without affecting {@code other}.
+     */
+    protected ConjunctionOfNormalizedAtomicExpressions(ConjunctionOfNormalizedAtomicExpressions other,
+                                                       Registry registry,
+                                                       VerificationConditionCongruenceClosureImpl vc) {
+        m_registry = registry;
+        m_atoms = new ArrayList<NormalizedAtomicExpression>(Math.max(2048, other.m_atoms.size()));
+        m_expSet = new AtomTable(m_atoms, Math.max(2048, other.m_expSet.size()));
+        for (NormalizedAtomicExpression nae : other.m_atoms) {
+            NormalizedAtomicExpression copy = nae == null ? null : new NormalizedAtomicExpression(nae, registry);
+            m_atoms.add(copy);
+            if (copy != null) m_expSet.add(copy);
+        }
+        m_useMap = new AtomUseIndex(other.m_useMap);
+        m_changes = other.m_changes;
+        m_changedAt = other.m_changedAt.clone();
+        m_evaluates_to_false = other.m_evaluates_to_false;
+        f_num = other.f_num;
+        m_current_justification = other.m_current_justification;
+        m_VC = vc;
+        m_trail = vc.getUndoTrail();
+    }
+
+    private void changed(int symk) {
+        if (symk >= m_changedAt.length) {
+            m_changedAt = Arrays.copyOf(m_changedAt, Math.max(symk + 1, m_changedAt.length * 2));
+        }
+        m_changedAt[symk] = ++m_changes;
+    }
+
+    /** A mark to later ask {@link #changedSince} about. */
+    protected int changeMark() {
+        return m_changes;
+    }
+
+    /**
+     * Whether, since {@code mark}, an atom whose operator is in the class of {@code symbol} has been added or had
+     * its root rewritten, or that class took part in a merge. If not, matching atoms with that operator (or that
+     * literal) gives the same result it did at {@code mark}. Symbols not in the VC have never changed.
+     */
+    protected boolean changedSince(int mark, String symbol) {
+        Integer id = m_registry.m_symbolToIndex.get(symbol);
+        if (id == null) return false;
+        int root = m_registry.findAndCompress(id);
+        return root < m_changedAt.length && m_changedAt[root] > mark;
+    }
+
+    private boolean recording() {
+        return m_trail != null && m_trail.isRecording();
+    }
+
+    private void undo(int kind, int a, int b, Object o) {
+        NormalizedAtomicExpression nae = o instanceof NormalizedAtomicExpression ? (NormalizedAtomicExpression) o : null;
+        switch (kind) {
+            case UNDO_ADD_ATOM:
+                // the last atom added; those added after it are gone already
+                m_expSet.remove(nae);
+                m_atoms.remove(m_atoms.size() - 1);
+                break;
+            case UNDO_REMOVE_ATOM:
+                m_atoms.set(nae.getAtomId(), nae);
+                m_expSet.add(nae);
+                break;
+            case UNDO_ADD_USE:
+                m_useMap.remove(a, b, nae.getAtomId());
+                break;
+            case UNDO_REMOVE_USE:
+                m_useMap.add(a, b, nae.getAtomId());
+                break;
+            case UNDO_REMOVE_SYMBOL:
+                m_useMap.restoreSymbol(a, o);
+                break;
+            case UNDO_ROOT:
+                nae.writeToRoot(a);
+                break;
+            case UNDO_FALSE:
+                m_evaluates_to_false = false;
+                break;
+        }
     }
 
     protected int size() {
@@ -38,20 +140,38 @@ public class ConjunctionOfNormalizedAtomicExpressions {
 
     protected void clear() {
         m_expSet.clear();
+        m_useMap.clear();
+        m_atoms.clear();
     }
 
     protected Registry getRegistry() {
         return m_registry;
     }
 
+    /** The atoms of this conjunction, oldest first. */
+    protected List<NormalizedAtomicExpression> getAtoms() {
+        List<NormalizedAtomicExpression> result = new ArrayList<NormalizedAtomicExpression>(m_expSet.size());
+        for (NormalizedAtomicExpression nae : m_atoms) {
+            if (nae != null) result.add(nae);
+        }
+        return result;
+    }
+
+    /**
+     * Adds {@code expression} and closes over it within {@code deadline}. Past the deadline the merges still pending
+     * are dropped, each one either done in full or not at all, so the closure is left consistent but incomplete.
+     */
     protected String addExpressionAndTrackChanges(PExp expression,
-                                                  long timeToEnd, String justification) {
-        m_timeToEnd = timeToEnd;
-        m_timeToEnd = Long.MAX_VALUE;
+                                                  Deadline deadline, String justification) {
+        m_deadline = deadline;
         m_current_justification = justification;
         String rString = "";
-        rString += addExpression(expression);
-        m_current_justification = "";
+        try {
+            rString += addExpression(expression);
+        } finally {
+            m_deadline = Deadline.NONE;
+            m_current_justification = "";
+        }
         return rString;
     }
 
@@ -93,8 +213,9 @@ public class ConjunctionOfNormalizedAtomicExpressions {
                 ia[i] = m_registry.getIndexForSymbol(args.get(i - 1).getTopLevelOperationName());
             }
             NormalizedAtomicExpression na = new NormalizedAtomicExpression(getRegistry(), ia);
-            if (m_expSet.containsKey(na) && m_expSet.get(na).readRoot() >= 0) {
-                int r = m_expSet.get(na).readRoot();
+            NormalizedAtomicExpression found = m_expSet.get(na);
+            if (found != null && found.readRoot() >= 0) {
+                int r = found.readRoot();
                 String rs = m_registry.getSymbolForIndex(r);
                 return new PSymbol.PSymbolBuilder(rs).mathClssfctn(m_registry.getTypeByIndex(r)).build();
             }
@@ -119,7 +240,7 @@ public class ConjunctionOfNormalizedAtomicExpressions {
 
     // Top level
     protected String addExpression(PExp expression) {
-        if (m_evaluates_to_false || (m_timeToEnd > 0 && System.currentTimeMillis() > m_timeToEnd)) {
+        if (m_evaluates_to_false || m_deadline.tick()) {
             return "";
         }
         String name = expression.getTopLevelOperationName();
@@ -255,7 +376,8 @@ public class ConjunctionOfNormalizedAtomicExpressions {
      */
     private int addAtomicFormula(NormalizedAtomicExpression atomicFormula) {
         // Return root if atomic formula is present
-        if (m_expSet.containsKey(atomicFormula)) return m_expSet.get(atomicFormula).readRoot();
+        NormalizedAtomicExpression present = m_expSet.get(atomicFormula);
+        if (present != null) return present.readRoot();
         // no such formula exists
         MathClssftn typeOfFormula = m_registry.getTypeByIndex(atomicFormula.readPosition(0));
         // this is the full type and is necessarily a function type
@@ -286,8 +408,7 @@ public class ConjunctionOfNormalizedAtomicExpressions {
         int f = m_registry.getIndexForSymbol("false");
 
         String rString = "";
-        if (m_evaluates_to_false
-                || (m_timeToEnd > 0 && System.currentTimeMillis() > m_timeToEnd)) {
+        if (m_evaluates_to_false || m_deadline.tick()) {
             return rString;
         }
         a = m_registry.findAndCompress(a);
@@ -299,8 +420,7 @@ public class ConjunctionOfNormalizedAtomicExpressions {
         holdingTank.push(b);
 
         while (holdingTank != null && !holdingTank.empty()) {
-            if (m_evaluates_to_false
-                    || (m_timeToEnd > 0 && System.currentTimeMillis() > m_timeToEnd)) {
+            if (m_evaluates_to_false || m_deadline.tick()) {
                 return rString;
             }
             int opB = m_registry.findAndCompress(holdingTank.pop());
@@ -315,17 +435,20 @@ public class ConjunctionOfNormalizedAtomicExpressions {
                 opB = temp;
             }
             if ((opA == t && opB == f)) {
+                if (recording()) m_trail.record(m_undo, UNDO_FALSE, 0, 0, null);
                 m_evaluates_to_false = true;
                 return "contradiction detected " + rString;
             }
             rString +=
                     m_registry.getSymbolForIndex(opA) + "/"
                             + m_registry.getSymbolForIndex(opB) + ",";
+            m_mergeCount++;
+            changed(opA);
             Stack<Integer> mResult = mergeOnlyArgumentOperators(opA, opB);
             String bstring = m_registry.getSymbolForIndex(opB);
             if (m_VC != null && m_VC.m_goal.contains(bstring)) {
-                m_VC.m_goal.remove(bstring);
-                m_VC.m_goal.add(m_registry.getSymbolForIndex(opA));
+                m_VC.removeGoal(bstring);
+                m_VC.addGoal(m_registry.getSymbolForIndex(opA));
             }
             m_registry.substitute(opA, opB);
             if (mResult != null)
@@ -349,42 +472,45 @@ public class ConjunctionOfNormalizedAtomicExpressions {
     }
 
     private void addMapUse(int symk, NormalizedAtomicExpression nae) {
-        if (!m_useMap.containsKey(symk))
-            m_useMap.put(symk,
-                    new HashMap<Integer, Set<NormalizedAtomicExpression>>());
-        Map<Integer, Set<NormalizedAtomicExpression>> posMapRef =
-                m_useMap.get(symk);
         int[] pos = nae.getPositionsFor(symk);
+        boolean recording = recording();
         for (int i = 0; i < pos.length; ++i) {
-            int p = pos[i];
-            if (!posMapRef.containsKey(p))
-                posMapRef.put(p, new HashSet<NormalizedAtomicExpression>());
-            posMapRef.get(p).add(nae);
+            if (m_useMap.add(symk, pos[i], nae.getAtomId()) && recording)
+                m_trail.record(m_undo, UNDO_ADD_USE, symk, pos[i], nae);
         }
     }
 
     private void addExprToSet(NormalizedAtomicExpression nae) {
+        if (recording()) m_trail.record(m_undo, UNDO_ADD_ATOM, 0, 0, nae);
+        nae.setAtomId(m_atoms.size());
+        m_atoms.add(nae);
+        changed(nae.readPosition(0));
         for (int i : nae.getOpIds()) {
             addMapUse(i, nae);
         }
         int root = nae.readRoot();
         assert root >= 0 : "adding unrooted expression to conj";
         addMapUse(root, nae);
-        m_expSet.put(nae, nae);
+        m_expSet.add(nae);
     }
 
     private void removeMapUse(int symK, NormalizedAtomicExpression nae) {
-        if (m_useMap.containsKey(symK)) {
-            m_useMap.get(symK).remove(nae);
+        int[] pos = nae.getPositionsFor(symK);
+        boolean recording = recording();
+        for (int i = 0; i < pos.length; ++i) {
+            if (m_useMap.remove(symK, pos[i], nae.getAtomId()) && recording)
+                m_trail.record(m_undo, UNDO_REMOVE_USE, symK, pos[i], nae);
         }
     }
 
     private void removeExprFromSet(NormalizedAtomicExpression nae) {
+        if (recording()) m_trail.record(m_undo, UNDO_REMOVE_ATOM, 0, 0, nae);
         for (int i : nae.getOpIds()) {
             removeMapUse(i, nae);
         }
         removeMapUse(nae.readRoot(), nae);
         m_expSet.remove(nae);
+        m_atoms.set(nae.getAtomId(), null);
     }
 
     private void applyBuiltInLogic(NormalizedAtomicExpression nm,
@@ -556,47 +682,51 @@ public class ConjunctionOfNormalizedAtomicExpressions {
 
     }
 
-    protected Set<NormalizedAtomicExpression> getUses(int symk) {
-        HashSet<NormalizedAtomicExpression> rSet =
-                new HashSet<NormalizedAtomicExpression>();
-        Map<Integer, Set<NormalizedAtomicExpression>> usesByPos =
-                m_useMap.get(symk);
-        for (Map.Entry<Integer, Set<NormalizedAtomicExpression>> me : usesByPos
-                .entrySet()) {
-            rSet.addAll(me.getValue());
-        }
-        return rSet;
+    protected List<NormalizedAtomicExpression> getUses(int symk) {
+        m_useMapLookups++;
+        return atomsFor(m_useMap.getUses(symk));
     }
 
-    protected Set<NormalizedAtomicExpression> getUses(int symk, int pos) {
-        HashSet<NormalizedAtomicExpression> rSet =
-                new HashSet<NormalizedAtomicExpression>();
-        rSet.addAll(m_useMap.get(symk).get(pos));
-        return rSet;
+    protected List<NormalizedAtomicExpression> getUses(int symk, int pos) {
+        m_useMapLookups++;
+        return atomsFor(m_useMap.getUses(symk, pos));
+    }
+
+    private List<NormalizedAtomicExpression> atomsFor(int[] atomIds) {
+        List<NormalizedAtomicExpression> rList = new ArrayList<NormalizedAtomicExpression>(atomIds.length);
+        for (int id : atomIds) {
+            rList.add(m_atoms.get(id));
+        }
+        return rList;
     }
 
     // Return list of modified predicates by their position. Only these can cause new merges.
     // b is replaced by a
     protected Stack<Integer> mergeOnlyArgumentOperators(int a, int b) {
-        if (m_evaluates_to_false
-                || (m_timeToEnd > 0 && System.currentTimeMillis() > m_timeToEnd)) {
+        // no deadline check: once mergeOperators starts a merge it has to see it through, or atoms would be left
+        // referring to a symbol the registry has already merged away
+        if (m_evaluates_to_false) {
             return null;
         }
-        if (m_useMap.get(b) == null) {
+        if (!m_useMap.isUsed(b)) {
             return null;
         }
         Stack<Integer> coincidentalMergeHoldingTank = new Stack<Integer>();
         // todo: make sure m_useMap reflects root usage of b
-        Set<NormalizedAtomicExpression> bUses = getUses(b);
-        m_useMap.remove(b);
+        List<NormalizedAtomicExpression> bUses = getUses(b);
+        boolean recording = recording();
+        Object bUseLists = m_useMap.removeSymbol(b);
+        if (recording) m_trail.record(m_undo, UNDO_REMOVE_SYMBOL, b, 0, bUseLists);
         nextUse: for (NormalizedAtomicExpression nm : bUses) {
             int oldRoot = nm.readRoot();
             assert oldRoot > 0;
+            if (recording && oldRoot == b) m_trail.record(m_undo, UNDO_ROOT, oldRoot, 0, nm);
             NormalizedAtomicExpression ne = nm.replaceOperator(b, a); // also changes root if b
             if (nm == ne) {
                 // no change in atom, so only root is b
                 assert oldRoot == b;
                 addMapUse(a, nm);
+                changed(nm.readPosition(0));
                 applyBuiltInLogic(nm, coincidentalMergeHoldingTank);
 
             }
@@ -605,8 +735,9 @@ public class ConjunctionOfNormalizedAtomicExpressions {
                 assert ne.hashCode() != nm.hashCode();
                 removeExprFromSet(nm);
                 // Check for existence of the rewritten atom in conj. Add new cong if roots are different.
-                if (m_expSet.containsKey(ne)) {
-                    ne = m_expSet.get(ne);
+                NormalizedAtomicExpression present = m_expSet.get(ne);
+                if (present != null) {
+                    ne = present;
                     int neroot = ne.readRoot();
                     if (oldRoot != neroot
                             && !((oldRoot == a || oldRoot == b) && (neroot == a || neroot == b))) {
@@ -625,49 +756,81 @@ public class ConjunctionOfNormalizedAtomicExpressions {
         return coincidentalMergeHoldingTank;
     }
 
-    protected Set<NormalizedAtomicExpression> multiKeyUseMapSearch(
+    protected List<NormalizedAtomicExpression> multiKeyUseMapSearch(
             Set<String> keys) {
-
-        Set<NormalizedAtomicExpression> resultSet =
-                new HashSet<NormalizedAtomicExpression>();
-        boolean firstkey = true;
+        int[] resultIds = null;
         for (String k : keys) {
-            int rKey = m_registry.getIndexForSymbol(k);
-            if (!m_useMap.containsKey(rKey)) {
+            m_useMapLookups++;
+            int[] tResults = m_useMap.getUses(m_registry.getIndexForSymbol(k));
+            if (tResults.length == 0)
                 return null;
-            }
-            Set<NormalizedAtomicExpression> tResults = getUses(rKey);
-            if (tResults == null || tResults.isEmpty())
-                return null;
-            if (firstkey) {
-                resultSet = tResults;
-                firstkey = false;
-            }
-            else { // result is intersection
-                resultSet.retainAll(tResults);
+            // result is intersection
+            resultIds = resultIds == null ? tResults : intersect(resultIds, tResults);
+        }
+        return resultIds == null ? new ArrayList<NormalizedAtomicExpression>() : atomsFor(resultIds);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] rArray = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                rArray[n++] = a[i];
+                i++;
+                j++;
             }
         }
-        return resultSet;
+        return Arrays.copyOf(rArray, n);
     }
 
-    protected Set<java.util.Map<String, String>> getMatchesForOverrideSet(NormalizedAtomicExpression expr,
-                                                                          Set<Map<String, String>> foreignSymbolOverrideSet) {
-        Set<java.util.Map<String, String>> rSet = new HashSet<Map<String, String>>();
-        for (Map<String, String> fs_m : foreignSymbolOverrideSet) {
-            Set<java.util.Map<String, String>> results = getBindingsForSearchExpr(expr, fs_m);
-            if (results != null && results.size() != 0)
-                rSet.addAll(results);
+    /**
+     * Extends each of {@code bindings} in every way {@code expr}, an atom from a theorem's match conjunction, can be
+     * found in this conjunction. {@code slotForSymbol} maps the theorem's symbol ids to binding slots (-1 for
+     * literals) and {@code slotTypes} holds the classification each slot has in the theorem.
+     */
+    protected BindingSet getMatchesForOverrideSet(NormalizedAtomicExpression expr, int[] slotForSymbol,
+                                                  MathClssftn[] slotTypes, BindingSet bindings,
+                                                  Deadline deadline) {
+        BindingSet rSet = new BindingSet(bindings.size());
+        Registry searchReg = expr.getRegistry();
+        int[] slots = expr.bindingSlots(slotForSymbol);
+        // literals don't depend on the binding, so look them up once
+        int[] literals = new int[slots.length];
+        for (int i = 0; i < slots.length; ++i) {
+            if (slots[i] >= 0) continue;
+            int thId = (i < slots.length - 1) ? expr.readPosition(i) : expr.readRoot();
+            String k = searchReg.getSymbolForIndex(thId);
+            if (!m_registry.m_symbolToIndex.containsKey(k)) return rSet;
+            literals[i] = m_registry.getIndexForSymbol(k);
+        }
+        boolean isCommutOp = searchReg.isCommutative(expr.readPosition(0));
+        for (int b = 0; b < bindings.size() && !deadline.tick(); ++b) {
+            getBindingsForSearchExpr(slots, literals, isCommutOp, slotTypes, bindings.get(b), rSet);
         }
         return rSet;
     }
 
-    protected Set<Map<String, String>> getBindingsForSearchExpr(NormalizedAtomicExpression expr,
-                                                                Map<String, String> foreignSymbolOverride) {
-        int[] searchKeys = expr.rootedLiterals(foreignSymbolOverride, m_registry);
-        if (searchKeys == null) return null;
-        String[] unMappedWildCards = expr.unMappedWildcards(foreignSymbolOverride);
-        Set<Map<String, String>> rSet;
-        boolean isCommutOp = expr.getRegistry().isCommutative(expr.readPosition(0));
+    private void getBindingsForSearchExpr(int[] slots, int[] literals, boolean isCommutOp, MathClssftn[] slotTypes,
+                                          int[] binding, BindingSet rSet) {
+        int[] searchKeys = new int[slots.length];
+        int[] unMappedWildCards = new int[slots.length];
+        for (int i = 0; i < slots.length; ++i) {
+            int slot = slots[i];
+            if (slot < 0) {
+                searchKeys[i] = literals[i];
+                unMappedWildCards[i] = -1;
+            }
+            else if (binding[slot] < 0) {
+                searchKeys[i] = -1;
+                unMappedWildCards[i] = slot;
+            }
+            else {
+                searchKeys[i] = m_registry.findAndCompress(binding[slot]);
+                unMappedWildCards[i] = -1;
+            }
+        }
         // only supporting arity 2 commutative search
         // do additional search with swapped args if only one arg is blank
         // if neither is blank, do search with ordered args instead
@@ -678,91 +841,62 @@ public class ConjunctionOfNormalizedAtomicExpressions {
                     int t = searchKeys[1];
                     searchKeys[1] = searchKeys[2];
                     searchKeys[2] = t;
-                    return computeBindings(
-                            getExprsMatchingAtPosition(searchKeys),
-                            foreignSymbolOverride, unMappedWildCards, expr.getRegistry());
                 }
             }
             else {
                 // only one blank. 2 searches
-                rSet =
-                        computeBindings(getExprsMatchingAtPosition(searchKeys),
-                                foreignSymbolOverride, unMappedWildCards, expr.getRegistry());
+                computeBindings(getExprsMatchingAtPosition(searchKeys), binding, unMappedWildCards, slotTypes, rSet);
                 int t = searchKeys[1];
-                String s = unMappedWildCards[1];
+                int s = unMappedWildCards[1];
                 searchKeys[1] = searchKeys[2];
                 unMappedWildCards[1] = unMappedWildCards[2];
                 searchKeys[2] = t;
                 unMappedWildCards[2] = s;
-                rSet.addAll(computeBindings(
-                        getExprsMatchingAtPosition(searchKeys),
-                        foreignSymbolOverride, unMappedWildCards, expr
-                                .getRegistry()));
-                return rSet;
             }
         }
-        return computeBindings(getExprsMatchingAtPosition(searchKeys),
-                foreignSymbolOverride, unMappedWildCards, expr.getRegistry());
+        computeBindings(getExprsMatchingAtPosition(searchKeys), binding, unMappedWildCards, slotTypes, rSet);
     }
 
-    private Set<Map<String, String>> computeBindings(
-            Set<NormalizedAtomicExpression> filteredSet,
-            Map<String, String> baseMap, String[] unmappedWildcards,
-            Registry searchReg) {
-
-        Set<Map<String, String>> rSet =
-                new HashSet<Map<String, String>>(filteredSet.size(), .5f);
-        next: for (NormalizedAtomicExpression e : filteredSet) {
-            Map<String, String> bmap = new HashMap<String, String>(baseMap);
+    private void computeBindings(int matches, int[] baseBinding,
+                                 int[] unmappedWildcards, MathClssftn[] slotTypes, BindingSet rSet) {
+        int[] matchIds = m_useMap.result();
+        next: for (int m = 0; m < matches; ++m) {
+            NormalizedAtomicExpression e = m_atoms.get(matchIds[m]);
+            int[] binding = baseBinding.clone();
             for (int i = 0; i < unmappedWildcards.length; ++i) {
-                String wc = unmappedWildcards[i];
-                String ac =
-                        (i < unmappedWildcards.length - 1 ? e.readSymbol(i)
-                                : m_registry.getSymbolForIndex(e.readRoot()));
-                if (wc.equals("")) continue;
-                if (!bmap.get(wc).equals("") && !bmap.get(wc).equals(ac)) continue next; // this clause ensures usage of same symbol where required.
-                MathClssftn wildType = searchReg.getTypeByIndex(searchReg.getIndexForSymbol(wc));
-                MathClssftn localType =
-                        m_registry.getTypeByIndex(m_registry
-                                .getIndexForSymbol(ac));
-                if (!m_registry.isSubtype(localType, wildType))
+                int wc = unmappedWildcards[i];
+                if (wc < 0) continue;
+                int ac = m_registry.findAndCompress(
+                        (i < unmappedWildcards.length - 1) ? e.readPosition(i) : e.readRoot());
+                if (binding[wc] >= 0 && binding[wc] != ac) continue next; // this clause ensures usage of same symbol where required.
+                if (!m_registry.isSubtype(m_registry.getTypeByIndex(ac), slotTypes[wc]))
                     continue next;
-                bmap.put(wc, ac);
+                binding[wc] = ac;
             }
-            rSet.add(bmap);
+            rSet.add(binding);
         }
-        return rSet;
     }
 
-    private Set<NormalizedAtomicExpression> getExprsMatchingAtPosition(
-            int[] searchKey) {
-        HashSet<NormalizedAtomicExpression> rSet =
-                new HashSet<NormalizedAtomicExpression>();
+    // atoms matching searchKey, where each non negative key must be used at its position (the last being the
+    // root). Their ids are left at the front of m_useMap.result().
+    private int getExprsMatchingAtPosition(int[] searchKey) {
+        // a blank operator never matched anything, keep it that way
+        if (searchKey[0] < 0)
+            return 0;
+        if (m_searchSymbols.length < searchKey.length) {
+            m_searchSymbols = new int[searchKey.length];
+            m_searchPositions = new int[searchKey.length];
+        }
+        int n = 0;
         for (int p = 0; p < searchKey.length; ++p) {
             int k = searchKey[p];
             if (k < 0)
                 continue;
-            if (!m_useMap.containsKey(k))
-                return rSet; // k is not used in the conjunction, but is still in Registry. Can happen with =, not, etc.
-            int x = (p < searchKey.length - 1) ? p : -1;
-            if (!m_useMap.get(k).containsKey(x)) // k not used in position p anywhere
-                return rSet;
+            m_searchSymbols[n] = k;
+            m_searchPositions[n++] = (p < searchKey.length - 1) ? p : -1;
         }
-
-        for (int p = 0; p < searchKey.length; ++p) {
-            int k = searchKey[p];
-            if (k < 0)
-                continue;
-            if (p == 0)
-                rSet.addAll(m_useMap.get(k).get(p));
-            else if (p == searchKey.length - 1)//last element which is root class
-                rSet.retainAll(getUses(k, -1));
-            else
-                rSet.retainAll(getUses(k, p));
-
-        }
-        return rSet;
-
+        m_useMapLookups++;
+        return m_useMap.intersect(m_searchSymbols, m_searchPositions, n);
     }
 
     @Override
@@ -775,7 +909,7 @@ public class ConjunctionOfNormalizedAtomicExpressions {
             r += m_registry.m_typeToSetOfOperators.get(key) + "\n\n";
         }
 
-        for (NormalizedAtomicExpression cur : m_expSet.keySet()) {
+        for (NormalizedAtomicExpression cur : getAtoms()) {
             r += cur.toString() + "\n";
         }
         return r;
@@ -0,0 +1,80 @@
+/**
+ * Deadline.java
+ * ---------------------------------
+ * Copyright (c) 2016
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.resolve.proving;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The time budget of one proof attempt, shared by every loop that could run long inside it: the prover's rounds,
+ * the prioritizer's rescoring, binding enumeration and merging. Loops call {@link #tick()} once per (small, bounded)
+ * unit of work, which only reads the clock every {@value #TICKS_PER_CHECK} calls, so checking is cheap enough for
+ * inner loops while a loop can't run on for more than a few milliseconds past the budget. Once expired (or
+ * cancelled) a deadline stays expired.
+ * <p>
+ * A deadline is used by the one thread working on its proof attempt and is not thread safe.</p>
+ */
+public final class Deadline {
+
+    /** A deadline that never expires. */
+    public static final Deadline NONE = new Deadline(false, 0, null);
+
+    private static final int TICKS_PER_CHECK = 64;
+
+    private final boolean m_timed; // false if only cancelling ends it
+    private final long m_endNanos;
+    @Nullable
+    private final ActionCanceller m_canceller;
+    private int m_ticks = 0;
+    private boolean m_expired = false;
+
+    private Deadline(boolean timed, long endNanos, @Nullable ActionCanceller canceller) {
+        m_timed = timed;
+        m_endNanos = endNanos;
+        m_canceller = canceller;
+    }
+
+    /** A deadline {@code budgetMillis} from now, which also expires if {@code canceller} is cancelled. */
+    public static Deadline after(long budgetMillis, @Nullable ActionCanceller canceller) {
+        boolean timed = budgetMillis < Long.MAX_VALUE / 2000000; // longer than that is as good as forever
+        return new Deadline(timed, timed ? System.nanoTime() + budgetMillis * 1000000 : 0, canceller);
+    }
+
+    /** A deadline at {@code endTimeMillis} (as in {@link System#currentTimeMillis()}). */
+    public static Deadline until(long endTimeMillis) {
+        return endTimeMillis == Long.MAX_VALUE ? NONE :
+                after(Math.max(0, endTimeMillis - System.currentTimeMillis()), null);
+    }
+
+    /** Whether the budget is used up, reading the clock to find out. */
+    public boolean expired() {
+        if (!m_expired && this != NONE) {
+            m_expired = (m_timed && System.nanoTime() - m_endNanos >= 0)
+                    || (m_canceller != null && !m_canceller.amRunning());
+        }
+        return m_expired;
+    }
+
+    /** Whether the budget is used up, reading the clock only every so many calls. */
+    public boolean tick() {
+        if (this == NONE) return false;
+        if (++m_ticks < TICKS_PER_CHECK) return m_expired;
+        m_ticks = 0;
+        return expired();
+    }
+
+    /** Milliseconds left, 0 once expired. */
+    public long remainingMillis() {
+        if (expired()) return 0;
+        return m_timed ? Math.max(0, (m_endNanos - System.nanoTime()) / 1000000) : Long.MAX_VALUE;
+    }
+}
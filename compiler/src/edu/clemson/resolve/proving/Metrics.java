@@ -1,6 +1,8 @@
 package edu.clemson.resolve.proving;
 
 import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Created by daniel on 7/31/16.
@@ -12,6 +14,25 @@ public class Metrics {
     public long ruleCount, rulesTried;
     public ProverListener progressListener;
 
+    // what the congruence class prover did for one vc: ruleCount counts the theorem instantiations that changed it,
+    // rulesTried the theorems tried
+    public long merges, useMapLookups;
+    public long bindingsEnumerated, bindingsAccepted;
+    public long prioritizerRefreshes;
+    // theorems TheoremRelevance found could never be tried on the vc, so were left out of its proof
+    public long theoremsPruned;
+    public long registrySize;
+    // the ProverStrategy that came up with the result, when the prover ran one
+    public String strategy;
+    // time spent ranking theorems, searching for their bindings and inserting the instantiations, in nanoseconds
+    public long rankingNanos, matchingNanos, insertingNanos;
+    public final Map<String, TheoremStats> theoremStats = new LinkedHashMap<>();
+
+    /** How much one theorem was used; its time covers both searching for bindings and inserting instantiations. */
+    public static class TheoremStats {
+        public long tries, instantiations, nanos;
+    }
+
     public ActionCanceller actionCanceller;
 
     private long myProofDuration, myTimeout;
@@ -30,9 +51,36 @@ public class Metrics {
         numProofsConsidered = numProofsConsidered.add(BigInteger.ONE);
     }
 
+    public TheoremStats getTheoremStats(String theoremName) {
+        TheoremStats s = theoremStats.get(theoremName);
+        if (s == null) {
+            s = new TheoremStats();
+            theoremStats.put(theoremName, s);
+        }
+        return s;
+    }
+
     public void accumulate(Metrics m) {
         numProofsConsidered = numProofsConsidered.add(m.numProofsConsidered);
         numTimesBacktracked = numTimesBacktracked.add(m.numTimesBacktracked);
+        ruleCount += m.ruleCount;
+        rulesTried += m.rulesTried;
+        merges += m.merges;
+        useMapLookups += m.useMapLookups;
+        bindingsEnumerated += m.bindingsEnumerated;
+        bindingsAccepted += m.bindingsAccepted;
+        prioritizerRefreshes += m.prioritizerRefreshes;
+        theoremsPruned += m.theoremsPruned;
+        registrySize += m.registrySize;
+        rankingNanos += m.rankingNanos;
+        matchingNanos += m.matchingNanos;
+        insertingNanos += m.insertingNanos;
+        for (Map.Entry<String, TheoremStats> e : m.theoremStats.entrySet()) {
+            TheoremStats s = getTheoremStats(e.getKey());
+            s.tries += e.getValue().tries;
+            s.instantiations += e.getValue().instantiations;
+            s.nanos += e.getValue().nanos;
+        }
     }
 
     public long getTimeout() {
@@ -43,11 +91,27 @@ public class Metrics {
         return myProofDuration;
     }
 
+    public void setProofDuration(long duration) {
+        myProofDuration = duration;
+    }
+
     public void clear() {
         numTimesBacktracked = BigInteger.ZERO;
         numProofsConsidered = BigInteger.ZERO;
         ruleCount = 0;
         rulesTried = 0;
+        merges = 0;
+        useMapLookups = 0;
+        bindingsEnumerated = 0;
+        bindingsAccepted = 0;
+        prioritizerRefreshes = 0;
+        theoremsPruned = 0;
+        registrySize = 0;
+        strategy = null;
+        rankingNanos = 0;
+        matchingNanos = 0;
+        insertingNanos = 0;
+        theoremStats.clear();
         myProofDuration = 0;
         myTimeout = 0;
     }
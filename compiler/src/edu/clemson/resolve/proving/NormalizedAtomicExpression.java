@@ -21,13 +21,14 @@ import java.util.*;
  */
 public class NormalizedAtomicExpression {
 
+    // nothing but the ids and the registry to read them with: the multisets and id sets asked for below are cheap to
+    // work out from these few ints, and atoms are many
     private final int[] m_expression;
+    private final int m_hash;
     private int m_classConstant;
+    private int m_atomId = -1; // assigned by the conjunction holding this
     private int arity; // number of arguments
     private final Registry m_registry;
-    private Map<String, Integer> m_opMmap;
-    private Set<Integer> m_opIdSet;
-    private Map<String, Integer> m_argMmap;
 
     public NormalizedAtomicExpression(Registry registry, int[] intArray) {
         m_registry = registry;
@@ -48,9 +49,20 @@ public class NormalizedAtomicExpression {
             }
             m_expression = ne;
         }
+        m_hash = Arrays.hashCode(m_expression);
         m_classConstant = -1;
     }
 
+    /** A copy of {@code other} (atom id and root included) over {@code registry}, a copy of its registry. */
+    protected NormalizedAtomicExpression(NormalizedAtomicExpression other, Registry registry) {
+        m_registry = registry;
+        m_expression = other.m_expression; // never changed once built
+        m_hash = other.m_hash;
+        m_classConstant = other.m_classConstant;
+        m_atomId = other.m_atomId;
+        arity = other.arity;
+    }
+
     protected int getArity() {
         return arity;
     }
@@ -59,57 +71,38 @@ public class NormalizedAtomicExpression {
         return m_registry;
     }
 
-    protected Set<Integer> getOpIds() {
-        if (m_opIdSet != null) {
-            return m_opIdSet;
+    /** The distinct ids used anywhere in this atom, root included. */
+    protected int[] getOpIds() {
+        int[] ids = new int[m_expression.length + 1];
+        int n = 0;
+        next: for (int i = 0; i <= m_expression.length; ++i) {
+            int id = i < m_expression.length ? m_expression[i] : m_classConstant;
+            for (int j = 0; j < n; ++j) {
+                if (ids[j] == id) continue next;
+            }
+            ids[n++] = id;
         }
-        m_opIdSet = new HashSet<Integer>();
-        for (int i = 0; i < m_expression.length; ++i) {
-            m_opIdSet.add(m_expression[i]);
+        return n == ids.length ? ids : Arrays.copyOf(ids, n);
+    }
+
+    private boolean uses(int id) {
+        if (m_classConstant == id) return true;
+        for (int e : m_expression) {
+            if (e == id) return true;
         }
-        int r = readRoot();
-        m_opIdSet.add(r);
-        return m_opIdSet;
+        return false;
     }
 
     protected Map<String, Integer> getOperatorsAsStrings(boolean justArguments) {
-        if (justArguments && m_argMmap != null) {
-            return new HashMap<String, Integer>(m_argMmap);
-        }
-        if (!justArguments && m_opMmap != null) {
-            return new HashMap<String, Integer>(m_opMmap);
-        }
-        m_argMmap = new HashMap<String, Integer>();
+        Map<String, Integer> result = new HashMap<String, Integer>();
         for (int i = 1; i < m_expression.length; ++i) {
-            String curOp = readSymbol(i);
-            if (m_argMmap.containsKey(curOp)) {
-                m_argMmap.put(curOp, m_argMmap.get(curOp) + 1);
-            }
-            else
-                m_argMmap.put(curOp, 1);
-        }
-        m_opMmap = new HashMap<String, Integer>(m_argMmap);
-        String fSym = readSymbol(0);
-        String rSym = m_registry.getSymbolForIndex(readRoot());
-        if (m_opMmap.containsKey(fSym)) {
-            m_opMmap.put(fSym, m_opMmap.get(fSym) + 1);
-        }
-        else {
-            m_opMmap.put(fSym, 1);
-        }
-        if (m_opMmap.containsKey(rSym)) {
-            m_opMmap.put(rSym, m_opMmap.get(rSym) + 1);
-        }
-        else {
-            m_opMmap.put(rSym, 1);
+            result.merge(readSymbol(i), 1, Integer::sum);
         }
-        if (justArguments) {
-            return new HashMap<String, Integer>(m_argMmap);
+        if (!justArguments) {
+            result.merge(readSymbol(0), 1, Integer::sum);
+            result.merge(m_registry.getSymbolForIndex(readRoot()), 1, Integer::sum);
         }
-        else {
-            return new HashMap<String, Integer>(m_opMmap);
-        }
-
+        return result;
     }
 
     public int readPosition(int position) {
@@ -135,52 +128,22 @@ public class NormalizedAtomicExpression {
         return Arrays.copyOf(rArray, count);
     }
 
-    // -1 meaning wildcard.
-    public int[] rootedLiterals(Map<String, String> overMap, Registry vc_Reg) {
+    // the binding slot (per slotForSymbol) of each position, the last being the root. -1 meaning literal.
+    protected int[] bindingSlots(int[] slotForSymbol) {
         int[] rArray = new int[m_expression.length + 1];
         for (int i = 0; i <= m_expression.length; ++i) {
             int expI =
                     (i < m_expression.length) ? m_expression[i]
                             : m_classConstant;
-            String k = m_registry.getSymbolForIndex(expI);
-            String v = (overMap.containsKey(k)) ? overMap.get(k) : k;
-            if (v.equals("")) {
-                rArray[i] = -1;
-            }
-            else if (!vc_Reg.m_symbolToIndex.containsKey(v)) {
-                return null;
-            }
-            else {
-                rArray[i] = vc_Reg.getIndexForSymbol(v);
-            }
-        }
-        return rArray;
-    }
-
-    // "" meaning mapped.
-    public String[] unMappedWildcards(Map<String, String> overMap) {
-        String[] rArray = new String[m_expression.length + 1];
-        for (int i = 0; i < m_expression.length; ++i) {
-            String ks = m_registry.getSymbolForIndex(m_expression[i]);
-            if (overMap.containsKey(ks) && overMap.get(ks).equals("")) {
-                rArray[i] = ks;
-            }
-            else
-                rArray[i] = "";
-        }
-        String ks = m_registry.getSymbolForIndex(m_classConstant);
-        if (overMap.containsKey(ks) && overMap.get(ks).equals("")) {
-            rArray[m_expression.length] = ks;
+            rArray[i] = slotForSymbol[expI];
         }
-        else
-            rArray[m_expression.length] = "";
         return rArray;
     }
 
     public NormalizedAtomicExpression replaceOperator(int orig, int repl) {
         if (orig == repl)
             return this;
-        if (!getOpIds().contains(orig)) {
+        if (!uses(orig)) {
             return this;
         }
         int[] na = new int[m_expression.length];
@@ -207,8 +170,6 @@ public class NormalizedAtomicExpression {
     }
 
     protected void writeToRoot(int root) {
-        m_opMmap = null;
-        m_opIdSet = null;
         m_classConstant = root;
     }
 
@@ -216,6 +177,14 @@ public class NormalizedAtomicExpression {
         return m_classConstant;
     }
 
+    protected int getAtomId() {
+        return m_atomId;
+    }
+
+    protected void setAtomId(int atomId) {
+        m_atomId = atomId;
+    }
+
     public NormalizedAtomicExpression rootOps() {
         int[] roots = new int[arity + 1];
         for (int i = 0; i < roots.length; ++i) {
@@ -270,13 +239,13 @@ public class NormalizedAtomicExpression {
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(m_expression);
+        return m_hash;
     }
 
     public boolean equals(Object o) {
         if (o instanceof NormalizedAtomicExpression) {
             NormalizedAtomicExpression other = (NormalizedAtomicExpression) o;
-            if (Arrays.equals(m_expression, other.m_expression)
+            if (m_hash == other.m_hash && Arrays.equals(m_expression, other.m_expression)
                     && other.m_registry == m_registry)
                 return true;
         }
@@ -12,6 +12,8 @@ public class PExpWithScore implements Comparable<PExpWithScore> {
     protected Integer m_score = 1;
     protected Set<String> m_theorem_symbols;
     protected Map<String, String> m_bMap;
+    // the vc symbols bound to the theorem's insert quantified variables, in order; see ProofCache
+    protected String[] m_instantiation;
 
     public PExpWithScore(PExp theorem, Map<String, String> bMap,
                          String justification) {
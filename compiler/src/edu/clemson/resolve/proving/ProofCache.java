@@ -0,0 +1,230 @@
+/**
+ * ProofCache.java
+ * ---------------------------------
+ * Copyright (c) 2016
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.resolve.proving;
+
+import edu.clemson.resolve.proving.absyn.PApply;
+import edu.clemson.resolve.proving.absyn.PExp;
+import edu.clemson.resolve.proving.absyn.PSymbol;
+import edu.clemson.resolve.semantics.Quantification;
+import edu.clemson.resolve.vcgen.VC;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Proof results from earlier runs of the {@link CongruenceClassProver}, stored in a {@code .proofcache} file next to
+ * the module's {@code .proof} file.
+ * <p>
+ * Results are keyed by a fingerprint of the VC's sequent, with antecedents sorted and quantified variables renamed
+ * in order of appearance, combined with a fingerprint of the theorems in scope and the prover timeout. So a VC
+ * only hits when the prover would be facing exactly the same problem. Along with the final status, each entry
+ * records the theorem instantiations made on the way to it, which is enough to replay a proof rather than trust
+ * it.</p>
+ * <p>
+ * The file is plain UTF-8 text: a {@code key\tSTATUS} line per VC, followed by one tab indented
+ * {@code theorem\tvar\tvalue...} line per instantiation.</p>
+ */
+public class ProofCache {
+
+    public enum Mode {
+        /** Report cached results as they are. */
+        TRUST,
+        /** Check cached proofs by replaying their theorem instantiations; unproved results are still trusted. */
+        REPLAY
+    }
+
+    /** One theorem instantiation: the theorem applied and the VC symbol bound to each of its quantified variables. */
+    public static class Step {
+        public final String theoremName;
+        public final Map<String, String> bindings;
+
+        public Step(@NotNull String theoremName, @NotNull Map<String, String> bindings) {
+            this.theoremName = theoremName;
+            this.bindings = bindings;
+        }
+    }
+
+    public static class Entry {
+        public final VerificationConditionCongruenceClosureImpl.STATUS status;
+        public final List<Step> steps;
+
+        public Entry(@NotNull VerificationConditionCongruenceClosureImpl.STATUS status, @NotNull List<Step> steps) {
+            this.status = status;
+            this.steps = steps;
+        }
+    }
+
+    private static final String HEADER = "# RESOLVE proof cache v1";
+
+    private final File m_file;
+    private final Mode m_mode;
+    private final Map<String, Entry> m_entries = new LinkedHashMap<>();
+    private final Map<String, Entry> m_updated = new LinkedHashMap<>();
+
+    public ProofCache(@NotNull File file, @NotNull Mode mode) {
+        m_file = file;
+        m_mode = mode;
+        load();
+    }
+
+    @NotNull
+    public Mode getMode() {
+        return m_mode;
+    }
+
+    @Nullable
+    public Entry get(@NotNull String key) {
+        return m_entries.get(key);
+    }
+
+    /** Records the result for {@code key}; only the results recorded during this run are written back. */
+    public void put(@NotNull String key, @NotNull Entry entry) {
+        m_updated.put(key, entry);
+    }
+
+    private void load() {
+        if (!m_file.isFile()) return;
+        try (BufferedReader r = new BufferedReader(
+                new InputStreamReader(new FileInputStream(m_file), StandardCharsets.UTF_8))) {
+            String line = r.readLine();
+            if (!HEADER.equals(line)) return; // written by some other version, just start over
+            List<Step> steps = null;
+            while ((line = r.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                String[] fields = line.split("\t", -1);
+                if (line.charAt(0) == '\t') {
+                    if (steps == null || fields.length % 2 != 0) continue;
+                    Map<String, String> bindings = new LinkedHashMap<>();
+                    for (int i = 2; i < fields.length; i += 2) {
+                        bindings.put(fields[i], fields[i + 1]);
+                    }
+                    steps.add(new Step(fields[1], bindings));
+                }
+                else if (fields.length == 2) {
+                    steps = new ArrayList<>();
+                    m_entries.put(fields[0], new Entry(
+                            VerificationConditionCongruenceClosureImpl.STATUS.valueOf(fields[1]), steps));
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // a damaged cache only costs us the time to reprove
+            m_entries.clear();
+        }
+    }
+
+    public void save() throws IOException {
+        try (Writer w = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(m_file), StandardCharsets.UTF_8))) {
+            w.write(HEADER + "\n");
+            for (Map.Entry<String, Entry> e : m_updated.entrySet()) {
+                w.write(e.getKey() + "\t" + e.getValue().status.name() + "\n");
+                for (Step s : e.getValue().steps) {
+                    w.write("\t" + s.theoremName);
+                    for (Map.Entry<String, String> b : s.bindings.entrySet()) {
+                        w.write("\t" + b.getKey() + "\t" + b.getValue());
+                    }
+                    w.write("\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Fingerprints the prover configuration a result depends on: every theorem in scope (in order, since it affects
+     * ranking) and the timeout.
+     */
+    @NotNull
+    public static String fingerprintTheorems(@NotNull List<TheoremCongruenceClosureImpl> theorems, long timeout) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("timeout ").append(timeout).append('\n');
+        for (TheoremCongruenceClosureImpl t : theorems) {
+            sb.append(t.m_name).append('\t').append(t.m_theoremString).append('\n');
+        }
+        return sha256(sb.toString());
+    }
+
+    @NotNull
+    public static String fingerprint(@NotNull VC vc, @NotNull String theoremFingerprint) {
+        // order the antecedents by their shape, which doesn't depend on what the quantified variables are called, so
+        // the renames below come out the same whatever order (and names) the antecedents arrived in
+        List<Map.Entry<String, PExp>> shapes = new ArrayList<>();
+        for (PExp e : vc.getSequent().getLeftFormulas()) {
+            shapes.add(new AbstractMap.SimpleEntry<>(canonical(e, null, new StringBuilder()).toString(), e));
+        }
+        Collections.sort(shapes, Map.Entry.<String, PExp>comparingByKey());
+        Map<String, String> renames = new HashMap<>();
+        List<String> left = new ArrayList<>();
+        for (Map.Entry<String, PExp> e : shapes) {
+            left.add(canonical(e.getValue(), renames, new StringBuilder()).toString());
+        }
+        Collections.sort(left);
+        StringBuilder sb = new StringBuilder(theoremFingerprint).append('\n');
+        for (String l : left) {
+            sb.append(l).append('\n');
+        }
+        sb.append("|-\n");
+        for (PExp e : vc.getSequent().getRightFormulas()) {
+            canonical(e, renames, sb).append('\n');
+        }
+        return sha256(sb.toString());
+    }
+
+    /**
+     * Appends {@code e} to {@code sb}, its quantified variables renamed {@code ?0}, {@code ?1}... in order of
+     * appearance, or all just {@code ?} if {@code renames} is null.
+     */
+    private static StringBuilder canonical(PExp e, @Nullable Map<String, String> renames, StringBuilder sb) {
+        if (e instanceof PSymbol) {
+            String name = e.getTopLevelOperationName();
+            if (e.getQuantification() != Quantification.NONE) {
+                String canonicalName = renames == null ? "?" : renames.get(name);
+                if (canonicalName == null) {
+                    canonicalName = "?" + renames.size();
+                    renames.put(name, canonicalName);
+                }
+                name = canonicalName;
+            }
+            sb.append(name).append(':').append(e.getMathClssftn());
+        }
+        else if (e instanceof PApply) {
+            sb.append('(');
+            for (PExp sub : e.getSubExpressions()) {
+                canonical(sub, renames, sb).append(' ');
+            }
+            sb.append("):").append(e.getMathClssftn());
+        }
+        else {
+            // binders and the like are rare enough in VCs that they are just compared verbatim
+            sb.append(e.getClass().getSimpleName()).append('[').append(e).append("]:").append(e.getMathClssftn());
+        }
+        return sb;
+    }
+
+    static String sha256(String s) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required of every java platform", e);
+        }
+    }
+}
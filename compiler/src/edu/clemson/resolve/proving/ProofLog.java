@@ -0,0 +1,72 @@
+/**
+ * ProofLog.java
+ * ---------------------------------
+ * Copyright (c) 2016
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.resolve.proving;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * The trace the {@link CongruenceClassProver} leaves in a module's {@code .proof} file, echoed to standard out.
+ * <p>
+ * Each VC's trace is written out (and flushed) as soon as its result is reported, so only the trace of the VC at
+ * hand is ever held in memory and a run that is cancelled, or dies, still leaves behind the traces of every VC it
+ * finished. How much of each proof the prover puts into its traces is given by a {@link Verbosity}.</p>
+ */
+class ProofLog implements Closeable {
+
+    enum Verbosity {
+        /** Only the summary of results. */
+        SUMMARY,
+        /** Plus the theorem applications that changed each VC. */
+        APPLICATIONS,
+        /** Plus each VC as it was before any theorems were applied, and the theorems that led nowhere. */
+        TRACE,
+        /** Plus the whole VC after each theorem application. */
+        STEPS
+    }
+
+    static final Verbosity DEFAULT_VERBOSITY = Verbosity.TRACE;
+
+    private final Writer m_out;
+    @Nullable
+    private final PrintStream m_echo;
+
+    ProofLog(@NotNull File file, @NotNull String header, @Nullable PrintStream echo) throws IOException {
+        m_out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+        m_echo = echo;
+        m_out.write(header + " generated " + new Date() + "\n\n");
+    }
+
+    void write(@NotNull CharSequence s) throws IOException {
+        m_out.append(s);
+        if (m_echo != null) m_echo.print(s);
+    }
+
+    void flush() throws IOException {
+        m_out.flush();
+        if (m_echo != null) m_echo.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            m_out.close();
+        }
+    }
+}
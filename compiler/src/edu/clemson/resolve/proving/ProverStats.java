@@ -0,0 +1,137 @@
+/**
+ * ProverStats.java
+ * ---------------------------------
+ * Copyright (c) 2016
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.resolve.proving;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link Metrics} of every VC of a module, written out for the {@code -proverStats} option. A file whose name
+ * ends in {@code .csv} gets one row per VC; anything else gets JSON, which also breaks each VC down by theorem and
+ * totals the whole module.
+ */
+class ProverStats {
+
+    private static final String[] COLUMNS = {"vc", "status", "strategy", "timeMs", "merges", "useMapLookups", "theoremsTried",
+            "bindingsEnumerated", "bindingsAccepted", "instantiations", "theoremsPruned", "prioritizerRefreshes",
+            "registrySize", "rankingMs", "matchingMs", "insertingMs"};
+
+    private final String m_module;
+    private final long m_timeout;
+    private final List<String> m_names = new ArrayList<>();
+    private final List<String> m_statuses = new ArrayList<>();
+    private final List<Metrics> m_metrics = new ArrayList<>();
+
+    ProverStats(@NotNull String module, long timeout) {
+        m_module = module;
+        m_timeout = timeout;
+    }
+
+    void add(@NotNull String vcName, @NotNull String status, @NotNull Metrics m) {
+        m_names.add(vcName);
+        m_statuses.add(status);
+        m_metrics.add(m);
+    }
+
+    void save(@NotNull File file) throws IOException {
+        try (Writer w = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            if (file.getName().toLowerCase().endsWith(".csv")) writeCsv(w);
+            else writeJson(w);
+        }
+    }
+
+    private void writeCsv(Writer w) throws IOException {
+        w.write(String.join(",", COLUMNS) + "\n");
+        for (int i = 0; i < m_metrics.size(); i++) {
+            Object[] values = values(m_names.get(i), m_statuses.get(i), m_metrics.get(i));
+            for (int j = 0; j < values.length; j++) {
+                if (j > 0) w.write(",");
+                if (values[j] == null) continue;
+                w.write(values[j] instanceof String ? csvQuote((String) values[j]) : String.valueOf(values[j]));
+            }
+            w.write("\n");
+        }
+    }
+
+    private void writeJson(Writer w) throws IOException {
+        Metrics total = new Metrics(0, m_timeout);
+        long totalTime = 0;
+        w.write("{\n  \"module\": " + jsonQuote(m_module) + ",\n  \"timeoutMs\": " + m_timeout + ",\n  \"vcs\": [");
+        for (int i = 0; i < m_metrics.size(); i++) {
+            Metrics m = m_metrics.get(i);
+            w.write(i == 0 ? "\n" : ",\n");
+            writeJsonObject(w, values(m_names.get(i), m_statuses.get(i), m), m, "    ");
+            total.accumulate(m);
+            totalTime += m.getProofDuration();
+        }
+        total.setProofDuration(totalTime);
+        w.write("\n  ],\n  \"total\":\n");
+        writeJsonObject(w, values(null, null, total), total, "  ");
+        w.write("\n}\n");
+    }
+
+    // values line up with COLUMNS; nulls are left out
+    private void writeJsonObject(Writer w, Object[] values, Metrics m, String indent) throws IOException {
+        w.write(indent + "{");
+        String sep = " ";
+        for (int j = 0; j < values.length; j++) {
+            Object v = values[j];
+            if (v == null) continue;
+            w.write(sep + jsonQuote(COLUMNS[j]) + ": " + (v instanceof String ? jsonQuote((String) v) : v));
+            sep = ", ";
+        }
+        w.write(", \"theorems\": [");
+        boolean first = true;
+        for (Map.Entry<String, Metrics.TheoremStats> e : m.theoremStats.entrySet()) {
+            Metrics.TheoremStats t = e.getValue();
+            w.write(first ? "\n" : ",\n");
+            w.write(indent + "  { \"name\": " + jsonQuote(e.getKey()) + ", \"tries\": " + t.tries +
+                    ", \"instantiations\": " + t.instantiations + ", \"timeMs\": " + millis(t.nanos) + " }");
+            first = false;
+        }
+        w.write(first ? "] }" : "\n" + indent + "] }");
+    }
+
+    private static Object[] values(String name, String status, Metrics m) {
+        return new Object[]{name, status, m.strategy, m.getProofDuration(), m.merges, m.useMapLookups, m.rulesTried,
+                m.bindingsEnumerated, m.bindingsAccepted, m.ruleCount, m.theoremsPruned, m.prioritizerRefreshes,
+                m.registrySize, millis(m.rankingNanos), millis(m.matchingNanos), millis(m.insertingNanos)};
+    }
+
+    // milliseconds, to the microsecond
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1e3) / 1e3;
+    }
+
+    private static String csvQuote(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) return s;
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String jsonQuote(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+}
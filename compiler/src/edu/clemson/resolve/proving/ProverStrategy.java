@@ -0,0 +1,71 @@
+/**
+ * ProverStrategy.java
+ * ---------------------------------
+ * Copyright (c) 2016
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.resolve.proving;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * The knobs of the {@link CongruenceClassProver}'s search:
+ * <ul>
+ * <li>{@code theoremsPerRound}: how many theorems are applied (successfully) before the ranking is refreshed,</li>
+ * <li>{@code freeScore}: theorems ranked at or below this score are applied regardless of that limit,</li>
+ * <li>{@code ageWeight} and {@code diversityWeight}: how much a binding's score counts the age of the classes it
+ * binds against the share of them that are bound more than once
+ * (see {@link TheoremCongruenceClosureImpl#calculateScore}); lower scoring bindings are tried first.</li>
+ * </ul>
+ * Which settings work best depends on the VC, so with {@code -portfolio} several of the {@link #BUILT_IN} strategies
+ * race each other on every VC.
+ */
+public final class ProverStrategy {
+
+    /** What the prover has always done. */
+    public static final ProverStrategy DEFAULT = new ProverStrategy("default", 1, 1, 80, 20);
+
+    public static final List<ProverStrategy> BUILT_IN = Collections.unmodifiableList(Arrays.asList(
+            DEFAULT,
+            new ProverStrategy("wide", 4, 1, 80, 20),
+            new ProverStrategy("diverse", 1, 1, 40, 60),
+            new ProverStrategy("eager", 1, 4, 80, 20)));
+
+    @NotNull
+    public final String name;
+    public final int theoremsPerRound, freeScore;
+    public final float ageWeight, diversityWeight;
+
+    public ProverStrategy(@NotNull String name, int theoremsPerRound, int freeScore,
+                          float ageWeight, float diversityWeight) {
+        this.name = name;
+        this.theoremsPerRound = theoremsPerRound;
+        this.freeScore = freeScore;
+        this.ageWeight = ageWeight;
+        this.diversityWeight = diversityWeight;
+    }
+
+    /** The built in strategy called {@code name}, or {@code null} if there isn't one. */
+    @Nullable
+    public static ProverStrategy named(@NotNull String name) {
+        for (ProverStrategy s : BUILT_IN) {
+            if (s.name.equalsIgnoreCase(name)) return s;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return name + "(theoremsPerRound=" + theoremsPerRound + ", freeScore=" + freeScore +
+                ", ageWeight=" + ageWeight + ", diversityWeight=" + diversityWeight + ")";
+    }
+}
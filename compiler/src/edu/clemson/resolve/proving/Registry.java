@@ -18,6 +18,7 @@ import edu.clemson.resolve.semantics.MathFunctionClssftn;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.regex.Pattern;
 
 /**
  * Created by mike on 4/3/2014.
@@ -26,20 +27,46 @@ public class Registry {
 
     public final String m_ccFormat = "¢c%03d";
     public final String m_cvFormat = "¢v%03d";
-    public TreeMap<String, Integer> m_symbolToIndex;
+    private static final Pattern CONTROL_CHARS = Pattern.compile("\\p{Cc}");
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** Interned symbol table: each distinct symbol name is given a dense id (its index) once, when first added. */
+    public final Map<String, Integer> m_symbolToIndex;
     public Map<MathClssftn, TreeSet<String>> m_typeToSetOfOperators;
     public ArrayList<String> m_indexToSymbol;
     public ArrayList<MathClssftn> m_indexToType;
-    public ArrayList<Integer> m_symbolIndexParentArray;
-    public Stack<Integer> m_unusedIndices;
+
+    // union-find over symbol ids. m_parent/m_rank describe the trees (union by rank, path compression); the root of
+    // each tree stores in m_classRep the id that names the class, which is chosen by the caller of substitute() and
+    // so isn't necessarily the tree root. m_nextMember threads every class into a circular list of its members.
+    private int[] m_parent;
+    private byte[] m_rank;
+    private int[] m_classRep;
+    private int[] m_nextMember;
+    private int m_size = 0;
     private int m_uniqueCounter = 0;
+
+    // set on VC registries only. Every write below that can't be recomputed is recorded while a checkpoint is open.
+    private UndoTrail m_trail;
+    private final UndoTrail.Undoable m_undo = this::undo;
+    private static final int UNDO_PARENT = 0, UNDO_RANK = 1, UNDO_CLASS_REP = 2, UNDO_SPLICE = 3, UNDO_TYPE = 4,
+            UNDO_USAGE = 5, UNDO_PART_TYPE = 6, UNDO_COUNTER = 7, UNDO_ADD_SYMBOL = 8;
+    // flags of an UNDO_ADD_SYMBOL entry: what adding the symbol created besides its own entries
+    private static final int ADDED_TYPE = 1, ADDED_PART_TYPE = 2, ADDED_LAMBDA = 4;
     protected DumbMathClssftnHandler m_typeGraph;
     protected Map<String, Set<Integer>> m_appliedTheoremDependencyGraph;
     protected Set<String> m_lambda_names;
     protected Set<String> m_partTypes;
     protected Map<Integer, ArrayList<Integer>> m_partTypeParentArray;
     protected Set<String> m_commutative_operators;
-    protected Map<String, Boolean> m_cached_isSubtype;
+    // by dense supertype id (see DumbMathClssftnHandler#idOf): the subtype ids asked about so far, and which of
+    // those are subtypes
+    private BitSet[] m_subtypesKnown = new BitSet[16];
+    private BitSet[] m_subtypes = new BitSet[16];
+    // what getSetMatchingType returns for each type asked about, kept up to date as symbols come and go
+    private final Map<MathClssftn, Set<String>> m_setMatchingType;
+    // set by compressAll: the two caches above are filled in and, while this stays set, only ever read
+    private boolean m_frozen = false;
 
     public static enum Usage {
 
@@ -52,16 +79,19 @@ public class Registry {
     protected Map<String, MathClssftn> m_typeDictionary;
 
     public Registry(DumbMathClssftnHandler g) {
-        m_symbolToIndex = new TreeMap<String, Integer>();
+        m_symbolToIndex = new HashMap<String, Integer>(INITIAL_CAPACITY * 2);
         m_typeToSetOfOperators = new HashMap<MathClssftn, TreeSet<String>>();
-        m_indexToSymbol = new ArrayList<String>();
-        m_indexToType = new ArrayList<MathClssftn>();
-        m_symbolIndexParentArray = new ArrayList<Integer>();
-        m_unusedIndices = new Stack<Integer>();
+        m_indexToSymbol = new ArrayList<String>(INITIAL_CAPACITY);
+        m_indexToType = new ArrayList<MathClssftn>(INITIAL_CAPACITY);
+        m_parent = new int[INITIAL_CAPACITY];
+        m_rank = new byte[INITIAL_CAPACITY];
+        m_classRep = new int[INITIAL_CAPACITY];
+        m_nextMember = new int[INITIAL_CAPACITY];
         m_symbolToUsage = new HashMap<String, Usage>(2048, .5f); // entries won't change
         m_foralls = new HashSet<String>();
         m_typeGraph = g;
         m_typeDictionary = new TreeMap<String, MathClssftn>();
+        m_setMatchingType = new HashMap<MathClssftn, Set<String>>();
         addSymbol("=B", g.EQUALITY_FUNCTION, Usage.LITERAL); // = as a predicate function, not as an assertion
         addSymbol("true", g.BOOLEAN, Usage.LITERAL);
         addSymbol("false", g.BOOLEAN, Usage.LITERAL);
@@ -79,51 +109,125 @@ public class Registry {
         m_commutative_operators.add("∧B");
         m_commutative_operators.add("orB");
         m_commutative_operators.add("∨B");
+    }
+
+    /**
+     * A copy of {@code other} that shares nothing it could change with it (classifications aside, which are never
+     * changed), so the two can go their separate ways. The copy has no undo trail.
+     */
+    protected Registry(Registry other) {
+        m_symbolToIndex = new HashMap<String, Integer>(other.m_symbolToIndex);
+        m_typeToSetOfOperators = new HashMap<MathClssftn, TreeSet<String>>();
+        for (Entry<MathClssftn, TreeSet<String>> e : other.m_typeToSetOfOperators.entrySet()) {
+            m_typeToSetOfOperators.put(e.getKey(), new TreeSet<String>(e.getValue()));
+        }
+        m_indexToSymbol = new ArrayList<String>(other.m_indexToSymbol);
+        m_indexToType = new ArrayList<MathClssftn>(other.m_indexToType);
+        m_parent = other.m_parent.clone();
+        m_rank = other.m_rank.clone();
+        m_classRep = other.m_classRep.clone();
+        m_nextMember = other.m_nextMember.clone();
+        m_size = other.m_size;
+        m_uniqueCounter = other.m_uniqueCounter;
+        m_symbolToUsage = new HashMap<String, Usage>(other.m_symbolToUsage);
+        m_foralls = new HashSet<String>(other.m_foralls);
+        m_typeGraph = other.m_typeGraph;
+        m_typeDictionary = new TreeMap<String, MathClssftn>(other.m_typeDictionary);
+        m_appliedTheoremDependencyGraph = new HashMap<String, Set<Integer>>();
+        for (Entry<String, Set<Integer>> e : other.m_appliedTheoremDependencyGraph.entrySet()) {
+            m_appliedTheoremDependencyGraph.put(e.getKey(), new HashSet<Integer>(e.getValue()));
+        }
+        m_lambda_names = new HashSet<String>(other.m_lambda_names);
+        m_partTypes = new HashSet<String>(other.m_partTypes);
+        m_partTypeParentArray = new HashMap<Integer, ArrayList<Integer>>();
+        for (Entry<Integer, ArrayList<Integer>> e : other.m_partTypeParentArray.entrySet()) {
+            m_partTypeParentArray.put(e.getKey(), new ArrayList<Integer>(e.getValue()));
+        }
+        m_commutative_operators = new HashSet<String>(other.m_commutative_operators);
+        m_subtypesKnown = new BitSet[other.m_subtypesKnown.length];
+        m_subtypes = new BitSet[other.m_subtypes.length];
+        for (int i = 0; i < m_subtypes.length; i++) {
+            if (other.m_subtypes[i] == null) continue;
+            m_subtypesKnown[i] = (BitSet) other.m_subtypesKnown[i].clone();
+            m_subtypes[i] = (BitSet) other.m_subtypes[i].clone();
+        }
+        m_setMatchingType = new HashMap<MathClssftn, Set<String>>();
+        for (Entry<MathClssftn, Set<String>> e : other.m_setMatchingType.entrySet()) {
+            m_setMatchingType.put(e.getKey(), new HashSet<String>(e.getValue()));
+        }
+    }
+
+    protected void setUndoTrail(UndoTrail trail) {
+        m_trail = trail;
+    }
 
-        m_cached_isSubtype = new HashMap<String, Boolean>();
+    private boolean recording() {
+        return m_trail != null && m_trail.isRecording();
     }
 
     public boolean isSubtype(MathClssftn a, MathClssftn b) {
-        String catKey = a.toString() + "," + b.toString();
-        if (m_cached_isSubtype.containsKey(catKey)) {
-            return m_cached_isSubtype.get(catKey);
+        int sub = m_typeGraph.idOf(a);
+        int sup = m_typeGraph.idOf(b);
+        if (m_frozen) {
+            if (sup < m_subtypes.length && m_subtypes[sup] != null && m_subtypesKnown[sup].get(sub)) {
+                return m_subtypes[sup].get(sub);
+            }
+            return a.isSubtypeOf(b);
         }
-        else {
-            boolean is = a.isSubtypeOf(b);
-            m_cached_isSubtype.put(catKey, is);
-            return is;
+        if (sup >= m_subtypes.length) {
+            int length = Math.max(sup + 1, m_subtypes.length * 2);
+            m_subtypesKnown = Arrays.copyOf(m_subtypesKnown, length);
+            m_subtypes = Arrays.copyOf(m_subtypes, length);
+        }
+        if (m_subtypes[sup] == null) {
+            m_subtypesKnown[sup] = new BitSet();
+            m_subtypes[sup] = new BitSet();
+        }
+        if (!m_subtypesKnown[sup].get(sub)) {
+            m_subtypesKnown[sup].set(sub);
+            if (a.isSubtypeOf(b)) m_subtypes[sup].set(sub);
         }
+        return m_subtypes[sup].get(sub);
     }
 
     public Usage getUsage(String symbol) {
         return m_symbolToUsage.get(symbol);
     }
 
+    /** The symbols of type {@code t} or one of its subtypes, as they are now; later changes aren't reflected. */
     public Set<String> getSetMatchingType(MathClssftn t) {
+        return new HashSet<String>(matchingType(t));
+    }
+
+    // the live set behind getSetMatchingType, which changes as symbols are added and removed
+    private Set<String> matchingType(MathClssftn t) {
         assert t != null : "request for null type";
-        Set<String> rSet = new HashSet<String>();
-        Set<MathClssftn> allTypesInSet = m_typeToSetOfOperators.keySet();
-        assert !m_typeToSetOfOperators.isEmpty() : "empty m_typeToSetOfOperator.keySet()";
-        assert allTypesInSet != null : "null set in Registry.getSetMatchingType";
-        // if there are subtypes of t, return those too
-        for (MathClssftn m : allTypesInSet) {
-            assert m != null : "null entry in allTypesInSet";
-            if (isSubtype(m, t)) {
-                rSet.addAll(m_typeToSetOfOperators.get(m));
+        Set<String> rSet = m_setMatchingType.get(t);
+        if (rSet == null) {
+            rSet = new HashSet<String>();
+            assert !m_typeToSetOfOperators.isEmpty() : "empty m_typeToSetOfOperator.keySet()";
+            // if there are subtypes of t, return those too
+            for (Entry<MathClssftn, TreeSet<String>> e : m_typeToSetOfOperators.entrySet()) {
+                assert e.getKey() != null : "null entry in allTypesInSet";
+                if (matchesType(e.getKey(), t)) {
+                    rSet.addAll(e.getValue());
+                }
             }
+            if (!m_frozen) m_setMatchingType.put(t, rSet);
         }
-        if (m_typeToSetOfOperators.get(t) != null)
-            rSet.addAll(m_typeToSetOfOperators.get(t));
-
         return rSet;
     }
 
+    private boolean matchesType(MathClssftn symbolType, MathClssftn t) {
+        return isSubtype(symbolType, t) || symbolType.equals(t);
+    }
+
     public Set<String> getParentsByType(MathClssftn t) {
-        Set<String> rSet = getSetMatchingType(t);
+        Set<String> rSet = matchingType(t);
         Set<String> fSet = new HashSet<String>();
         for (String s : rSet) {
             int id = getIndexForSymbol(s);
-            if (m_symbolIndexParentArray.get(id) == id) {
+            if (findAndCompress(id) == id) {
                 fSet.add(s);
             }
         }
@@ -145,38 +249,100 @@ public class Registry {
         String bS = getSymbolForIndex(opIndexB);
         Usage a_us = getUsage(aS);
         Usage b_us = getUsage(bS);
+        boolean recording = recording();
         if (!a_us.equals(Usage.FORALL) && isSubtype(bType, aType)) {
-            m_indexToType.set(opIndexA, bType);
+            MathClssftn old = m_indexToType.set(opIndexA, bType);
+            if (recording) m_trail.record(m_undo, UNDO_TYPE, opIndexA, 0, old);
         }
         if (a_us.equals(Usage.LITERAL) || b_us.equals(Usage.LITERAL)) {
-            m_symbolToUsage.put(aS, Usage.LITERAL);
+            Usage old = m_symbolToUsage.put(aS, Usage.LITERAL);
+            if (recording) m_trail.record(m_undo, UNDO_USAGE, opIndexA, 0, old);
         }
         else if (a_us.equals(Usage.CREATED) || b_us.equals(Usage.CREATED)) {
-            m_symbolToUsage.put(aS, Usage.CREATED);
+            Usage old = m_symbolToUsage.put(aS, Usage.CREATED);
+            if (recording) m_trail.record(m_undo, UNDO_USAGE, opIndexA, 0, old);
+        }
+        if (m_partTypes.contains(bS) && m_partTypes.add(aS) && recording)
+            m_trail.record(m_undo, UNDO_PART_TYPE, opIndexA, 0, null);
+        union(opIndexA, opIndexB);
+    }
+
+    // a and b are class representatives; a names the merged class
+    private void union(int a, int b) {
+        int ra = findRoot(a);
+        int rb = findRoot(b);
+        if (ra == rb) return;
+        int root = ra;
+        boolean recording = recording();
+        if (m_rank[ra] < m_rank[rb]) {
+            root = rb;
+            if (recording) m_trail.record(m_undo, UNDO_PARENT, ra, ra, null);
+            m_parent[ra] = rb;
+        }
+        else {
+            if (recording) m_trail.record(m_undo, UNDO_PARENT, rb, rb, null);
+            m_parent[rb] = ra;
+            if (m_rank[ra] == m_rank[rb]) {
+                if (recording) m_trail.record(m_undo, UNDO_RANK, ra, m_rank[ra], null);
+                m_rank[ra]++;
+            }
+        }
+        if (recording) {
+            m_trail.record(m_undo, UNDO_CLASS_REP, root, m_classRep[root], null);
+            m_trail.record(m_undo, UNDO_SPLICE, a, b, null);
         }
-        if (m_partTypes.contains(bS))
-            m_partTypes.add(aS);
-        m_unusedIndices.push(opIndexB);
-        m_symbolIndexParentArray.set(opIndexB, opIndexA);
+        m_classRep[root] = a;
+        // splice the two circular member lists into one (splicing them again splits them back apart)
+        splice(a, b);
     }
 
+    private void splice(int a, int b) {
+        int t = m_nextMember[a];
+        m_nextMember[a] = m_nextMember[b];
+        m_nextMember[b] = t;
+    }
+
+    private int findRoot(int index) {
+        assert index >= 0 && index < m_size : "findAndCompress error";
+        int root = index;
+        while (m_parent[root] != root) {
+            root = m_parent[root];
+        }
+        // compress; only writes when the path is longer than one step
+        boolean recording = recording();
+        while (m_parent[index] != root) {
+            int next = m_parent[index];
+            if (recording) m_trail.record(m_undo, UNDO_PARENT, index, next, null);
+            m_parent[index] = root;
+            index = next;
+        }
+        return root;
+    }
+
+    /** Returns the id of the representative of the class {@code index} belongs to. */
     protected int findAndCompress(int index) {
-        // early return for parent
-        if (m_symbolIndexParentArray.get(index) == index)
-            return index;
-        Stack<Integer> needToUpdate = new Stack<Integer>();
-        assert index < m_symbolIndexParentArray.size() : "findAndCompress error";
-        int parent = m_symbolIndexParentArray.get(index);
-        while (parent != index) {
-            needToUpdate.push(index);
-            index = parent;
-            parent = m_symbolIndexParentArray.get(index);
-        }
-        while (!needToUpdate.isEmpty()) {
-            m_symbolIndexParentArray.set(needToUpdate.pop(), index);
-        }
-
-        return index;
+        return m_classRep[findRoot(index)];
+    }
+
+    /**
+     * Points every index directly at its root, and works out up front which of the types in the registry are
+     * subtypes of which, and which symbols match each of them. Once this is done (and as long as no further symbols
+     * are added or merged) lookups no longer write to the registry, so it can be safely read by more than one
+     * thread; theorem registries rely on this as they are shared among concurrently proved VCs. Subtype questions
+     * about types outside the registry are still answered, just without being remembered.
+     */
+    protected void compressAll() {
+        for (int i = 0; i < m_size; ++i) {
+            findRoot(i);
+        }
+        m_frozen = false;
+        for (MathClssftn sup : m_typeToSetOfOperators.keySet()) {
+            for (MathClssftn sub : m_typeToSetOfOperators.keySet()) {
+                isSubtype(sub, sup);
+            }
+            matchingType(sup);
+        }
+        m_frozen = true;
     }
 
     public String getSymbolForIndex(int index) {
@@ -188,8 +354,9 @@ public class Registry {
     }
 
     public String getRootSymbolForSymbol(String sym) {
-        if (m_symbolToIndex.containsKey(sym))
-            return getSymbolForIndex(getIndexForSymbol(sym));
+        Integer id = m_symbolToIndex.get(sym);
+        if (id != null)
+            return m_indexToSymbol.get(findAndCompress(id));
         else
             return "";
     }
@@ -206,10 +373,10 @@ public class Registry {
         assert m_symbolToIndex.get(symbol) != null : symbol + " not found"
                 + m_symbolToIndex.toString();
 
-        if (!m_symbolToIndex.containsKey(symbol)) {
+        Integer r = m_symbolToIndex.get(symbol);
+        if (r == null) {
             return -1;
         }
-        int r = m_symbolToIndex.get(symbol);
         return findAndCompress(r);
     }
 
@@ -219,6 +386,7 @@ public class Registry {
 
     public int makeSymbol(MathClssftn symbolType, boolean isVariable) {
         String symbolName = "";
+        if (recording()) m_trail.record(m_undo, UNDO_COUNTER, m_uniqueCounter, 0, null);
         if (isVariable)
             symbolName = String.format(m_cvFormat, m_uniqueCounter++);
         else
@@ -228,17 +396,19 @@ public class Registry {
 
     // if symbol is new, it adds it, otherwise, it returns current int rep
     public int addSymbol(String symbolName, MathClssftn symbolType, Usage usage) {
-        symbolName = symbolName.replaceAll("\\p{Cc}", "");
-        if (symbolName.contains("lambda"))
-            m_lambda_names.add(symbolName);
+        symbolName = CONTROL_CHARS.matcher(symbolName).replaceAll("");
+        int added = 0;
+        if (symbolName.contains("lambda") && m_lambda_names.add(symbolName))
+            added |= ADDED_LAMBDA;
         assert symbolName.length() != 0 : "blank symbol error in addSymbol";
         if (isSymbolInTable(symbolName)) {
             return getIndexForSymbol(symbolName);
         }
-        if (symbolName.contains(".")) {
-            m_partTypes.add(symbolName);
+        if (symbolName.contains(".") && m_partTypes.add(symbolName)) {
+            added |= ADDED_PART_TYPE;
         }
 
+        MathClssftn replacedType = null;
         if (m_typeToSetOfOperators.containsKey(symbolType)) {
             m_typeToSetOfOperators.get(symbolType).add(symbolName);
         }
@@ -248,8 +418,15 @@ public class Registry {
             assert symbolType != null : symbolName + " has null type";
             if (symbolType != null) {
                 m_typeToSetOfOperators.put(symbolType, t);
-                m_typeDictionary.put(symbolType.toString().replace("'", ""),
+                replacedType = m_typeDictionary.put(symbolType.toString().replace("'", ""),
                         symbolType);
+                added |= ADDED_TYPE;
+            }
+        }
+
+        if (symbolType != null) {
+            for (Entry<MathClssftn, Set<String>> e : m_setMatchingType.entrySet()) {
+                if (matchesType(symbolType, e.getKey())) e.getValue().add(symbolName);
             }
         }
 
@@ -257,14 +434,82 @@ public class Registry {
         if (usage.equals(Usage.FORALL) || usage.equals(Usage.HASARGS_FORALL)) {
             m_foralls.add(symbolName);
         }
-        int incomingsize = m_symbolToIndex.size();
-        m_symbolToIndex.put(symbolName, m_symbolToIndex.size());
+        int incomingsize = m_size;
+        m_symbolToIndex.put(symbolName, incomingsize);
         m_indexToSymbol.add(symbolName);
         m_indexToType.add(symbolType);
-        m_symbolIndexParentArray.add(incomingsize);
+        if (incomingsize == m_parent.length) {
+            int newCapacity = m_parent.length * 2;
+            m_parent = Arrays.copyOf(m_parent, newCapacity);
+            m_rank = Arrays.copyOf(m_rank, newCapacity);
+            m_classRep = Arrays.copyOf(m_classRep, newCapacity);
+            m_nextMember = Arrays.copyOf(m_nextMember, newCapacity);
+        }
+        m_parent[incomingsize] = incomingsize;
+        m_classRep[incomingsize] = incomingsize;
+        m_nextMember[incomingsize] = incomingsize;
+        m_size++;
+        if (recording()) m_trail.record(m_undo, UNDO_ADD_SYMBOL, incomingsize, added, replacedType);
         assert m_symbolToIndex.size() == m_indexToSymbol.size();
-        assert incomingsize < m_symbolToIndex.size();
-        return m_symbolToIndex.size() - 1;
+        assert m_size == m_symbolToIndex.size();
+        return incomingsize;
+    }
+
+    private void undo(int kind, int a, int b, Object o) {
+        switch (kind) {
+            case UNDO_PARENT:
+                m_parent[a] = b;
+                break;
+            case UNDO_RANK:
+                m_rank[a] = (byte) b;
+                break;
+            case UNDO_CLASS_REP:
+                m_classRep[a] = b;
+                break;
+            case UNDO_SPLICE:
+                splice(a, b);
+                break;
+            case UNDO_TYPE:
+                m_indexToType.set(a, (MathClssftn) o);
+                break;
+            case UNDO_USAGE:
+                m_symbolToUsage.put(m_indexToSymbol.get(a), (Usage) o);
+                break;
+            case UNDO_PART_TYPE:
+                m_partTypes.remove(m_indexToSymbol.get(a));
+                break;
+            case UNDO_COUNTER:
+                m_uniqueCounter = a;
+                break;
+            case UNDO_ADD_SYMBOL:
+                removeLastSymbol(a, b, (MathClssftn) o);
+                break;
+        }
+    }
+
+    // undoes addSymbol; everything added since has already been undone, so the symbol is the last one
+    private void removeLastSymbol(int index, int added, MathClssftn replacedType) {
+        assert index == m_size - 1;
+        String symbolName = m_indexToSymbol.remove(index);
+        MathClssftn symbolType = m_indexToType.remove(index);
+        m_symbolToIndex.remove(symbolName);
+        m_symbolToUsage.remove(symbolName);
+        m_foralls.remove(symbolName);
+        if ((added & ADDED_TYPE) != 0) {
+            m_typeToSetOfOperators.remove(symbolType);
+            String key = symbolType.toString().replace("'", "");
+            if (replacedType == null) m_typeDictionary.remove(key);
+            else m_typeDictionary.put(key, replacedType);
+        }
+        else if (m_typeToSetOfOperators.containsKey(symbolType)) {
+            m_typeToSetOfOperators.get(symbolType).remove(symbolName);
+        }
+        for (Set<String> matching : m_setMatchingType.values()) {
+            matching.remove(symbolName);
+        }
+        if ((added & ADDED_PART_TYPE) != 0) m_partTypes.remove(symbolName);
+        if ((added & ADDED_LAMBDA) != 0) m_lambda_names.remove(symbolName);
+        m_size--;
     }
 
     public void flushUnusedSymbols() {}
@@ -288,21 +533,31 @@ public class Registry {
         return isCommutative(root);
     }
 
-    // use sparingly, call with a parent symbol.  assumes parent array is compressed
+    // call with a parent symbol; returns the other members of its class
     protected Set<String> getChildren(String parent) {
         int pInt = getIndexForSymbol(parent);
-        HashSet<Integer> ch = new HashSet<Integer>();
-        for (int i = 0; i < m_symbolIndexParentArray.size(); ++i) {
-            if (i == pInt)
-                continue;
-            if (m_symbolIndexParentArray.get(i) == pInt) {
-                ch.add(i);
-            }
-        }
         HashSet<String> rSet = new HashSet<String>();
-        for (Integer i : ch) {
+        for (int i = m_nextMember[pInt]; i != pInt; i = m_nextMember[i]) {
             rSet.add(m_indexToSymbol.get(i));
         }
         return rSet;
     }
+
+    /**
+     * Returns the ids of every symbol in the same class as {@code index} (itself included), in time proportional to
+     * the size of the class.
+     */
+    protected int[] getClassMembers(int index) {
+        int size = 1;
+        for (int i = m_nextMember[index]; i != index; i = m_nextMember[i]) {
+            size++;
+        }
+        int[] result = new int[size];
+        result[0] = index;
+        int pos = 1;
+        for (int i = m_nextMember[index]; i != index; i = m_nextMember[i]) {
+            result[pos++] = i;
+        }
+        return result;
+    }
 }
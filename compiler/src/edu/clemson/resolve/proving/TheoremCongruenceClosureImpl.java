@@ -21,15 +21,39 @@ public class TheoremCongruenceClosureImpl {
     private final PExp m_theorem;
     protected boolean m_unneeded = false;
     private Set<String> m_all_literals;
-    private boolean partMatchedisConstantEquation = false;
+    private Set<String> m_inserted_literals;
     protected boolean m_allowNewSymbols;
     protected String m_name;
     protected boolean m_noQuants = false;
-    protected VerificationConditionCongruenceClosureImpl m_lastVC;
-    protected Set<String> m_insert_qvars;
-    // clear these when starting new VC
-    protected List<Map<String, String>> m_bindings;
-    protected Set<Map<String, String>> m_selectedBindings;
+
+    // Bindings are int[]s indexed by slot, one slot per symbol getInitBindings() used to produce a key for (plus _g),
+    // each holding the id of the vc class bound to it (see BindingSet).
+    private final String[] m_slotSymbols;
+    private final MathClssftn[] m_slotTypes;
+    private final int[] m_slotForSymbol; // by theorem registry index, -1 for literals
+    private final int m_goalSlot;
+    // for each quantified variable of the insert expression, the slot holding its value and the fallback slot of its
+    // class' root
+    private final PSymbol[] m_insertQuants;
+    private final int[] m_insertQuantSlots;
+    private final int[] m_insertQuantRootSlots;
+
+    // the literals of the atoms matched against (operators first), null if matching can turn up atoms of any operator
+    private final String[] m_triggers;
+    private final boolean m_byType;
+
+    /**
+     * Matching state for a single theorem against a single VC. Theorems are shared by every VC (and, when proving
+     * concurrently, by every worker thread), so anything that changes while matching lives here instead; each
+     * {@link VerificationConditionCongruenceClosureImpl} owns one of these per theorem it has tried.
+     */
+    protected static class PerVCState {
+        protected final Deque<int[]> m_bindings = new ArrayDeque<>(128);
+        protected final BindingSet m_selectedBindings = new BindingSet(128);
+        // the VC's change mark and goal count when matching last found nothing new, -1 if it did
+        protected int m_exhaustedAt = -1;
+        protected int m_exhaustedGoals;
+    }
 
     public TheoremCongruenceClosureImpl(DumbMathClssftnHandler g, PExp entireTheorem,
                                         PExp mustMatch, PExp restOfExp, PExp toInsert,
@@ -41,8 +65,6 @@ public class TheoremCongruenceClosureImpl {
         m_theoremString = entireTheorem.toString();
         isEquality = true;
         m_theoremRegistry = new Registry(g);
-        m_bindings = new ArrayList<Map<String, String>>(128);
-        m_selectedBindings = new HashSet<Map<String, String>>(128);
         m_matchConj = new ConjunctionOfNormalizedAtomicExpressions(m_theoremRegistry, null);
         if (mustMatch.getSubExpressions().size() > 0) {
             if (enterToMatchAndBindAsEquivalentToTrue)
@@ -50,13 +72,9 @@ public class TheoremCongruenceClosureImpl {
             else
                 m_matchConj.addFormula(mustMatch);
         }
-        m_matchRequired = new ArrayList<NormalizedAtomicExpression>(m_matchConj.m_expSet.keySet());
+        m_matchRequired = m_matchConj.getAtoms();
         Collections.sort(m_matchRequired, new NormalizedAtomicExpression.numQuantsComparator());
         m_insertExpr = toInsert;
-        m_insert_qvars = new HashSet<String>();
-        for (PSymbol p : m_insertExpr.getQuantifiedVariables()) {
-            m_insert_qvars.add(p.toString());
-        }
         if (!mustMatch.equals(restOfExp)
                 && restOfExp.getSubExpressions().size() > 1
                 && (!mustMatch.getQuantifiedVariablesNoCache().containsAll(
@@ -69,7 +87,7 @@ public class TheoremCongruenceClosureImpl {
         for (PSymbol p : toInsert.getQuantifiedVariables()) {
             insert_quants.add(p.toString());
         }
-        for (NormalizedAtomicExpression n : m_matchConj.m_expSet.keySet()) {
+        for (NormalizedAtomicExpression n : m_matchConj.getAtoms()) {
             Map<String, Integer> ops = n.getOperatorsAsStrings(false);
             Set<String> intersection = new HashSet<String>(insert_quants);
             intersection.retainAll(ops.keySet());
@@ -81,133 +99,283 @@ public class TheoremCongruenceClosureImpl {
         if (m_theorem.getQuantifiedVariables().isEmpty()) {
             m_noQuants = true;
         }
+        // from here on the theorem is only read, so warm the lazily computed parts now rather than racing on them
+        // from several prover threads later
+        getNonQuantifiedSymbols();
+        getInsertedSymbols();
+        m_theoremRegistry.compressAll();
+
+        List<String> slotSymbols = getInitBindings();
+        if (m_theoremRegistry.m_symbolToIndex.containsKey("_g") && !slotSymbols.contains("_g")) {
+            slotSymbols.add("_g");
+        }
+        m_slotSymbols = slotSymbols.toArray(new String[slotSymbols.size()]);
+        m_goalSlot = slotSymbols.indexOf("_g");
+        m_slotTypes = new MathClssftn[m_slotSymbols.length];
+        for (int i = 0; i < m_slotSymbols.length; ++i) {
+            m_slotTypes[i] = m_theoremRegistry.getTypeByIndex(m_theoremRegistry.getIndexForSymbol(m_slotSymbols[i]));
+        }
+        m_slotForSymbol = new int[m_theoremRegistry.m_indexToSymbol.size()];
+        for (int i = 0; i < m_slotForSymbol.length; ++i) {
+            m_slotForSymbol[i] = slotSymbols.indexOf(m_theoremRegistry.getSymbolForIndex(i));
+        }
+        Set<PSymbol> insertQuants = m_insertExpr.getQuantifiedVariables();
+        m_insertQuants = insertQuants.toArray(new PSymbol[insertQuants.size()]);
+        m_insertQuantSlots = new int[m_insertQuants.length];
+        m_insertQuantRootSlots = new int[m_insertQuants.length];
+        for (int i = 0; i < m_insertQuants.length; ++i) {
+            String thKey = m_insertQuants[i].getTopLevelOperationName();
+            m_insertQuantSlots[i] = slotSymbols.indexOf(thKey);
+            m_insertQuantRootSlots[i] = m_theoremRegistry.m_symbolToIndex.containsKey(thKey) ?
+                    slotSymbols.indexOf(m_theoremRegistry.getRootSymbolForSymbol(thKey)) : -1;
+        }
+        m_byType = m_matchRequired.size() == 0
+                || ((m_allowNewSymbols && m_theorem.getQuantifiedVariables().size() == 1) && isEquality);
+        m_triggers = m_byType ? null : getTriggers();
+    }
+
+    /**
+     * Matching only ever looks at atoms whose operator is a literal of the theorem, at the classes of its other
+     * literals, and at the goals; so once it has come up empty in a VC, it can only turn up something new after one
+     * of those operators gains an atom, one of those classes is merged, or the goals change
+     * (see {@link ConjunctionOfNormalizedAtomicExpressions#changedSince}). This is what a trigger index buys an SMT
+     * solver: the atoms here are flat, so indexing triggers by operator loses nothing a deeper tree would catch.
+     */
+    private String[] getTriggers() {
+        Set<String> ops = new LinkedHashSet<String>();
+        Set<String> literals = new LinkedHashSet<String>();
+        List<NormalizedAtomicExpression> atoms = new ArrayList<NormalizedAtomicExpression>(m_matchRequired);
+        atoms.addAll(m_noMatchRequired);
+        for (NormalizedAtomicExpression n : atoms) {
+            if (m_slotForSymbol[n.readPosition(0)] >= 0) return null; // a quantified operator matches anything
+            ops.add(n.readSymbol(0));
+            for (int i = 1; i <= n.getArity(); ++i) {
+                if (m_slotForSymbol[n.readPosition(i)] < 0) literals.add(n.readSymbol(i));
+            }
+            int root = n.readRoot();
+            if (root >= 0 && m_slotForSymbol[root] < 0) literals.add(m_theoremRegistry.getSymbolForIndex(root));
+        }
+        ops.addAll(literals);
+        return ops.toArray(new String[ops.size()]);
+    }
+
+    // whether matching could find something it didn't the last time it came up empty in vc
+    private boolean mayHaveNewMatches(VerificationConditionCongruenceClosureImpl vc, PerVCState state) {
+        if (m_triggers == null || state.m_exhaustedAt < 0) return true;
+        if (m_goalSlot >= 0 && vc.m_goalChanges != state.m_exhaustedGoals) return true;
+        ConjunctionOfNormalizedAtomicExpressions conj = vc.getConjunct();
+        for (String s : m_triggers) {
+            if (conj.changedSince(state.m_exhaustedAt, s)) return true;
+        }
+        return false;
     }
 
     public Set<String> getNonQuantifiedSymbols() {
         if (m_all_literals == null) {
-            m_all_literals = m_theorem.getFreeVariables()
-                    .stream()
-                    .map(PSymbol::getName)
-                    .collect(Collectors.toSet());
-
-            m_all_literals.remove("=B");
-            m_all_literals.remove("andB");
-            m_all_literals.remove("∧B");
-
-            m_all_literals.remove("impliesB");
-            m_all_literals.remove("true");
-            m_all_literals.remove("false");
-            m_all_literals.remove("/=B");
-            m_all_literals.remove("≠B");
-
-            m_all_literals.remove("Empty_String");
-            m_all_literals.remove("0");
-            m_all_literals.remove("1");
-            m_all_literals.remove("2");
-            m_all_literals.remove("3");
-            m_all_literals.remove("4");
-            m_all_literals.remove("5");
-            m_all_literals.remove("6");
-            m_all_literals.remove("7");
-            m_all_literals.remove("8");
-            m_all_literals.remove("9");
-            m_all_literals.remove("orB");
-            m_all_literals.remove("∨B");
-            m_all_literals.remove("+Z");
-            m_all_literals.remove("+N");
+            m_all_literals = nonQuantifiedSymbolsOf(m_theorem);
         }
         return m_all_literals;
     }
 
+    /**
+     * The non quantified symbols of what applying this theorem inserts into a VC, left out the same way as in
+     * {@link #getNonQuantifiedSymbols()}.
+     */
+    public Set<String> getInsertedSymbols() {
+        if (m_inserted_literals == null) {
+            m_inserted_literals = nonQuantifiedSymbolsOf(m_insertExpr);
+        }
+        return m_inserted_literals;
+    }
+
+    // the free symbols of e, less the builtin ones every vc is assumed to have
+    private static Set<String> nonQuantifiedSymbolsOf(PExp e) {
+        Set<String> result = e.getFreeVariables()
+                .stream()
+                .map(PSymbol::getName)
+                .collect(Collectors.toSet());
+
+        result.remove("=B");
+        result.remove("andB");
+        result.remove("∧B");
+
+        result.remove("impliesB");
+        result.remove("true");
+        result.remove("false");
+        result.remove("/=B");
+        result.remove("≠B");
+
+        result.remove("Empty_String");
+        result.remove("0");
+        result.remove("1");
+        result.remove("2");
+        result.remove("3");
+        result.remove("4");
+        result.remove("5");
+        result.remove("6");
+        result.remove("7");
+        result.remove("8");
+        result.remove("9");
+        result.remove("orB");
+        result.remove("∨B");
+        result.remove("+Z");
+        result.remove("+N");
+        return result;
+    }
+
     public int applyTo(VerificationConditionCongruenceClosureImpl vc,
             long endTime) {
-        Set<Map<String, String>> sResults;
-        m_bindings.clear();
-        if (m_lastVC == null || !m_lastVC.equals(vc)) {
-            m_selectedBindings.clear();
-            m_lastVC = vc;
-        }
+        return applyTo(vc, Deadline.until(endTime), ProverStrategy.DEFAULT);
+    }
+
+    /**
+     * Finds the bindings of this theorem in {@code vc}, ordered for {@link #getNext} as {@code strategy} says. Past
+     * {@code deadline} the search stops early, with whatever it has found by then.
+     */
+    public int applyTo(VerificationConditionCongruenceClosureImpl vc,
+            Deadline deadline, ProverStrategy strategy) {
+        BindingSet sResults;
+        PerVCState state = vc.getTheoremState(this);
+        state.m_bindings.clear();
         if (m_noQuants)
             return 1;
-        if (m_matchRequired.size() == 0
-                || ((m_allowNewSymbols && m_theorem.getQuantifiedVariables()
-                        .size() == 1) && isEquality)) {
-            sResults = findValidBindingsByType(vc, endTime);
+        if (!mayHaveNewMatches(vc, state))
+            return 0;
+        int mark = vc.getConjunct().changeMark();
+        if (m_byType) {
+            sResults = findValidBindingsByType(vc, deadline);
         }
         else
-            sResults = findValidBindings(vc, endTime);
+            sResults = findValidBindings(vc, deadline);
+        // a search cut short proves nothing about what a full one would find
+        state.m_exhaustedAt = deadline.expired() ? -1 : mark;
+        state.m_exhaustedGoals = vc.m_goalChanges;
         if (sResults == null || sResults.isEmpty())
             return 0;
-        nextMap: for (Map<String, String> s : sResults) {
-            if (!m_selectedBindings.contains(s)) {
-                for (String k : s.keySet()) {
-                    String v = s.get(k);
-                    if (!m_insert_qvars.contains(v)) {
-                        continue;
-                    }
-                    if (s.get(k).equals(""))
-                        continue nextMap;
-                }
-                m_bindings.add(s);
+        // sort by score, scoring each binding once; ties keep the order they were found in
+        final Registry vcReg = vc.getRegistry();
+        long[] scored = new long[sResults.size()];
+        int n = 0;
+        for (int i = 0; i < sResults.size(); ++i) {
+            int[] s = sResults.get(i);
+            if (!state.m_selectedBindings.contains(s)) {
+                scored[n++] = ((long) calculateScore(s, vcReg, strategy) << 32) | i;
             }
         }
-        Collections.sort(m_bindings, new Comparator<Map<String, String>>() {
+        Arrays.sort(scored, 0, n);
+        for (int i = 0; i < n; ++i) {
+            state.m_bindings.add(sResults.get((int) scored[i]));
+        }
+        if (n > 0) state.m_exhaustedAt = -1;
+        return state.m_bindings.size();
+    }
 
-            @Override
-            public int compare(Map<String, String> o1, Map<String, String> o2) {
-                return calculateScore(o1) - calculateScore(o2);
-            }
-        });
-        return m_bindings.size();
+    public int calculateScore(int[] binding, Registry vcReg) {
+        return calculateScore(binding, vcReg, ProverStrategy.DEFAULT);
     }
 
-    public int calculateScore(Map<String, String> bmap) {
-        HashSet<String> seen = new HashSet<String>(bmap.keySet().size());
-        float max = m_lastVC.getRegistry().m_indexToSymbol.size();
+    public int calculateScore(int[] binding, Registry vcReg, ProverStrategy strategy) {
+        float max = vcReg.m_indexToSymbol.size();
         float age = 0f;
-        float sSz = bmap.keySet().size();
-        for (String k : bmap.keySet()) {
-            String rS =
-                    m_lastVC.getRegistry().getRootSymbolForSymbol(bmap.get(k));
-            seen.add(rS);
-            if (m_lastVC.getRegistry().m_symbolToIndex.containsKey(rS)) {
-                int indexVal = m_lastVC.getRegistry().getIndexForSymbol(rS);
-                // Age
-                age += indexVal;
+        int sSz = 0;
+        int seen = 0;
+        boolean seenUnbound = false;
+        int[] roots = new int[binding.length];
+        for (int k = 0; k < binding.length; ++k) {
+            if (binding[k] == BindingSet.ABSENT) continue;
+            sSz++;
+            if (binding[k] == BindingSet.UNBOUND) {
+                if (!seenUnbound) seen++;
+                seenUnbound = true;
+                continue;
+            }
+            int indexVal = vcReg.findAndCompress(binding[k]);
+            boolean isNew = true;
+            for (int j = 0; j < k && isNew; ++j) {
+                isNew = roots[j] != indexVal;
             }
+            roots[k] = isNew ? indexVal : -1;
+            if (isNew) seen++;
+            // Age
+            age += indexVal;
         }
-        float diff = 1.0f - seen.size() / sSz;
+        float diff = 1.0f - seen / (float) sSz;
         float avgAge = age / sSz;
         // these range from [0,1], lower is better
         float scaledAvgAge = avgAge / max;
 
         scaledAvgAge += .01;
         diff += .01;
-        int r = (int) ((80f * scaledAvgAge) + (20f * diff));
+        int r = (int) ((strategy.ageWeight * scaledAvgAge) + (strategy.diversityWeight * diff));
         return r;
     }
 
-    public PExpWithScore getNext() {
-        if (m_noQuants && m_selectedBindings.isEmpty()) {
-            m_selectedBindings.add(new HashMap<String, String>());
-            return new PExpWithScore(m_insertExpr,
-                    new HashMap<String, String>(), m_theorem.toString());
+    public PExpWithScore getNext(VerificationConditionCongruenceClosureImpl vc) {
+        PerVCState state = vc.getTheoremState(this);
+        if (m_noQuants && state.m_selectedBindings.isEmpty()) {
+            state.m_selectedBindings.add(new int[0]);
+            PExpWithScore r = new PExpWithScore(m_insertExpr,
+                    new HashMap<String, String>(), m_theoremString);
+            r.m_instantiation = new String[0];
+            return r;
         }
-        if (m_bindings.isEmpty())
-            return null;
-        HashMap<PExp, PExp> quantToLit = new HashMap<PExp, PExp>();
-        Map<String, String> curBinding = m_bindings.remove(0);
-        m_selectedBindings.add(curBinding);
-        for (PSymbol p : m_insertExpr.getQuantifiedVariables()) {
-            String thKey = p.getTopLevelOperationName();
-            String thVal = "";
-            if (curBinding.containsKey(thKey)) {
-                thVal = curBinding.get(thKey);
-            }
-            else if (curBinding.containsKey(m_theoremRegistry.getRootSymbolForSymbol(thKey))) {
-                thVal = curBinding.get(m_theoremRegistry.getRootSymbolForSymbol(thKey));
+        Registry vcReg = vc.getRegistry();
+        int[] curBinding;
+        String[] values;
+        PExp modifiedInsert;
+        do {
+            curBinding = state.m_bindings.poll();
+            if (curBinding == null)
+                return null;
+            state.m_selectedBindings.add(curBinding);
+            values = insertValues(curBinding, vcReg);
+            modifiedInsert = values == null ? null : instantiate(values, vc);
+        } while (modifiedInsert == null);
+        Map<String, String> bMap = new HashMap<String, String>();
+        for (int k = 0; k < curBinding.length; ++k) {
+            if (curBinding[k] == BindingSet.ABSENT) continue;
+            bMap.put(m_slotSymbols[k], curBinding[k] == BindingSet.UNBOUND ? "" :
+                    vcReg.m_indexToSymbol.get(curBinding[k]));
+        }
+        PExpWithScore r = new PExpWithScore(modifiedInsert, bMap, m_theoremString);
+        r.m_instantiation = values;
+        return r;
+    }
+
+    /** The quantified variables of the expression this theorem inserts, in the order of {@link #instantiate}. */
+    public String[] getInsertQuantifiedVariables() {
+        String[] names = new String[m_insertQuants.length];
+        for (int i = 0; i < names.length; ++i) {
+            names[i] = m_insertQuants[i].getTopLevelOperationName();
+        }
+        return names;
+    }
+
+    // the vc symbol bound to each quantified variable of the insert expression, or null if one is left unbound
+    private String[] insertValues(int[] binding, Registry vcReg) {
+        String[] values = new String[m_insertQuants.length];
+        for (int i = 0; i < m_insertQuants.length; ++i) {
+            int slot = m_insertQuantSlots[i];
+            if (slot < 0 || binding[slot] == BindingSet.ABSENT) {
+                slot = m_insertQuantRootSlots[i];
             }
-            if (thVal.equals("")) return getNext();
+            if (slot < 0 || binding[slot] < 0) return null;
+            values[i] = vcReg.getSymbolForIndex(binding[slot]);
+        }
+        return values;
+    }
+
+    /**
+     * Instantiates the expression this theorem inserts, binding the i-th of {@link #getInsertQuantifiedVariables()}
+     * to the vc symbol {@code values[i]}. Returns null if that only yields s = s.
+     */
+    protected PExp instantiate(String[] values, VerificationConditionCongruenceClosureImpl vc) {
+        if (m_noQuants)
+            return m_insertExpr;
+        HashMap<PExp, PExp> quantToLit = new HashMap<PExp, PExp>();
+        for (int i = 0; i < m_insertQuants.length; ++i) {
+            String thKey = m_insertQuants[i].getTopLevelOperationName();
+            String thVal = values[i];
 
             MathClssftn quanType = m_theoremRegistry.getTypeByIndex(m_theoremRegistry.getIndexForSymbol(thKey));
             PSymbol x = new PSymbol.PSymbolBuilder(thKey).mathClssfctn(quanType)
@@ -218,81 +386,59 @@ public class TheoremCongruenceClosureImpl {
         }
 
         PExp modifiedInsert = m_insertExpr.substitute(quantToLit);
-        modifiedInsert = m_lastVC.getConjunct().find(modifiedInsert);
+        modifiedInsert = vc.getConjunct().find(modifiedInsert);
         // Discard s = s
         // if name is =B and left arg (index 1) == right arg (index 2)
         if ((modifiedInsert.getTopLevelOperationName().equals("=B") && modifiedInsert
                 .getSubExpressions().get(1).toString().equals(
                         modifiedInsert.getSubExpressions().get(2).toString()))) {
-            return getNext();
+            return null;
         }
-        return new PExpWithScore(modifiedInsert, curBinding, m_theorem.toString());
+        return modifiedInsert;
     }
 
     // variables to bind are the quantified vars the quantified statement
     // and the created variables in the match conjunction
-    private Map<String, String> getInitBindings() {
-        HashMap<String, String> initBindings = new HashMap<String, String>();
+    private List<String> getInitBindings() {
+        List<String> initBindings = new ArrayList<String>();
         // Created vars. that are parents of quantified vars can be a problem later
         for (int i = 0; i < m_theoremRegistry.m_indexToSymbol.size(); ++i) {
 
             String curSym = m_theoremRegistry.getSymbolForIndex(i);
             Registry.Usage us = m_theoremRegistry.getUsage(curSym);
-            if (us == Registry.Usage.CREATED || us == Registry.Usage.FORALL || us == Registry.Usage.HASARGS_FORALL) {
-                initBindings.put(curSym, "");
-
+            if ((us == Registry.Usage.CREATED || us == Registry.Usage.FORALL || us == Registry.Usage.HASARGS_FORALL)
+                    && !initBindings.contains(curSym)) {
+                initBindings.add(curSym);
             }
         }
         return initBindings;
     }
 
-    private Set<Map<String, String>> findValidBindingsByType(
-            VerificationConditionCongruenceClosureImpl vc, long endTime) {
+    private int[] newBinding(int fill) {
+        int[] binding = new int[m_slotSymbols.length];
+        Arrays.fill(binding, fill);
+        return binding;
+    }
+
+    private BindingSet findValidBindingsByType(
+            VerificationConditionCongruenceClosureImpl vc, Deadline deadline) {
         // Case where no match conj. is produced.
         // Example: S = Empty_String. Relevant info is only in registry.
-        Set<Map<String, String>> allValidBindings = new HashSet<>();
-        // x = constant?
-        if (partMatchedisConstantEquation) {
-            HashMap<String, String> wildToActual = new HashMap<>();
-            for (String wild : m_theoremRegistry.getForAlls()) {
-
-                String actual = m_theoremRegistry.getRootSymbolForSymbol(wild);
-                // wildcard is not parent
-                if (!actual.equals(wild)) {
-                    wildToActual.put(wild, actual);
-                }
-                // wildcard is parent, bind to child
-                else {
-                    Set<String> ch = m_theoremRegistry.getChildren(wild);
-                    // choose first non quantified symbol (they are all equal)
-                    if (ch.isEmpty())
-                        return null;
-                    for (String c : ch) {
-                        if (!m_theoremRegistry.getUsage(c).equals(
-                                Registry.Usage.FORALL)
-                                || !m_theoremRegistry.getUsage(c).equals(
-                                        Registry.Usage.CREATED)) {
-                            wildToActual.put(wild, c);
-                            break;
-                        }
-                        return null;
-                    }
-                }
-            }
-            allValidBindings.add(wildToActual);
-            return allValidBindings;
-
-        }
         // only valid for preds other than equality
         Set<String> foralls = m_theoremRegistry.getForAlls();
         if (foralls.size() != 1) return null;
         String wild = foralls.iterator().next();
-        MathClssftn t = m_theoremRegistry.getTypeByIndex(m_theoremRegistry.getIndexForSymbol(wild));
+        int wildSlot = Arrays.asList(m_slotSymbols).indexOf(wild);
+        if (wildSlot < 0) return null;
+        MathClssftn t = m_slotTypes[wildSlot];
+        Registry vcReg = vc.getRegistry();
 
-        for (String actual : vc.getRegistry().getParentsByType(t)) {
-            HashMap<String, String> wildToActual = new HashMap<String, String>();
-            wildToActual.put(wild, actual);
+        BindingSet allValidBindings = new BindingSet();
+        for (String actual : vcReg.getParentsByType(t)) {
+            if (deadline.tick()) break;
             if (!wild.equals(actual)) { // can be = with constants in theorems
+                int[] wildToActual = newBinding(BindingSet.ABSENT);
+                wildToActual[wildSlot] = vcReg.getIndexForSymbol(actual);
                 allValidBindings.add(wildToActual);
             }
         }
@@ -300,26 +446,29 @@ public class TheoremCongruenceClosureImpl {
 
     }
 
-    private Set<Map<String, String>> findValidBindings(VerificationConditionCongruenceClosureImpl vc, long endTime) {
-        Set<Map<String, String>> results = new HashSet<>();
-        Map<String, String> initBindings = getInitBindings();
-        if (m_theoremRegistry.m_symbolToIndex.containsKey("_g")) {
-            // each goal gets a new map with _g bound to the goal
+    private BindingSet findValidBindings(VerificationConditionCongruenceClosureImpl vc, Deadline deadline) {
+        BindingSet results = new BindingSet();
+        if (m_goalSlot >= 0) {
+            // each goal gets a new binding with _g bound to the goal
+            Registry vcReg = vc.getRegistry();
             for (String g : vc.m_goal) {
-                Map<String, String> gBinds = new HashMap<String, String>(initBindings);
-                gBinds.put("_g", g);
+                if (!vcReg.m_symbolToIndex.containsKey(g)) continue;
+                int[] gBinds = newBinding(BindingSet.UNBOUND);
+                gBinds[m_goalSlot] = vcReg.getIndexForSymbol(g);
                 results.add(gBinds);
             }
         }
         else {
-            results.add(initBindings);
+            results.add(newBinding(BindingSet.UNBOUND));
         }
         for (NormalizedAtomicExpression e_t : m_matchRequired) {
-            results = vc.getConjunct().getMatchesForOverrideSet(e_t, results);
+            results = vc.getConjunct().getMatchesForOverrideSet(e_t, m_slotForSymbol, m_slotTypes, results,
+                    deadline);
         }
-        Set<Map<String, String>> t_results;
+        BindingSet t_results;
         for (NormalizedAtomicExpression e_t : m_noMatchRequired) {
-            t_results = vc.getConjunct().getMatchesForOverrideSet(e_t, results);
+            t_results = vc.getConjunct().getMatchesForOverrideSet(e_t, m_slotForSymbol, m_slotTypes, results,
+                    deadline);
             if (t_results.isEmpty()) continue;
             else results.addAll(t_results);
         }
@@ -0,0 +1,93 @@
+/**
+ * TheoremLibrary.java
+ * ---------------------------------
+ * Copyright (c) 2016
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.resolve.proving;
+
+import edu.clemson.resolve.semantics.MathClssftn;
+import edu.clemson.resolve.semantics.MathSymbolTable;
+import edu.clemson.resolve.semantics.ModuleIdentifier;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+
+/**
+ * The theorems of one precis module in the form the {@link CongruenceClassProver} works with. Compiling a theorem
+ * (rewriting its assertion, building its registry and match conjunction) costs far more than proving with it takes
+ * on small modules, and every module proved imports the same few theories; so compiled libraries are kept on the
+ * {@link MathSymbolTable} the module's theorems were defined in, keyed by module. A library is only compiled the
+ * first time a prover asks for it, and is dropped when its module is populated again.
+ * <p>
+ * Libraries are only kept in memory and go away with their symbol table. Compiled theorems are made of the table's
+ * classifications, so they can't be written out and read back in by another compiler; each run of the command line
+ * compiler still compiles every theory it uses once.</p>
+ * <p>
+ * Compiled theorems are only ever read once built, so one library can be shared by any number of provers.</p>
+ */
+public final class TheoremLibrary {
+
+    final List<TheoremCongruenceClosureImpl> theorems = new ArrayList<>();
+    final Set<String> nonQuantifiedSymbols = new HashSet<>();
+    final Set<TheoremCongruenceClosureImpl> smallEndEquations = new HashSet<>();
+
+    // the Z and N classifications the theorems were compiled against
+    @Nullable private MathClssftn z, n;
+
+    TheoremLibrary() {
+    }
+
+    /**
+     * Returns the compiled theorems of {@code module}, running {@code compile} if they haven't been compiled for
+     * {@code table} yet (or were compiled against a different Z and N). Provers asking for a library that's being
+     * compiled wait for it rather than compiling it again; libraries of different modules compile concurrently.
+     */
+    @NotNull
+    static TheoremLibrary get(@NotNull MathSymbolTable table, @NotNull ModuleIdentifier module,
+                              @Nullable MathClssftn z, @Nullable MathClssftn n,
+                              @NotNull Supplier<TheoremLibrary> compile) {
+        ConcurrentMap<ModuleIdentifier, Future<TheoremLibrary>> libraries = table.getTheoremLibraries();
+        FutureTask<TheoremLibrary> task = new FutureTask<>(() -> {
+            TheoremLibrary lib = compile.get();
+            lib.z = z;
+            lib.n = n;
+            return lib;
+        });
+        Future<TheoremLibrary> f = libraries.putIfAbsent(module, task);
+        if (f == null) {
+            f = task;
+            task.run();
+        }
+        TheoremLibrary lib;
+        try {
+            lib = f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return compile.get();
+        } catch (ExecutionException e) {
+            libraries.remove(module, f);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new RuntimeException(cause);
+        }
+        return lib.z == z && lib.n == n ? lib : compile.get();
+    }
+
+    void add(@NotNull TheoremCongruenceClosureImpl t) {
+        theorems.add(t);
+    }
+}
@@ -15,108 +15,247 @@ package edu.clemson.resolve.proving;
 import java.util.*;
 
 /**
+ * Ranks the theorems that may be applied to a single VC. One prioritizer lives for the whole proof of its VC;
+ * {@link #refresh} brings the ranking up to date with whatever the VC has learned since the last call, rescoring
+ * only the theorems whose score could have changed:
+ * <ul>
+ * <li>theorems waiting on a symbol the VC did not have yet, once it appears,</li>
+ * <li>theorems using a symbol whose relation to the goals changed,</li>
+ * <li>theorems polled since the last refresh (their applied count went up),</li>
+ * <li>theorems scored only by the size of the VC, when that grew.</li>
+ * </ul>
  * Created by nabilkabbani on 12/10/14.
  */
 public class TheoremPrioritizer {
 
-    protected PriorityQueue<TheoremWithScore> m_pQueue;
-    private Map<String, Integer> m_theoremAppliedCount;
-    private Registry m_vcReg;
-    private VerificationConditionCongruenceClosureImpl m_vc;
-    private Map<String, Integer> m_nonQuantMap;
-    private Set<TheoremCongruenceClosureImpl> m_smallEndEquations;
+    private final TreeSet<TheoremWithScore> m_pQueue = new TreeSet<TheoremWithScore>();
+    private final Map<String, Integer> m_theoremAppliedCount;
+    private final Registry m_vcReg;
+    private final VerificationConditionCongruenceClosureImpl m_vc;
+    private final Set<String> m_nonQuantifiedTheoremSymbols;
+    private final Set<TheoremCongruenceClosureImpl> m_smallEndEquations;
+
+    private final Map<TheoremCongruenceClosureImpl, TheoremWithScore> m_entries =
+            new HashMap<TheoremCongruenceClosureImpl, TheoremWithScore>();
+    // vc symbols that are also non quantified theorem symbols, numbered in the order they entered the vc
+    private final Map<String, Integer> m_nonQuantMap = new HashMap<String, Integer>();
+    // the last computed score of each symbol in m_nonQuantMap; m_goalScored holds those scored by goalArg
+    private final Map<String, Integer> m_symbolScores = new HashMap<String, Integer>();
+    private final Set<String> m_goalScored = new HashSet<String>();
+    private final Map<String, List<TheoremWithScore>> m_usedBy = new HashMap<String, List<TheoremWithScore>>();
+    // theorems using a symbol not yet in the vc, by that symbol
+    private final Map<String, List<TheoremWithScore>> m_waitingOn = new HashMap<String, List<TheoremWithScore>>();
+    private final List<TheoremWithScore> m_scoredBySize = new ArrayList<TheoremWithScore>();
+    private final List<TheoremWithScore> m_polled = new ArrayList<TheoremWithScore>();
+    private int m_symbolsSeen = 0;
+
+    // ids of the goal classes and of the arguments of atoms rooted at them
+    private Set<Integer> m_goalRoots = new HashSet<Integer>();
+    private Set<Integer> m_goalArgRoots = new HashSet<Integer>();
 
     public TheoremPrioritizer(List<TheoremCongruenceClosureImpl> theoremList,
                               Map<String, Integer> appliedCount,
                               VerificationConditionCongruenceClosureImpl vc,
                               Set<String> nonQuantifiedTheoremSymbols,
                               Set<TheoremCongruenceClosureImpl> smallEndEquations) {
-        m_pQueue = new PriorityQueue<TheoremWithScore>(theoremList.size());
         m_theoremAppliedCount = appliedCount;
         m_vcReg = vc.getRegistry();
         m_vc = vc;
-        m_nonQuantMap = new HashMap<String, Integer>();
+        m_nonQuantifiedTheoremSymbols = nonQuantifiedTheoremSymbols;
         m_smallEndEquations = smallEndEquations;
-        int count = 0;
-        for (String s : m_vcReg.m_indexToSymbol) {
-            if (nonQuantifiedTheoremSymbols.contains(s)) {
-                m_nonQuantMap.put(s, count++);
-            }
-        }
+        int order = 0;
         for (TheoremCongruenceClosureImpl t : theoremList) {
-            TheoremWithScore tws = new TheoremWithScore(t);
-            //int score = calculateScore(t.getFunctionNames());
-            int score;
-            //if (!shouldExclude(t.getFunctionNames())) {
+            TheoremWithScore tws = new TheoremWithScore(t, order++);
+            m_entries.put(t, tws);
             Set<String> unQuantSyms = t.getNonQuantifiedSymbols();
-            //VC #1 in my system corresponds to VC 0_3 in the old system (for my minimal int do_nothing example anyways..)
-            if (!shouldExclude(t.getNonQuantifiedSymbols())) {
-                score =
-                        calculateScoreMinimum(t.getNonQuantifiedSymbols(),
-                                m_vcReg.m_symbolToIndex.keySet().size());
-                if (m_theoremAppliedCount.containsKey(t.m_name)) {
-                    score += m_theoremAppliedCount.get(t.m_name);
+            List<String> contained = new ArrayList<String>();
+            tws.m_numNotContained = 1;
+            for (String s : unQuantSyms) {
+                if (nonQuantifiedTheoremSymbols.contains(s)) {
+                    contained.add(s);
+                    addTo(m_usedBy, s, tws);
                 }
-                if (m_smallEndEquations.contains(t)) {
-                    score += 1;
+                else
+                    tws.m_numNotContained++;
+                // VC #1 in my system corresponds to VC 0_3 in the old system (for my minimal int do_nothing example
+                // anyways..)
+                if (!m_vcReg.m_symbolToIndex.containsKey(s)) {
+                    addTo(m_waitingOn, s, tws);
+                    tws.m_missingSymbols++;
                 }
-                tws.m_score = score;
-                m_pQueue.add(tws);
+            }
+            tws.m_containedSymbols = contained.toArray(new String[contained.size()]);
+            if (!unQuantSyms.isEmpty() && contained.isEmpty()) {
+                m_scoredBySize.add(tws);
             }
         }
+        m_polled.addAll(m_entries.values()); // nothing is queued yet, so the first refresh scores everything
     }
 
-    public boolean shouldExclude(Set<String> vcMustContainThese) {
-        for (String s : vcMustContainThese) {
-            String c = m_vcReg.getRootSymbolForSymbol(s);
-            if (!m_vcReg.m_symbolToIndex.containsKey(c)) {
-                return true;
+    private static void addTo(Map<String, List<TheoremWithScore>> m, String s, TheoremWithScore tws) {
+        List<TheoremWithScore> l = m.get(s);
+        if (l == null) {
+            l = new ArrayList<TheoremWithScore>();
+            m.put(s, l);
+        }
+        l.add(tws);
+    }
+
+    public void refresh() {
+        refresh(Deadline.NONE);
+    }
+
+    /**
+     * Requeues the theorems polled since the last call (unless {@link #remove removed}) and rescores every theorem
+     * affected by changes to the VC. If {@code deadline} passes meanwhile it stops, leaving the ranking incomplete;
+     * the proof is over by then anyway.
+     */
+    public void refresh(Deadline deadline) {
+        List<TheoremWithScore> dirty = new ArrayList<TheoremWithScore>();
+        List<String> newSymbols = new ArrayList<String>();
+        int seenBefore = m_symbolsSeen;
+
+        // new symbols: number them and release the theorems that were waiting on them
+        List<String> vcSymbols = m_vcReg.m_indexToSymbol;
+        for (; m_symbolsSeen < vcSymbols.size(); ++m_symbolsSeen) {
+            String s = vcSymbols.get(m_symbolsSeen);
+            if (m_nonQuantifiedTheoremSymbols.contains(s) && !m_nonQuantMap.containsKey(s)) {
+                m_nonQuantMap.put(s, m_nonQuantMap.size());
+                newSymbols.add(s);
+            }
+            List<TheoremWithScore> waiting = m_waitingOn.remove(s);
+            if (waiting != null) {
+                for (TheoremWithScore tws : waiting) {
+                    tws.m_missingSymbols--;
+                    dirty.add(tws);
+                }
+            }
+        }
+        if (m_symbolsSeen != seenBefore) {
+            dirty.addAll(m_scoredBySize);
+        }
+
+        // symbols whose goal relation may have changed: those related to a goal before or now, plus new ones
+        computeGoalRoots();
+        Set<String> candidates = new HashSet<String>(m_goalScored);
+        candidates.addAll(newSymbols);
+        addMembers(m_goalRoots, candidates);
+        addMembers(m_goalArgRoots, candidates);
+        for (String s : candidates) {
+            if (!m_nonQuantMap.containsKey(s)) continue;
+            int score = symbolScore(s);
+            Integer old = m_symbolScores.put(s, score);
+            if (old == null || old != score) {
+                List<TheoremWithScore> users = m_usedBy.get(s);
+                if (users != null) dirty.addAll(users);
             }
         }
-        return false;
+
+        dirty.addAll(m_polled);
+        m_polled.clear();
+        for (TheoremWithScore tws : dirty) {
+            tws.m_dirty = true;
+        }
+        for (TheoremWithScore tws : dirty) {
+            if (deadline.tick()) return;
+            if (!tws.m_dirty) continue; // already rescored
+            tws.m_dirty = false;
+            // must leave the queue before its score (and so its place in the ordering) changes
+            m_pQueue.remove(tws);
+            if (tws.m_removed || tws.m_missingSymbols > 0) continue;
+            tws.m_score = calculateScore(tws);
+            m_pQueue.add(tws);
+        }
     }
 
-    //  minimum of symbol scores in both vc and theorem
-    public int calculateScoreMinimum(Set<String> theorem_symbols,
-                                     int not_contained_penalty) {
-        if (theorem_symbols.isEmpty())
-            return 0;
-        int score = not_contained_penalty;
-        int number_not_contained = 1;
-        for (String s : theorem_symbols) {
-            if (m_nonQuantMap.containsKey(s)) {
-                int c_score = goalArg(s);
-                if (c_score < 0)
-                    c_score = m_nonQuantMap.get(s);
-                if (c_score < score)
-                    score = c_score;
+    private void addMembers(Set<Integer> roots, Set<String> result) {
+        for (int r : roots) {
+            for (int m : m_vcReg.getClassMembers(r)) {
+                result.add(m_vcReg.m_indexToSymbol.get(m));
             }
-            else
-                number_not_contained++;
         }
-        return (score + 1) * number_not_contained;
     }
 
-    private int goalArg(String s) {
-        int si = m_vcReg.getIndexForSymbol(s);
-        String sc = m_vcReg.getRootSymbolForSymbol(s);
+    private void computeGoalRoots() {
+        m_goalRoots = new HashSet<Integer>();
+        m_goalArgRoots = new HashSet<Integer>();
         for (String g : m_vc.m_goal) {
             if (g.equals("false"))
                 continue;
             int gi = m_vcReg.getIndexForSymbol(g);
-            if (si == gi)
-                return 0;
-            for (NormalizedAtomicExpression ng : m_vc.getConjunct().getUses(gi)) {
-                if (ng.readRoot() != gi)
-                    continue;
-                if (ng.getOperatorsAsStrings(true).containsKey(sc))
-                    return 1;
+            m_goalRoots.add(gi);
+            for (NormalizedAtomicExpression ng : m_vc.getConjunct().getUses(gi, -1)) {
+                for (int i = 1; i <= ng.getArity(); ++i) {
+                    m_goalArgRoots.add(m_vcReg.findAndCompress(ng.readPosition(i)));
+                }
             }
         }
+    }
+
+    private int calculateScore(TheoremWithScore tws) {
+        TheoremCongruenceClosureImpl t = tws.m_theorem;
+        int score = calculateScoreMinimum(tws, m_vcReg.m_symbolToIndex.keySet().size());
+        if (m_theoremAppliedCount.containsKey(t.m_name)) {
+            score += m_theoremAppliedCount.get(t.m_name);
+        }
+        if (m_smallEndEquations.contains(t)) {
+            score += 1;
+        }
+        return score;
+    }
+
+    //  minimum of symbol scores in both vc and theorem
+    private int calculateScoreMinimum(TheoremWithScore tws, int not_contained_penalty) {
+        if (tws.m_theorem.getNonQuantifiedSymbols().isEmpty())
+            return 0;
+        int score = not_contained_penalty;
+        for (String s : tws.m_containedSymbols) {
+            int c_score = m_symbolScores.get(s);
+            if (c_score < score)
+                score = c_score;
+        }
+        return (score + 1) * tws.m_numNotContained;
+    }
+
+    private int symbolScore(String s) {
+        int c_score = goalArg(s);
+        if (c_score < 0) {
+            m_goalScored.remove(s);
+            return m_nonQuantMap.get(s);
+        }
+        m_goalScored.add(s);
+        return c_score;
+    }
+
+    private int goalArg(String s) {
+        int si = m_vcReg.getIndexForSymbol(s);
+        if (m_goalRoots.contains(si))
+            return 0;
+        if (m_goalArgRoots.contains(si))
+            return 1;
         return -1;
     }
 
+    /** Permanently drops {@code t} from the ranking. */
+    public void remove(TheoremCongruenceClosureImpl t) {
+        TheoremWithScore tws = m_entries.get(t);
+        if (tws != null) {
+            tws.m_removed = true;
+            m_pQueue.remove(tws);
+        }
+    }
+
+    public boolean isEmpty() {
+        return m_pQueue.isEmpty();
+    }
+
+    public int peekScore() {
+        return m_pQueue.first().m_score;
+    }
+
     public TheoremCongruenceClosureImpl poll() {
-        return m_pQueue.poll().m_theorem;
+        TheoremWithScore tws = m_pQueue.pollFirst();
+        m_polled.add(tws);
+        return tws.m_theorem;
     }
 }
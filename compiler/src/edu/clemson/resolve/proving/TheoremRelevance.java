@@ -0,0 +1,79 @@
+/**
+ * TheoremRelevance.java
+ * ---------------------------------
+ * Copyright (c) 2016
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.resolve.proving;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Works out, once per VC and before any proving, which theorems could ever be tried on it.
+ * <p>
+ * The {@link TheoremPrioritizer} never queues a theorem while one of its
+ * {@link TheoremCongruenceClosureImpl#getNonQuantifiedSymbols() non quantified symbols} is missing from the VC, and
+ * the only way for a symbol to enter a VC is for some theorem to insert it. So starting from the symbols of the VC,
+ * each round here admits the theorems all of whose symbols are known, then adds the symbols those theorems can
+ * insert ({@link TheoremCongruenceClosureImpl#getInsertedSymbols()}); theorems not admitted once no round admits
+ * anything new can never be tried and are dropped. Run to that fixed point this changes no proof, it only saves the
+ * prioritizer from carrying (and the prover from rescoring) theorems that would wait forever; a limit on the number
+ * of rounds prunes harder, at the cost of theorems that only become usable late in a proof.</p>
+ */
+final class TheoremRelevance {
+
+    /** No limit on the number of rounds: only theorems that can never be tried are dropped. */
+    static final int UNBOUNDED = -1;
+    /** No pruning at all: every theorem is kept, for checking that pruning isn't what stands in a proof's way. */
+    static final int OFF = -2;
+
+    private TheoremRelevance() {
+    }
+
+    /**
+     * Returns those of {@code theorems} that could be tried, within {@code maxRounds} applications of other theorems
+     * (or any number of them, if {@link #UNBOUNDED}), on a VC whose symbols are {@code vcSymbols}; all of them if
+     * {@code maxRounds} is {@link #OFF}. Theorems keep the order they had in {@code theorems}.
+     */
+    @NotNull
+    static List<TheoremCongruenceClosureImpl> relevantTo(@NotNull Set<String> vcSymbols,
+                                                         @NotNull List<TheoremCongruenceClosureImpl> theorems,
+                                                         int maxRounds) {
+        if (maxRounds == OFF) return new ArrayList<>(theorems);
+        Set<String> known = new HashSet<>(vcSymbols);
+        boolean[] admitted = new boolean[theorems.size()];
+        List<Integer> waiting = new ArrayList<>();
+        for (int i = 0; i < theorems.size(); i++) {
+            waiting.add(i);
+        }
+        for (int round = 0; (maxRounds < 0 || round <= maxRounds) && !waiting.isEmpty(); round++) {
+            List<Integer> admittedNow = new ArrayList<>();
+            for (Iterator<Integer> it = waiting.iterator(); it.hasNext(); ) {
+                int i = it.next();
+                if (known.containsAll(theorems.get(i).getNonQuantifiedSymbols())) {
+                    admitted[i] = true;
+                    admittedNow.add(i);
+                    it.remove();
+                }
+            }
+            int before = known.size();
+            for (int i : admittedNow) {
+                known.addAll(theorems.get(i).getInsertedSymbols());
+            }
+            if (known.size() == before) break; // nothing new to admit anything else with
+        }
+        List<TheoremCongruenceClosureImpl> result = new ArrayList<>();
+        for (int i = 0; i < theorems.size(); i++) {
+            if (admitted[i]) result.add(theorems.get(i));
+        }
+        return result;
+    }
+}
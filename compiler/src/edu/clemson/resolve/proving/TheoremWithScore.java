@@ -19,15 +19,30 @@ public class TheoremWithScore implements Comparable<TheoremWithScore> {
 
     TheoremCongruenceClosureImpl m_theorem;
     Integer m_score;
+    // position in the theorem list, breaks ties between equal scores
+    final int m_order;
+
+    // bookkeeping for TheoremPrioritizer
+    String[] m_containedSymbols;
+    int m_numNotContained;
+    int m_missingSymbols;
+    boolean m_dirty;
+    boolean m_removed;
 
     public TheoremWithScore(TheoremCongruenceClosureImpl t) {
+        this(t, 0);
+    }
+
+    public TheoremWithScore(TheoremCongruenceClosureImpl t, int order) {
         m_theorem = t;
         m_score = 1;
+        m_order = order;
     }
 
     @Override
     public int compareTo(TheoremWithScore o) {
-        return m_score - o.m_score;
+        int c = m_score - o.m_score;
+        return c != 0 ? c : Integer.compare(m_order, o.m_order);
     }
 
 }
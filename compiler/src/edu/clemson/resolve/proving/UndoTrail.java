@@ -0,0 +1,107 @@
+/**
+ * UndoTrail.java
+ * ---------------------------------
+ * Copyright (c) 2016
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.resolve.proving;
+
+import java.util.Arrays;
+
+/**
+ * A log of the destructive writes made to a VC's congruence closure (its {@link Registry}, its
+ * {@link ConjunctionOfNormalizedAtomicExpressions} and its goals), so that they can be undone back to an earlier
+ * {@link #checkpoint()}.
+ * <p>
+ * Nothing is recorded unless a checkpoint is open. Each entry is the old value of whatever was overwritten: an
+ * opcode meaningful to the component that wrote it, two ints and an optional object. Undoing hands these back to
+ * that component in reverse order.</p>
+ */
+class UndoTrail {
+
+    interface Undoable {
+        void undo(int kind, int a, int b, Object o);
+    }
+
+    private Undoable[] m_owners = new Undoable[256];
+    private int[] m_kinds = new int[256];
+    private int[] m_as = new int[256];
+    private int[] m_bs = new int[256];
+    private Object[] m_objs = new Object[256];
+    private int m_size = 0;
+
+    // trail size when each open checkpoint was taken; a checkpoint's mark is its index here
+    private int[] m_marks = new int[8];
+    private int m_depth = 0;
+
+    boolean isRecording() {
+        return m_depth > 0;
+    }
+
+    void record(Undoable owner, int kind, int a, int b, Object o) {
+        if (m_size == m_kinds.length) {
+            int capacity = m_size * 2;
+            m_owners = Arrays.copyOf(m_owners, capacity);
+            m_kinds = Arrays.copyOf(m_kinds, capacity);
+            m_as = Arrays.copyOf(m_as, capacity);
+            m_bs = Arrays.copyOf(m_bs, capacity);
+            m_objs = Arrays.copyOf(m_objs, capacity);
+        }
+        m_owners[m_size] = owner;
+        m_kinds[m_size] = kind;
+        m_as[m_size] = a;
+        m_bs[m_size] = b;
+        m_objs[m_size++] = o;
+    }
+
+    int checkpoint() {
+        if (m_depth == m_marks.length) {
+            m_marks = Arrays.copyOf(m_marks, m_depth * 2);
+        }
+        m_marks[m_depth] = m_size;
+        return m_depth++;
+    }
+
+    /** Undoes everything recorded since checkpoint {@code mark} was taken, closing it and any taken after it. */
+    void rollback(int mark) {
+        checkOpen(mark);
+        int to = m_marks[mark];
+        while (m_size > to) {
+            int i = --m_size;
+            m_owners[i].undo(m_kinds[i], m_as[i], m_bs[i], m_objs[i]);
+            m_owners[i] = null;
+            m_objs[i] = null;
+        }
+        m_depth = mark;
+    }
+
+    /**
+     * Closes checkpoint {@code mark} (and any taken after it) keeping its changes. They can still be undone by
+     * rolling back an enclosing checkpoint; with none left open the trail is emptied.
+     */
+    void commit(int mark) {
+        checkOpen(mark);
+        m_depth = mark;
+        if (m_depth == 0) {
+            Arrays.fill(m_owners, 0, m_size, null);
+            Arrays.fill(m_objs, 0, m_size, null);
+            m_size = 0;
+        }
+    }
+
+    int size() {
+        return m_size;
+    }
+
+    private void checkOpen(int mark) {
+        if (mark < 0 || mark >= m_depth) {
+            throw new IllegalArgumentException("no open checkpoint " + mark);
+        }
+    }
+}
@@ -23,6 +23,13 @@ public class VerificationConditionCongruenceClosureImpl {
     private final MathClssftn m_z;
     private final MathClssftn m_n;
     protected final Set<String> m_goal;
+    // bumped whenever m_goal changes, so theorems binding _g can tell whether their last match is still good
+    protected int m_goalChanges = 0;
+    private final Map<TheoremCongruenceClosureImpl, TheoremCongruenceClosureImpl.PerVCState> m_theoremStates =
+            new HashMap<>();
+    private final UndoTrail m_trail = new UndoTrail();
+    private final UndoTrail.Undoable m_undo = this::undo;
+    private static final int UNDO_ADD_GOAL = 0, UNDO_REMOVE_GOAL = 1;
 
     public static enum STATUS {
         FALSE_ASSUMPTION, STILL_EVALUATING, PROVED, UNPROVABLE, CANCELLED
@@ -40,6 +47,7 @@ public class VerificationConditionCongruenceClosureImpl {
         m_antecedent = g.formConjuncts(vc.getSequent().getLeftFormulas());
         m_consequent = g.formConjuncts(vc.getSequent().getRightFormulas());
         m_registry = new Registry(g);
+        m_registry.setUndoTrail(m_trail);
         m_z = z;
         m_n = n;
         m_conjunction =
@@ -54,51 +62,103 @@ public class VerificationConditionCongruenceClosureImpl {
             ants.remove(4);
         }*/
         addPExp(ants.iterator(), true);
+        addSeeds();
+    }
+
+    /**
+     * Builds the closure of {@code antecedents} alone, with no goals, for the VCs sharing those antecedents to
+     * {@link #fork} from; it is never proved itself.
+     */
+    VerificationConditionCongruenceClosureImpl(@NotNull DumbMathClssftnHandler g,
+                                               @NotNull List<PExp> antecedents,
+                                               MathClssftn z, MathClssftn n) {
+        m_typegraph = g;
+        m_name = "antecedents";
+        m_VC_string = "";
+        m_antecedent = g.formConjuncts(antecedents);
+        m_consequent = g.getTrueExp();
+        m_registry = new Registry(g);
+        m_registry.setUndoTrail(m_trail);
+        m_z = z;
+        m_n = n;
+        m_conjunction = new ConjunctionOfNormalizedAtomicExpressions(m_registry, this);
+        m_goal = new HashSet<String>();
+        addPExp(new ArrayList<>(m_antecedent.splitIntoConjuncts()).iterator(), true);
+        addSeeds();
+    }
+
+    private VerificationConditionCongruenceClosureImpl(@NotNull VerificationConditionCongruenceClosureImpl base,
+                                                       @NotNull VC vc) {
+        m_typegraph = base.m_typegraph;
+        m_name = Integer.toString(vc.getNumber());
+        m_VC_string = vc.toString();
+        m_antecedent = base.m_antecedent;
+        m_consequent = m_typegraph.formConjuncts(vc.getSequent().getRightFormulas());
+        m_registry = new Registry(base.m_registry);
+        m_registry.setUndoTrail(m_trail);
+        m_z = base.m_z;
+        m_n = base.m_n;
+        m_conjunction = new ConjunctionOfNormalizedAtomicExpressions(base.m_conjunction, m_registry, this);
+        m_goal = new HashSet<String>();
+        addPExp(m_consequent.splitIntoConjuncts().iterator(), false);
+    }
+
+    /**
+     * Returns the closure of {@code vc}, whose antecedents must be those this closure was built from: a copy of this
+     * one with {@code vc}'s goals added, which is much cheaper than closing the antecedents all over again. This
+     * closure is left as it was, so any number of VCs (on any number of threads) can fork from it.
+     */
+    @NotNull
+    VerificationConditionCongruenceClosureImpl fork(@NotNull VC vc) {
+        return new VerificationConditionCongruenceClosureImpl(this, vc);
+    }
 
+    // facts about the boolean operators every closure starts out with
+    private void addSeeds() {
+        PSymbol boolEqFuncName = new PSymbol.PSymbolBuilder("=B").mathClssfctn(m_typegraph.EQUALITY_FUNCTION).build();
         // seed with (true = false) = false
-        PSymbol boolEqFuncName = new PSymbol.PSymbolBuilder("=B").mathClssfctn(g.EQUALITY_FUNCTION).build();
         PApply trEqF = new PApply.PApplyBuilder(boolEqFuncName)
-                .arguments(g.getTrueExp(), g.getFalseExp())
-                .applicationType(g.BOOLEAN)
+                .arguments(m_typegraph.getTrueExp(), m_typegraph.getFalseExp())
+                .applicationType(m_typegraph.BOOLEAN)
                 .build();
         PApply trEqFEqF = new PApply.PApplyBuilder(boolEqFuncName)
-                .arguments(trEqF, g.getFalseExp())
-                .applicationType(g.BOOLEAN)
+                .arguments(trEqF, m_typegraph.getFalseExp())
+                .applicationType(m_typegraph.BOOLEAN)
                 .build();
         m_conjunction.addExpression(trEqFEqF);
 
-        PSymbol boolAndName = new PSymbol.PSymbolBuilder("andB").mathClssfctn(g.BOOLEAN_FUNCTION).build();
+        PSymbol boolAndName = new PSymbol.PSymbolBuilder("andB").mathClssfctn(m_typegraph.BOOLEAN_FUNCTION).build();
 
         // seed with (true and true) = true.  Need this for search: x and y, when x and y are both true
         PApply tandt = new PApply.PApplyBuilder(boolAndName)
-                .arguments(g.getTrueExp(), g.getTrueExp())
-                .applicationType(g.BOOLEAN)
+                .arguments(m_typegraph.getTrueExp(), m_typegraph.getTrueExp())
+                .applicationType(m_typegraph.BOOLEAN)
                 .build();
         PApply tandteqt = new PApply.PApplyBuilder(boolEqFuncName)
-                .arguments(tandt, g.getTrueExp())
-                .applicationType(g.BOOLEAN)
+                .arguments(tandt, m_typegraph.getTrueExp())
+                .applicationType(m_typegraph.BOOLEAN)
                 .build();
         m_conjunction.addExpression(tandteqt);
 
         // seed with (true and false) = false
         PApply tandf = new PApply.PApplyBuilder(boolAndName)
-                .arguments(g.getTrueExp(), g.getFalseExp())
-                .applicationType(g.BOOLEAN)
+                .arguments(m_typegraph.getTrueExp(), m_typegraph.getFalseExp())
+                .applicationType(m_typegraph.BOOLEAN)
                 .build();
         PApply tandfeqf = new PApply.PApplyBuilder(boolEqFuncName)
-                .arguments(tandf, g.getFalseExp())
-                .applicationType(g.BOOLEAN)
+                .arguments(tandf, m_typegraph.getFalseExp())
+                .applicationType(m_typegraph.BOOLEAN)
                 .build();
         m_conjunction.addExpression(tandfeqf);
 
         // seed with (false and false) = false
         PApply fandf = new PApply.PApplyBuilder(boolAndName)
-                .arguments(g.getFalseExp(), g.getFalseExp())
-                .applicationType(g.BOOLEAN)
+                .arguments(m_typegraph.getFalseExp(), m_typegraph.getFalseExp())
+                .applicationType(m_typegraph.BOOLEAN)
                 .build();
         PApply fandfeqf = new PApply.PApplyBuilder(boolEqFuncName)
-                .arguments(fandf, g.getFalseExp())
-                .applicationType(g.BOOLEAN)
+                .arguments(fandf, m_typegraph.getFalseExp())
+                .applicationType(m_typegraph.BOOLEAN)
                 .build();
         m_conjunction.addExpression(fandfeqf);
     }
@@ -111,6 +171,59 @@ public class VerificationConditionCongruenceClosureImpl {
         return m_registry;
     }
 
+    protected UndoTrail getUndoTrail() {
+        return m_trail;
+    }
+
+    /**
+     * Marks the current state of the congruence closure (symbols, classes, atoms and goals) so that it can later be
+     * restored with {@link #rollback(int)}, or kept with {@link #commit(int)}. Checkpoints nest; while any is open
+     * every change to the closure is logged, which costs a little on each merge.
+     *
+     * @return the mark identifying this checkpoint.
+     */
+    public int checkpoint() {
+        return m_trail.checkpoint();
+    }
+
+    /**
+     * Restores the closure to its state when checkpoint {@code mark} was taken, closing it along with every
+     * checkpoint taken after it. The matching state of theorems is thrown away, as it may refer to symbols or merges
+     * that no longer exist; theorems rediscover their bindings on their next application.
+     */
+    public void rollback(int mark) {
+        m_trail.rollback(mark);
+        m_theoremStates.clear();
+    }
+
+    /** Closes checkpoint {@code mark} (and those taken after it) keeping everything done since. */
+    public void commit(int mark) {
+        m_trail.commit(mark);
+    }
+
+    private void undo(int kind, int a, int b, Object o) {
+        switch (kind) {
+            case UNDO_ADD_GOAL:
+                m_goal.remove((String) o);
+                m_goalChanges++;
+                break;
+            case UNDO_REMOVE_GOAL:
+                m_goal.add((String) o);
+                m_goalChanges++;
+                break;
+        }
+    }
+
+    /** Returns (creating if needed) the matching state {@code t} keeps for this VC. */
+    protected TheoremCongruenceClosureImpl.PerVCState getTheoremState(TheoremCongruenceClosureImpl t) {
+        TheoremCongruenceClosureImpl.PerVCState result = m_theoremStates.get(t);
+        if (result == null) {
+            result = new TheoremCongruenceClosureImpl.PerVCState();
+            m_theoremStates.put(t, result);
+        }
+        return result;
+    }
+
     public STATUS isProved() {
         if (m_conjunction.m_evaluates_to_false) {
             return STATUS.FALSE_ASSUMPTION; // this doesn't mean P->Q = False, it just means P = false
@@ -148,6 +261,14 @@ public class VerificationConditionCongruenceClosureImpl {
         String r = m_registry.getRootSymbolForSymbol(a);
         if (m_goal.contains(r)) return;
         m_goal.add(r);
+        m_goalChanges++;
+        if (m_trail.isRecording()) m_trail.record(m_undo, UNDO_ADD_GOAL, 0, 0, r);
+    }
+
+    protected void removeGoal(String a) {
+        if (!m_goal.remove(a)) return;
+        m_goalChanges++;
+        if (m_trail.isRecording()) m_trail.record(m_undo, UNDO_REMOVE_GOAL, 0, 0, a);
     }
 
     @Override
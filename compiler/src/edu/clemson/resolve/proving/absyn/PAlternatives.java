@@ -174,25 +174,22 @@ public class PAlternatives extends PExp {
 
     @NotNull
     @Override
-    public PExp substitute(@NotNull Map<PExp, PExp> substitutions) {
-        PExp result;
-
-        if (substitutions.containsKey(this)) {
-            result = substitutions.get(this);
-        }
-        else {
-            List<PExp> substitutedConditions = new ArrayList<>();
-            List<PExp> substitutedResults = new ArrayList<>();
-            PExp substitutedOtherwiseResult = otherwiseClauseResult.substitute(substitutions);
-            for (Alternative alt : alternatives) {
-                substitutedConditions.add(alt.condition.substitute(substitutions));
-                substitutedResults.add(alt.result.substitute(substitutions));
-            }
-            result = new PAlternatives(substitutedConditions,
-                    substitutedResults, substitutedOtherwiseResult,
-                    getMathClssftn());
+    PExp substituteChildren(@NotNull Substitution s) {
+        List<PExp> substitutedConditions = new ArrayList<>();
+        List<PExp> substitutedResults = new ArrayList<>();
+        PExp substitutedOtherwiseResult = otherwiseClauseResult.substitute(s);
+        boolean changed = substitutedOtherwiseResult != otherwiseClauseResult;
+        for (Alternative alt : alternatives) {
+            PExp condition = alt.condition.substitute(s);
+            PExp result = alt.result.substitute(s);
+            changed |= condition != alt.condition || result != alt.result;
+            substitutedConditions.add(condition);
+            substitutedResults.add(result);
         }
-        return result;
+        if (!changed) return this;
+        return new PAlternatives(substitutedConditions,
+                substitutedResults, substitutedOtherwiseResult,
+                getMathClssftn());
     }
 
     @Override
@@ -8,7 +8,6 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static edu.clemson.resolve.misc.Utils.apply;
 
@@ -164,6 +163,10 @@ public class PApply extends PExp {
         return displayStyle;
     }
 
+    public boolean isBracketBasedApp() {
+        return isBracketBasedApp;
+    }
+
     @NotNull
     @Override
     public Quantification getQuantification() {
@@ -190,22 +193,21 @@ public class PApply extends PExp {
      */
     @NotNull
     @Override
-    public PExp substitute(@NotNull Map<PExp, PExp> substitutions) {
-        PExp result;
-        if (substitutions.containsKey(this)) {
-            result = substitutions.get(this);
-        }
-        else {
-            List<PExp> args = arguments.stream()
-                    .map(e -> e.substitute(substitutions))
-                    .collect(Collectors.toList());
-            result = new PApplyBuilder(functionPortion.substitute(substitutions))
-                    .style(displayStyle)
-                    .applicationType(getMathClssftn())
-                    .vcInfo(getVCLocation(), getVCExplanation())
-                    .arguments(args).build();
+    PExp substituteChildren(@NotNull Substitution s) {
+        PExp newFunctionPortion = functionPortion.substitute(s);
+        boolean changed = newFunctionPortion != functionPortion;
+        List<PExp> args = new ArrayList<>(arguments.size());
+        for (PExp arg : arguments) {
+            PExp newArg = arg.substitute(s);
+            changed |= newArg != arg;
+            args.add(newArg);
         }
-        return result;
+        if (!changed) return this;
+        return new PApplyBuilder(newFunctionPortion)
+                .style(displayStyle, isBracketBasedApp)
+                .applicationType(getMathClssftn())
+                .vcInfo(getVCLocation(), getVCExplanation())
+                .arguments(args).build();
     }
 
     @Override
@@ -400,6 +402,7 @@ public class PApply extends PExp {
      */
     @Override
     public boolean equals(Object o) {
+        if (o == this) return true;
         boolean result = (o instanceof PApply);
         if (result) {
             PApply oAsPApply = (PApply) o;
@@ -471,6 +474,7 @@ public class PApply extends PExp {
 
         //TODO: Bracket based app should have a left and right...
         protected boolean bracketApp = false;
+        protected PExpFactory factory;
 
         /**
          * Constructor for converting an existing function app back into a buildable format. This is useful
@@ -530,12 +534,25 @@ public class PApply extends PExp {
             return this;
         }
 
+        /**
+         * Builds through {@code f}, so {@link #build()} returns {@code f}'s canonical instance of the application
+         * (the function portion and arguments given needn't be canonical themselves).
+         */
+        public PApplyBuilder factory(@Nullable PExpFactory f) {
+            this.factory = f;
+            return this;
+        }
+
         @Override
         @NotNull
         public PApply build() {
             if (applicationType == null) {
                 throw new IllegalStateException("can't build PApply with mathAppClssfctn==null");
             }
+            if (factory != null) {
+                return factory.internApply(functionPortion, arguments, displayStyle, bracketApp, applicationType,
+                        vcLocation, vcExplanation, null);
+            }
             return new PApply(this);
         }
     }
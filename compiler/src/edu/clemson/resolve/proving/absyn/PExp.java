@@ -49,6 +49,8 @@ public abstract class PExp {
     private Set<PSymbol> cachedQuantifiedVariables = null;
     private Set<PSymbol> cachedFreeVariables = null;
     private Set<PSymbol> cachedIncomingVariables = null;
+    // 0 until computed; see getSymbolNameMask()
+    private volatile long cachedSymbolNameMask = 0;
 
     public PExp(@NotNull PSymbol.HashDuple hashes, @NotNull MathClssftn type) {
         this(hashes.structureHash, hashes.valueHash, type, null);
@@ -132,12 +134,12 @@ public abstract class PExp {
      */
     public boolean staysSameAfterSubstitution(Map<PExp, PExp> substitutions) {
         PExp thisSubstituted = substitute(substitutions);
-        return this.equals(thisSubstituted);
+        return thisSubstituted == this || this.equals(thisSubstituted);
     }
 
     public boolean staysSameAfterSubstitution(PExp current, PExp repl) {
         PExp thisSubstituted = substitute(current, repl);
-        return this.equals(thisSubstituted);
+        return thisSubstituted == this || this.equals(thisSubstituted);
     }
 
     @NotNull
@@ -173,14 +175,41 @@ public abstract class PExp {
 
     /**
      * Substitutes all occurences of the subexpressions matching those defined in {@code substitutions.keyset()} with
-     * the corresponding {@code PExp} defined by the map, returning a new (substituted) {@code PExp}.
+     * the corresponding {@code PExp} defined by the map, returning the substituted {@code PExp}.
+     * <p>
+     * Substitution preserves sharing: any subtree the substitution leaves alone comes back as the very same object,
+     * so {@code this} is returned if nothing matched. Subtrees that don't mention every symbol name of at least one
+     * key are skipped without being walked, and a subtree shared within {@code this} is only substituted once.</p>
      *
      * @param substitutions map like {@code existing PExp -> replacement PExp}
      *
-     * @return a, new, substituted expression
+     * @return a substituted expression, or {@code this} if nothing was substituted
      */
     @NotNull
-    public abstract PExp substitute(@NotNull Map<PExp, PExp> substitutions);
+    public final PExp substitute(@NotNull Map<PExp, PExp> substitutions) {
+        if (substitutions.isEmpty()) return this;
+        return substitute(new Substitution(substitutions));
+    }
+
+    @NotNull
+    final PExp substitute(@NotNull Substitution s) {
+        PExp result = s.done.get(this);
+        if (result == null) {
+            result = s.substitutions.get(this);
+            if (result == null) {
+                result = s.mightMatchWithin(this) ? substituteChildren(s) : this;
+            }
+            s.done.put(this, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of {@code this} with {@code s} applied to each of its subexpressions, or {@code this} itself if
+     * none of them changed.
+     */
+    @NotNull
+    abstract PExp substituteChildren(@NotNull Substitution s);
 
     /**
      * Returns {@code true} iff {@code this} contains a subexpression whose 'name' field matches {@code name};
@@ -393,6 +422,34 @@ public abstract class PExp {
 
     protected abstract Set<String> getSymbolNamesNoCache(boolean excludeApplications, boolean excludeLiterals);
 
+    /**
+     * A 64 bit summary of the names of every {@link PSymbol} appearing anywhere in this tree (bound, quantified and
+     * literal ones included): each name sets bit {@code name.hashCode() & 63}. If a subtree equal to {@code e}
+     * appears in {@code this}, then every bit of {@link Substitution#requiredNameMask(PExp)} for {@code e} is set
+     * here.
+     */
+    final long getSymbolNameMask() {
+        long result = cachedSymbolNameMask;
+        if (result == 0) {
+            //We're immutable, so only do this once
+            result = getSymbolNameMaskNoCache();
+            cachedSymbolNameMask = result;
+        }
+        return result;
+    }
+
+    long getSymbolNameMaskNoCache() {
+        long result = 0;
+        for (PExp e : getSubExpressions()) {
+            result |= e.getSymbolNameMask();
+        }
+        return result;
+    }
+
+    static long nameBit(@NotNull String name) {
+        return 1L << (name.hashCode() & 63);
+    }
+
     /**
      * Returns {@code true} iff this {@code PExp} and {@code o}, are equivalent with respect to structure and all
      * function and variable names; {@code false} otherwise.
@@ -421,6 +478,57 @@ public abstract class PExp {
         return render(35);
     }
 
+    /**
+     * The state of a single {@link #substitute(Map)} pass: the substitutions themselves, what has been substituted
+     * for each node visited so far (by identity), and, for each key, the names any subtree equal to it must contain.
+     */
+    static final class Substitution {
+        final Map<PExp, PExp> substitutions;
+        final Map<PExp, PExp> done = new IdentityHashMap<>();
+        private final long[] keyMasks;
+
+        Substitution(@NotNull Map<PExp, PExp> substitutions) {
+            this.substitutions = substitutions;
+            Set<Long> masks = new LinkedHashSet<>();
+            for (PExp key : substitutions.keySet()) {
+                masks.add(requiredNameMask(key));
+            }
+            keyMasks = new long[masks.size()];
+            int i = 0;
+            for (long mask : masks) {
+                keyMasks[i++] = mask;
+            }
+        }
+
+        /** {@code false} only if no key of the substitution can be equal to {@code e} or any subtree of it. */
+        boolean mightMatchWithin(@NotNull PExp e) {
+            long names = e.getSymbolNameMask();
+            for (long required : keyMasks) {
+                if ((required & ~names) == 0) return true;
+            }
+            return false;
+        }
+
+        /**
+         * The names of the symbols an expression must contain to be equal to {@code key}. Only symbols and
+         * applications compare their names exactly in {@code equals}, so only those (reached through applications
+         * alone) count; a key of any other kind requires nothing, and is looked for everywhere.
+         */
+        static long requiredNameMask(@NotNull PExp key) {
+            if (key instanceof PSymbol) {
+                return nameBit(((PSymbol) key).getName());
+            }
+            if (key instanceof PApply) {
+                long result = requiredNameMask(((PApply) key).getFunctionPortion());
+                for (PExp arg : ((PApply) key).getArguments()) {
+                    result |= requiredNameMask(arg);
+                }
+                return result;
+            }
+            return 0;
+        }
+    }
+
     /** A util container for storing node structural and value hashcodes. */
     public static class HashDuple {
         public int structureHash;
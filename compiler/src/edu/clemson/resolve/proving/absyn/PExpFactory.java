@@ -0,0 +1,198 @@
+package edu.clemson.resolve.proving.absyn;
+
+import org.antlr.v4.runtime.Token;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import edu.clemson.resolve.semantics.MathClssftn;
+import edu.clemson.resolve.semantics.Quantification;
+import edu.clemson.resolve.semantics.programtype.ProgType;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A hash-consing factory for {@link PSymbol}s and {@link PApply}s: it hands back one canonical instance for each
+ * expression it is asked for, so expressions built through the same factory share their common subtrees. Two of them
+ * that are the same object are of course {@link PExp#equals(Object)}, but not the other way around (see below), so
+ * nothing should compare them by identity in place of {@code equals}; identity is only a shortcut.
+ * <p>
+ * Interning is opt in. Expressions are built through a factory by handing it to
+ * {@link PSymbol.PSymbolBuilder#factory(PExpFactory)} or {@link PApply.PApplyBuilder#factory(PExpFactory)}, in which
+ * case {@code build()} only allocates a node the first time it is asked for it; {@link #intern(PExp)} canonicalizes
+ * a tree that was built some other way.</p>
+ * <p>
+ * Two expressions share an instance only if they agree on <em>everything</em> the builders take (classifications,
+ * program types and vc info included, with these compared by identity), not just on what {@code equals} looks at; so
+ * swapping an expression for its canonical instance never changes what anyone can observe about it, while a universally
+ * quantified {@code x} and a free one, say, are equal yet interned separately. Other kinds of {@code PExp} (lambdas,
+ * sets, alternatives, and so on) aren't interned, but expressions inside of them are left as they are and any
+ * {@code PApply} over them is still interned against the identity of its arguments.</p>
+ * <p>
+ * A factory holds on to everything it has interned, so it should live no longer than the expressions it makes (one
+ * per vc output file, or per prover run, say). It is safe to use from more than one thread.</p>
+ */
+public class PExpFactory {
+
+    private final Map<Object, PExp> canonical = new ConcurrentHashMap<>();
+
+    /** Returns the canonical instance of {@code e}, interning {@code e} and its subtrees as needed. */
+    @NotNull
+    public PExp intern(@NotNull PExp e) {
+        if (e instanceof PSymbol) {
+            return internSymbol(new PSymbol.PSymbolBuilder((PSymbol) e), (PSymbol) e);
+        }
+        if (e instanceof PApply) {
+            PApply a = (PApply) e;
+            return internApply(a.getFunctionPortion(), a.getArguments(), a.getDisplayStyle(), a.isBracketBasedApp(),
+                    a.getMathClssftn(), a.getVCLocation(), a.getVCExplanation(), a);
+        }
+        return e;
+    }
+
+    /** The number of distinct expressions interned so far. */
+    public int size() {
+        return canonical.size();
+    }
+
+    /**
+     * The canonical instance of the symbol {@code b} describes; {@code existing}, if non-{@code null}, is a symbol
+     * {@code b} describes and is kept rather than building another.
+     */
+    @NotNull
+    PSymbol internSymbol(@NotNull PSymbol.PSymbolBuilder b, @Nullable PSymbol existing) {
+        SymbolKey key = new SymbolKey(b);
+        PExp result = canonical.get(key);
+        if (result == null) {
+            PSymbol built = existing != null ? existing : b.buildUninterned();
+            result = canonical.putIfAbsent(key, built);
+            if (result == null) result = built;
+        }
+        return (PSymbol) result;
+    }
+
+    /**
+     * The canonical instance of an application, interning its function portion and arguments first;
+     * {@code existing} is as for symbols, but is only kept if its parts turn out to be canonical already.
+     */
+    @NotNull
+    PApply internApply(@NotNull PExp functionPortion, @NotNull List<PExp> arguments,
+                       @NotNull PApply.DisplayStyle style, boolean bracketApp, @NotNull MathClssftn type,
+                       @Nullable Token vcLocation, @Nullable String vcExplanation, @Nullable PApply existing) {
+        PExp f = intern(functionPortion);
+        boolean unchanged = f == functionPortion;
+        PExp[] args = new PExp[arguments.size()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = intern(arguments.get(i));
+            unchanged &= args[i] == arguments.get(i);
+        }
+        ApplyKey key = new ApplyKey(f, args, type, style, bracketApp, vcLocation, vcExplanation);
+        PExp result = canonical.get(key);
+        if (result == null) {
+            PApply built = existing != null && unchanged ? existing :
+                    new PApply.PApplyBuilder(f)
+                            .style(style, bracketApp)
+                            .applicationType(type)
+                            .vcInfo(vcLocation, vcExplanation)
+                            .arguments(args)
+                            .build();
+            result = canonical.putIfAbsent(key, built);
+            if (result == null) result = built;
+        }
+        return (PApply) result;
+    }
+
+    private static boolean same(@Nullable Object a, @Nullable Object b) {
+        return a == b;
+    }
+
+    private static final class SymbolKey {
+        private final String name, qualifier, lprint, rprint;
+        private final boolean literal, incoming;
+        private final Quantification quantification;
+        private final MathClssftn mathType;
+        private final ProgType progType;
+        private final Token vcLocation;
+        private final String vcExplanation;
+        private final int hash;
+
+        SymbolKey(PSymbol.PSymbolBuilder b) {
+            name = b.name;
+            qualifier = b.qualifier;
+            lprint = b.lprint;
+            rprint = b.rprint;
+            literal = b.literal;
+            incoming = b.incoming;
+            quantification = b.quantification;
+            mathType = b.mathType;
+            progType = b.progType;
+            vcLocation = b.vcLocation;
+            vcExplanation = b.vcExplanation;
+            hash = Objects.hash(name, qualifier, literal, incoming, quantification,
+                    System.identityHashCode(mathType), System.identityHashCode(vcLocation));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SymbolKey)) return false;
+            SymbolKey k = (SymbolKey) o;
+            return hash == k.hash && Objects.equals(name, k.name) && Objects.equals(qualifier, k.qualifier)
+                    && Objects.equals(lprint, k.lprint) && Objects.equals(rprint, k.rprint)
+                    && literal == k.literal && incoming == k.incoming && quantification == k.quantification
+                    && same(mathType, k.mathType) && same(progType, k.progType)
+                    && same(vcLocation, k.vcLocation) && Objects.equals(vcExplanation, k.vcExplanation);
+        }
+    }
+
+    private static final class ApplyKey {
+        private final PExp functionPortion;
+        private final PExp[] arguments;
+        private final MathClssftn applicationType;
+        private final PApply.DisplayStyle displayStyle;
+        private final boolean bracketApp;
+        private final Token vcLocation;
+        private final String vcExplanation;
+        private final int hash;
+
+        ApplyKey(PExp functionPortion, PExp[] arguments, MathClssftn applicationType,
+                 PApply.DisplayStyle displayStyle, boolean bracketApp, Token vcLocation, String vcExplanation) {
+            this.functionPortion = functionPortion;
+            this.arguments = arguments;
+            this.applicationType = applicationType;
+            this.displayStyle = displayStyle;
+            this.bracketApp = bracketApp;
+            this.vcLocation = vcLocation;
+            this.vcExplanation = vcExplanation;
+            int h = System.identityHashCode(functionPortion);
+            for (PExp arg : arguments) {
+                h = 31 * h + System.identityHashCode(arg);
+            }
+            hash = 31 * h + Objects.hash(displayStyle, bracketApp, System.identityHashCode(applicationType),
+                    System.identityHashCode(vcLocation));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ApplyKey)) return false;
+            ApplyKey k = (ApplyKey) o;
+            if (hash != k.hash || functionPortion != k.functionPortion || arguments.length != k.arguments.length) {
+                return false;
+            }
+            for (int i = 0; i < arguments.length; i++) {
+                if (arguments[i] != k.arguments[i]) return false;
+            }
+            return same(applicationType, k.applicationType) && displayStyle == k.displayStyle
+                    && bracketApp == k.bracketApp && same(vcLocation, k.vcLocation)
+                    && Objects.equals(vcExplanation, k.vcExplanation);
+        }
+    }
+}
@@ -63,16 +63,10 @@ public class PLambda extends PExp {
 
     @NotNull
     @Override
-    public PExp substitute(@NotNull Map<PExp, PExp> substitutions) {
-        PExp result;
-        if (substitutions.containsKey(this)) {
-            result = substitutions.get(this);
-        }
-        else {
-            result = new PLambda(parameters, body.substitute(substitutions),
-                    getVCLocation(), getVCExplanation());
-        }
-        return result;
+    PExp substituteChildren(@NotNull Substitution s) {
+        PExp newBody = body.substitute(s);
+        if (newBody == body) return this;
+        return new PLambda(parameters, newBody, getVCLocation(), getVCExplanation());
     }
 
     @Override
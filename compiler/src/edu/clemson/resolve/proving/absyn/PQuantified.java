@@ -65,8 +65,10 @@ public class PQuantified extends PExp {
 
     @NotNull
     @Override
-    public PExp substitute(@NotNull Map<PExp, PExp> substitutions) {
-        return new PQuantified(assertion.substitute(substitutions), quantificationType, declaredSymbols,
+    PExp substituteChildren(@NotNull Substitution s) {
+        PExp newAssertion = assertion.substitute(s);
+        if (newAssertion == assertion) return this;
+        return new PQuantified(newAssertion, quantificationType, declaredSymbols,
                 getVCLocation(), getVCExplanation());
     }
 
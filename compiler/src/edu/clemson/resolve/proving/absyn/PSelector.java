@@ -46,16 +46,11 @@ public class PSelector extends PExp {
 
     @NotNull
     @Override
-    public PExp substitute(@NotNull Map<PExp, PExp> substitutions) {
-        PExp result;
-        if (substitutions.containsKey(this)) {
-            result = substitutions.get(this);
-        }
-        else {
-            result = new PSelector(left.substitute(substitutions), right.substitute(substitutions),
-                    getVCLocation(), getVCExplanation());
-        }
-        return result;
+    PExp substituteChildren(@NotNull Substitution s) {
+        PExp newLeft = left.substitute(s);
+        PExp newRight = right.substitute(s);
+        if (newLeft == left && newRight == right) return this;
+        return new PSelector(newLeft, newRight, getVCLocation(), getVCExplanation());
     }
 
     @NotNull
@@ -48,9 +48,16 @@ public class PSet extends PExp {
 
     @NotNull
     @Override
-    public PExp substitute(@NotNull Map<PExp, PExp> substitutions) {
-        return new PSet(getMathClssftn(), Utils.apply(elements, u -> u.substitute(substitutions)),
-                getVCLocation(), getVCExplanation());
+    PExp substituteChildren(@NotNull Substitution s) {
+        List<PExp> newElements = new ArrayList<>(elements.size());
+        boolean changed = false;
+        for (PExp e : elements) {
+            PExp newElement = e.substitute(s);
+            changed |= newElement != e;
+            newElements.add(newElement);
+        }
+        if (!changed) return this;
+        return new PSet(getMathClssftn(), newElements, getVCLocation(), getVCExplanation());
     }
 
     @Override
@@ -109,13 +109,13 @@ public class PSymbol extends PExp {
 
     @NotNull
     @Override
-    public PExp substitute(@NotNull Map<PExp, PExp> substitutions) {
-        PExp result = substitutions.get(this);
-        if (result == null) {
-            String newLeft = leftPrint, newRight = rightPrint;
-            result = new PSymbolBuilder(this).build();
-        }
-        return result;
+    PExp substituteChildren(@NotNull Substitution s) {
+        return this;
+    }
+
+    @Override
+    long getSymbolNameMaskNoCache() {
+        return nameBit(name);
     }
 
     public boolean isLiteralTrue() {
@@ -243,6 +243,7 @@ public class PSymbol extends PExp {
 
     @Override
     public boolean equals(Object o) {
+        if (o == this) return true;
         boolean result = (o instanceof PSymbol);
         if (result) {
             PSymbol oAsPSymbol = (PSymbol) o;
@@ -284,6 +285,7 @@ public class PSymbol extends PExp {
         protected ProgType progType, progTypeValue;
         protected Token vcLocation;
         protected String vcExplanation;
+        protected PExpFactory factory;
 
         public PSymbolBuilder(PSymbol existingPSymbol) {
             this.name = existingPSymbol.getName();
@@ -386,13 +388,23 @@ public class PSymbol extends PExp {
             return this;
         }
 
+        /** Builds through {@code f}, so {@link #build()} returns {@code f}'s canonical instance of the symbol. */
+        public PSymbolBuilder factory(@Nullable PExpFactory f) {
+            this.factory = f;
+            return this;
+        }
+
         @Override
         @NotNull
         public PSymbol build() {
             if (this.mathType == null) {
                 throw new IllegalStateException("mathtype == null; cannot build PExp with null mathtype");
             }
-            //System.out.println("building PSymbol name="+name+",quantification="+quantification);
+            return factory != null ? factory.internSymbol(this, null) : new PSymbol(this);
+        }
+
+        @NotNull
+        PSymbol buildUninterned() {
             return new PSymbol(this);
         }
     }
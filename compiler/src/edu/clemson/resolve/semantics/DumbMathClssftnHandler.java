@@ -88,6 +88,24 @@ public class DumbMathClssftnHandler {
         }
     }
 
+    private int nextClssftnId = 0;
+
+    /**
+     * Returns a small integer identifying {@code c} (by identity, not {@code equals}), handed out in the order
+     * classifications are first asked about. Lets callers keep facts about classifications in arrays and bitsets
+     * rather than in maps keyed on their (expensive to build) {@code toString()}.
+     */
+    public int idOf(@NotNull MathClssftn c) {
+        int id = c.denseId;
+        if (id < 0) {
+            synchronized (this) {
+                if (c.denseId < 0) c.denseId = nextClssftnId++;
+                id = c.denseId;
+            }
+        }
+        return id;
+    }
+
     public final Map<MathClssftn, List<MathClssftn>> relationships = new HashMap<>();
     public void addRelationship(MathClssftn s, MathClssftn t) {
         if (relationships.get(s) == null) {
@@ -19,6 +19,9 @@ public abstract class MathClssftn {
      */
     public boolean identifiesSchematicType = false;
 
+    // assigned by DumbMathClssftnHandler.idOf, -1 until then
+    volatile int denseId = -1;
+
     public MathClssftn(@NotNull DumbMathClssftnHandler g,
                        @Nullable MathClssftn enclosingClassification) {
         this.g = g;
@@ -1,6 +1,7 @@
 package edu.clemson.resolve.semantics;
 
 import edu.clemson.resolve.compiler.AnnotatedModule;
+import edu.clemson.resolve.proving.TheoremLibrary;
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeProperty;
@@ -15,6 +16,9 @@ import edu.clemson.resolve.semantics.symbol.MathClssftnWrappingSymbol;
 import edu.clemson.resolve.semantics.symbol.Symbol;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
 
 public class MathSymbolTable {
 
@@ -119,6 +123,11 @@ public class MathSymbolTable {
     @NotNull
     private final DumbMathClssftnHandler typeGraph;
 
+    /** The theorems of each module as compiled for the prover, built on first use. */
+    @NotNull
+    private final ConcurrentMap<ModuleIdentifier, Future<TheoremLibrary>> theoremLibraries =
+            new ConcurrentHashMap<>();
+
     public MathSymbolTable() {
         this.typeGraph = new DumbMathClssftnHandler();
 
@@ -189,6 +198,11 @@ public class MathSymbolTable {
         return typeGraph;
     }
 
+    @NotNull
+    public ConcurrentMap<ModuleIdentifier, Future<TheoremLibrary>> getTheoremLibraries() {
+        return theoremLibraries;
+    }
+
     @NotNull
     public ModuleScopeBuilder startModuleScope(@NotNull AnnotatedModule module) {
         if (curModuleScope != null) {
@@ -202,6 +216,8 @@ public class MathSymbolTable {
         curModuleScope = s;
         addScope(s, parent);
         moduleScopes.put(s.getModuleIdentifier(), s);
+        //the module's theorems are about to be defined anew, so anything compiled from the old ones is stale
+        theoremLibraries.remove(s.getModuleIdentifier());
         return s;
     }
 
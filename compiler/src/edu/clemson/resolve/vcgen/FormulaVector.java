@@ -0,0 +1,93 @@
+package edu.clemson.resolve.vcgen;
+
+import edu.clemson.resolve.proving.absyn.PExp;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * An immutable list of formulas, one side of a {@link ListBackedSequent}. Appending is amortized {@code O(1)} and
+ * shares structure: vectors made by appending to the same one share its backing array, the first of them writing into
+ * the spare room at the end and only the others copying. Its {@link #hashCode()} is the usual {@link List} one, but is
+ * kept up to date as formulas are appended rather than worked out when asked for.
+ */
+final class FormulaVector extends AbstractList<PExp> implements RandomAccess {
+
+    static final FormulaVector EMPTY = new FormulaVector(new Buffer(new PExp[0], 0), 0, 1);
+
+    /** A backing array, along with how much of it some vector has claimed. */
+    private static final class Buffer {
+        final PExp[] items;
+        int used;
+
+        Buffer(PExp[] items, int used) {
+            this.items = items;
+            this.used = used;
+        }
+    }
+
+    private final Buffer buffer;
+    private final int size;
+    private final int hash;
+
+    private FormulaVector(Buffer buffer, int size, int hash) {
+        this.buffer = buffer;
+        this.size = size;
+        this.hash = hash;
+    }
+
+    @NotNull
+    static FormulaVector of(@NotNull Collection<PExp> formulas) {
+        if (formulas instanceof FormulaVector) return (FormulaVector) formulas;
+        if (formulas.isEmpty()) return EMPTY;
+        PExp[] items = formulas.toArray(new PExp[formulas.size()]);
+        int hash = 1;
+        for (PExp e : items) {
+            hash = 31 * hash + Objects.hashCode(e);
+        }
+        return new FormulaVector(new Buffer(items, items.length), items.length, hash);
+    }
+
+    /** This with {@code formula} added to the end. */
+    @NotNull
+    FormulaVector append(@NotNull PExp formula) {
+        int newHash = 31 * hash + formula.hashCode();
+        synchronized (buffer) {
+            if (buffer.used == size && size < buffer.items.length) {
+                buffer.items[size] = formula; // nobody has claimed this slot yet, so nobody can see it change
+                buffer.used++;
+                return new FormulaVector(buffer, size + 1, newHash);
+            }
+        }
+        PExp[] items = Arrays.copyOf(buffer.items, Math.max(4, size + (size >> 1) + 1));
+        items[size] = formula;
+        return new FormulaVector(new Buffer(items, size + 1), size + 1, newHash);
+    }
+
+    @Override
+    public PExp get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        return buffer.items[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (o instanceof FormulaVector) {
+            FormulaVector v = (FormulaVector) o;
+            if (v.hash != hash || v.size != size) return false;
+            if (v.buffer == buffer) return true; // the same prefix of the same array
+        }
+        return super.equals(o);
+    }
+}
@@ -5,12 +5,18 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
 
+/**
+ * A sequent whose sides are immutable {@link FormulaVector}s, so sequents made from one another share their formulas
+ * rather than copying them, their sides can be handed out as they are, and their hash is worked out once, from the
+ * formulas themselves, when they're made.
+ */
 public class ListBackedSequent implements Sequent {
 
     public static final Sequent EMPTY_SEQUENT = new ListBackedSequent();
 
-    private final List<PExp> left = new LinkedList<>();
-    private final List<PExp> right = new LinkedList<>();
+    private final FormulaVector left;
+    private final FormulaVector right;
+    private final int hash;
 
     private ListBackedSequent() {
         this(Collections.emptyList(), Collections.emptyList());
@@ -22,36 +28,37 @@ public class ListBackedSequent implements Sequent {
     }
 
     public ListBackedSequent(List<PExp> left, List<PExp> right) {
-        this.left.addAll(left);
-        this.right.addAll(right);
+        this(FormulaVector.of(left), FormulaVector.of(right));
+    }
+
+    private ListBackedSequent(FormulaVector left, FormulaVector right) {
+        this.left = left;
+        this.right = right;
+        this.hash = 31 * left.hashCode() + right.hashCode();
     }
 
     @NotNull
     @Override
     public List<PExp> getLeftFormulas() {
-        return Collections.unmodifiableList(new LinkedList<>(left));
+        return left;
     }
 
     @NotNull
     @Override
     public Collection<PExp> getRightFormulas() {
-        return Collections.unmodifiableList(new LinkedList<>(right));
+        return right;
     }
 
     @NotNull
     @Override
     public Sequent addRight(@NotNull PExp formula) {
-        List<PExp> newRightFormulas = new LinkedList<>(left);
-        newRightFormulas.add(formula);
-        return new ListBackedSequent(getLeftFormulas(), newRightFormulas);
+        return new ListBackedSequent(left, right.append(formula));
     }
 
     @NotNull
     @Override
     public Sequent addLeft(@NotNull PExp formula) {
-        List<PExp> newLeftFormulas = new LinkedList<>(left);
-        newLeftFormulas.add(formula);
-        return new ListBackedSequent(newLeftFormulas, right);
+        return new ListBackedSequent(left.append(formula), right);
     }
 
     @Override
@@ -64,7 +71,7 @@ public class ListBackedSequent implements Sequent {
 
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        return hash;
     }
 
     @Override
@@ -100,22 +107,8 @@ public class ListBackedSequent implements Sequent {
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null) return false;
         if (!(o instanceof ListBackedSequent)) return false;
-        //if contents (and length of left and right sides are the same)
-        boolean leftEqual = sideEqual(left, ((ListBackedSequent) o).left);
-        boolean rightEqual = sideEqual(right, ((ListBackedSequent) o).right);
-        return leftEqual && rightEqual;
-    }
-
-    private boolean sideEqual(List<PExp> l1, List<PExp> l2) {
-        boolean retval = true;
-        Iterator<PExp> l1Iter = l1.iterator();
-        Iterator<PExp> l2Iter = l2.iterator();
-        while (retval && l1Iter.hasNext() && l2Iter.hasNext()) {
-            retval = l1Iter.next().equals(l2Iter.next());
-        }
-        return retval && !(l1Iter.hasNext() || l2Iter.hasNext());
+        ListBackedSequent other = (ListBackedSequent) o;
+        return hash == other.hash && left.equals(other.left) && right.equals(other.right);
     }
-
 }
@@ -1,10 +1,15 @@
 package edu.clemson.resolve.vcgen;
 
+/**
+ * One step in the derivation of an assertive block's vcs: the block as it stood after applying some rule. The block
+ * is only rendered when the step is, as most derivations are never looked at.
+ */
 public class RuleApplicationStep {
 
-    private final String step, description;
+    private final VCAssertiveBlock step;
+    private final String description;
 
-    public RuleApplicationStep(String step, String description) {
+    public RuleApplicationStep(VCAssertiveBlock step, String description) {
         this.step = step;
         this.description = description;
     }
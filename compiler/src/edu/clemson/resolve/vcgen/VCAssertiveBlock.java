@@ -18,19 +18,21 @@ public class VCAssertiveBlock {
     private final String blockDescription;
     private final VCConfirm finalConfirm;
 
-    private final List<RuleApplicationStep> applicationSteps = new ArrayList<>();
-    private final List<String> stats = new ArrayList<>();
-
-    private VCAssertiveBlock(VCAssertiveBlockBuilder builder) {
+    private final List<RuleApplicationStep> applicationSteps;
+    private final List<VCRuleBackedStat> stats;
+
+    /**
+     * @param built whether this is the outcome of {@link VCAssertiveBlockBuilder#build()}, as opposed to a
+     *              {@link VCAssertiveBlockBuilder#snapshot()}; only the former carries the derivation steps.
+     */
+    private VCAssertiveBlock(VCAssertiveBlockBuilder builder, boolean built) {
         this.definingTree = builder.definingTree;
         this.finalConfirm = builder.finalConfirm;
         this.blockDescription = builder.description;
 
-        this.applicationSteps.addAll(builder.applicationSteps);
-        for (VCRuleBackedStat s : builder.stats) {
-            this.stats.add(s.toString());
-        }
-        //this.stats.addAll(stats);
+        this.applicationSteps = built ? new ArrayList<>(builder.applicationSteps) : Collections.emptyList();
+        //stats are immutable, so they're only turned into text if and when this is
+        this.stats = built || builder.recordSteps ? new ArrayList<>(builder.stats) : Collections.emptyList();
     }
 
     public String getDescription() {
@@ -57,13 +59,12 @@ public class VCAssertiveBlock {
     //Assertive block is a bunch of statements with a final confirm...
     @Override
     public String toString() {
-        String result = "";
-        for (String s : stats) {
-            //for (VCRuleBackedState s : stats) {
-            result += s + "\n";
+        StringBuilder result = new StringBuilder();
+        for (VCRuleBackedStat s : stats) {
+            result.append(s).append("\n");
         }
-        result += finalConfirm.toString();
-        return result;
+        result.append(finalConfirm);
+        return result.toString();
     }
 
     public static class VCAssertiveBlockBuilder implements Utils.Builder<List<VCAssertiveBlock>> {
@@ -76,6 +77,13 @@ public class VCAssertiveBlock {
         public final Map<String, Map<PExp, PExp>> facilitySpecializations = new HashMap<>();
         public final List<RuleApplicationStep> applicationSteps = new ArrayList<>();
 
+        /**
+         * Whether {@link #applicationSteps} are kept. They are only needed to show how the vcs were derived, and
+         * with them each rule application keeps a snapshot of the whole block, so they're worth leaving out when
+         * nobody will look.
+         */
+        boolean recordSteps = true;
+
         protected final LinkedList<VCRuleBackedStat> stats = new LinkedList<>();
         protected final String description;
 
@@ -116,11 +124,31 @@ public class VCAssertiveBlock {
                 this.stats.add(s.copyWithEnclosingBlock(this));
             }
             this.applicationSteps.addAll(o.applicationSteps);
-            this.facilitySpecializations.putAll(o.facilitySpecializations);
+            facilitySpecializations(o.facilitySpecializations);
+            this.recordSteps = o.recordSteps;
+        }
+
+        public VCAssertiveBlockBuilder recordSteps(boolean record) {
+            this.recordSteps = record;
+            return this;
+        }
+
+        /** Records that {@code description} led to {@code after}, if steps are being recorded. */
+        public VCAssertiveBlockBuilder step(VCAssertiveBlock after, String description) {
+            if (recordSteps) {
+                applicationSteps.add(new RuleApplicationStep(after, description));
+            }
+            return this;
         }
 
+        /**
+         * Adds a copy of {@code mappings}, inner maps included, so that the block doesn't see facilities declared
+         * after it was made (or share a map with a block being built on another thread).
+         */
         public VCAssertiveBlockBuilder facilitySpecializations(Map<String, Map<PExp, PExp>> mappings) {
-            facilitySpecializations.putAll(mappings);
+            for (Map.Entry<String, Map<PExp, PExp>> e : mappings.entrySet()) {
+                facilitySpecializations.put(e.getKey(), new HashMap<>(e.getValue()));
+            }
             return this;
         }
 
@@ -196,10 +224,11 @@ public class VCAssertiveBlock {
 
         /**
          * Same as {@link #build()}, but this one doesn't automatically apply proof rules to the stats within this
-         * block.
+         * block. A snapshot is just for showing a derivation step, so it has no steps of its own, and if steps aren't
+         * being recorded it doesn't keep the stats either.
          */
         public VCAssertiveBlock snapshot() {
-            return new VCAssertiveBlock(this);
+            return new VCAssertiveBlock(this, false);
         }
 
         /**
@@ -225,15 +254,13 @@ public class VCAssertiveBlock {
 
         private VCAssertiveBlock applyRules(Deque<VCAssertiveBlockBuilder> branchAccumulator) {
             if (this.applicationSteps.isEmpty()) {
-                applicationSteps.add(new RuleApplicationStep(this.snapshot().toString(), "Start"));
+                step(this.snapshot(), "Start");
             }
             while (!stats.isEmpty()) {
                 VCRuleBackedStat currentStat = stats.removeLast();
-                applicationSteps.add(new RuleApplicationStep(
-                        currentStat.applyBackingRule(branchAccumulator).toString(),
-                        currentStat.getApplicationDescription()));
+                step(currentStat.applyBackingRule(branchAccumulator), currentStat.getApplicationDescription());
             }
-            return new VCAssertiveBlock(this);
+            return new VCAssertiveBlock(this, true);
         }
     }
 
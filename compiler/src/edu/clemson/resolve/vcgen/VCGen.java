@@ -33,6 +33,9 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -62,18 +65,79 @@ public class VCGen extends ResolveBaseListener {
     private ProgReprTypeSymbol currentTypeReprSym = null;
     private final RESOLVECompiler compiler;
 
+    /**
+     * Where the proof rules of each assertive block are applied if {@code -vcgenThreads} allows more than one thread,
+     * and the blocks submitted there, in source order, whose vcs have not yet made it into {@link #outputFile}.
+     */
+    @Nullable
+    private final ForkJoinPool pool;
+    private final Deque<Future<List<VCAssertiveBlock>>> pendingBlocks = new ArrayDeque<>();
+
+    /** Whether anyone will see how the vcs were derived: they're printed with {@code -vcs}, or without {@code -prove}. */
+    private final boolean recordDerivations;
+
     public VCGen(RESOLVECompiler compiler, AnnotatedModule module) {
+        this(compiler, module, null);
+    }
+
+    /** A VC generator that also hands each VC to {@code sink} as soon as the assertive block it comes from is done. */
+    public VCGen(RESOLVECompiler compiler, AnnotatedModule module, @Nullable VCQueue sink) {
         this.symtab = compiler.symbolTable;
         this.tr = module;
         this.g = symtab.getTypeGraph();
-        this.outputFile = new VCOutputFile(compiler);
+        this.outputFile = new VCOutputFile(compiler, sink);
         this.compiler = compiler;
+        int threads = compiler.vcgenThreads != null ? Math.max(1, Integer.parseInt(compiler.vcgenThreads)) : 1;
+        this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        this.recordDerivations = compiler.vcs || !compiler.prove;
     }
 
     public VCOutputFile getOutputFile() {
         return outputFile;
     }
 
+    /**
+     * Applies the proof rules of {@code block} and adds the resulting vcs to the output file. Each block is built
+     * independently of the others, so with a {@link #pool} this only submits the block, and its vcs are added once
+     * it and every block before it are done; that way vcs are numbered in source order no matter which block
+     * finishes first.
+     */
+    private void addBlock(@NotNull VCAssertiveBlockBuilder block) {
+        block.recordSteps(recordDerivations);
+        if (pool == null) {
+            outputFile.addAssertiveBlocks(block.build());
+            return;
+        }
+        pendingBlocks.add(pool.submit(block::build));
+        while (!pendingBlocks.isEmpty() && pendingBlocks.peek().isDone()) {
+            outputFile.addAssertiveBlocks(awaitBlocks(pendingBlocks.poll()));
+        }
+    }
+
+    private List<VCAssertiveBlock> awaitBlocks(Future<List<VCAssertiveBlock>> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while generating vcs", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Override
+    public void exitModuleDecl(ResolveParser.ModuleDeclContext ctx) {
+        if (pool == null) return;
+        try {
+            while (!pendingBlocks.isEmpty()) {
+                outputFile.addAssertiveBlocks(awaitBlocks(pendingBlocks.poll()));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
     @Override
     public void enterModuleDecl(ResolveParser.ModuleDeclContext ctx) {
         try {
@@ -115,7 +179,7 @@ public class VCGen extends ResolveBaseListener {
         List<PExp> correspondencePieces = correspondence.splitIntoConjuncts();
         well_def_corr_hyp_block.assume(correspondencePieces);
         well_def_corr_hyp_block.finalConfirm(newConstraint);
-        outputFile.addAssertiveBlocks(well_def_corr_hyp_block.build());
+        addBlock(well_def_corr_hyp_block);
 
         //2. Type Initialization Hypothesis
         if (ctx.typeImplInit() != null) {
@@ -138,7 +202,7 @@ public class VCGen extends ResolveBaseListener {
             }
             t_init_hyp_block.finalConfirm(currentTypeReprSym.getConvention()
                     .withVCInfo(ctx.typeImplInit().getStart(), "Convention for: " + ctx.name.getText()));
-            outputFile.addAssertiveBlocks(t_init_hyp_block.build());
+            addBlock(t_init_hyp_block);
         }
 
         //3. Type Finalization Hypothesis.. TODO.
@@ -241,7 +305,7 @@ public class VCGen extends ResolveBaseListener {
         result = result.substitute(specFormalsToActuals);
         if (!result.isObviouslyTrue()) {
             block.finalConfirm(result);
-            outputFile.addAssertiveBlocks(block.build());
+            addBlock(block);
         }
     }
 
@@ -312,7 +376,7 @@ public class VCGen extends ResolveBaseListener {
             confirmParameterConsequentsForBlock(block, p); //modfies 'block' with additional confims!
         }
         block.finalConfirm(concifiedEnsures);
-        outputFile.addAssertiveBlocks(block.build());
+        addBlock(block);
     }
 
     @NotNull
@@ -403,7 +467,7 @@ public class VCGen extends ResolveBaseListener {
                 .confirm(ctx, g.formConjuncts(paramConsequents))
                 .finalConfirm(ensures);
 
-        outputFile.addAssertiveBlocks(block.build());
+        addBlock(block);
     }
 
     private void assumeVarDecls(List<ResolveParser.VarDeclGroupContext> group, VCAssertiveBlockBuilder builder) {
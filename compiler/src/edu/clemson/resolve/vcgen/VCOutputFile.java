@@ -3,7 +3,9 @@ package edu.clemson.resolve.vcgen;
 import edu.clemson.resolve.RESOLVECompiler;
 import edu.clemson.resolve.compiler.ErrorKind;
 import edu.clemson.resolve.proving.absyn.PExp;
+import edu.clemson.resolve.proving.absyn.PExpFactory;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
@@ -21,9 +23,21 @@ public class VCOutputFile {
     /** The final list of immutable vcs. */
     public LinkedHashSet<VC> finalVcs = new LinkedHashSet<>();
 
+    /** Interns the formulas of {@link #finalVcs}, so vcs arising from the same block share their common subterms. */
+    private final PExpFactory factory = new PExpFactory();
+
+    /** Where each vc is also handed as soon as it is final, if anywhere (see {@link VCQueue}). */
+    @Nullable
+    private final VCQueue sink;
+
     public VCOutputFile(@NotNull RESOLVECompiler rc) {
+        this(rc, null);
+    }
+
+    public VCOutputFile(@NotNull RESOLVECompiler rc, @Nullable VCQueue sink) {
         this.currentVcNumber = 1;
         this.compiler = rc;
+        this.sink = sink;
     }
 
     public LinkedHashSet<VC> getFinalVCs() {
@@ -75,30 +89,46 @@ public class VCOutputFile {
         VC vc = null;
         while ((vc = vcTempBatchOrderedByLine.poll()) != null) {
             if (vc.isObviouslyTrue() /*|| vc.getSequent().isIdentityAxiom()*/) continue;
-            finalVcs.add(new VC(vc.getLocation(), currentVcNumber, vc.getExplanation(), vc.getSequent()));
+            VC finalVc = new VC(vc.getLocation(), currentVcNumber, vc.getExplanation(), intern(vc.getSequent()));
+            finalVcs.add(finalVc);
+            if (sink != null) sink.put(finalVc);
             currentVcNumber++;
         }
     }
 
+    @NotNull
+    private Sequent intern(@NotNull Sequent sequent) {
+        List<PExp> left = new ArrayList<>();
+        List<PExp> right = new ArrayList<>();
+        for (PExp e : sequent.getLeftFormulas()) {
+            left.add(factory.intern(e));
+        }
+        for (PExp e : sequent.getRightFormulas()) {
+            right.add(factory.intern(e));
+        }
+        return new ListBackedSequent(left, right);
+    }
+
     public String toString(int lineWidth) {
-        String result = "";
+        StringBuilder result = new StringBuilder();
 
         for (VC vc : finalVcs) {
-            result += vc.toString(lineWidth) + "\n\n";
+            result.append(vc.toString(lineWidth)).append("\n\n");
         }
-        result += "==========================================" +
+        result.append("==========================================" +
                 "\n\t Proof Obligation Derivation Steps" +
-                "\n==========================================\n\n";
+                "\n==========================================\n\n");
         for (VCAssertiveBlock b : chunks) {
-            result += b.getDescription() + "\n";
-            result += b.getText() + "\n";
-            result += "<S T E P S>\n";
+            result.append(b.getDescription()).append("\n");
+            result.append(b.getText()).append("\n");
+            result.append("<S T E P S>\n");
 
+            //each step is only rendered now
             for (RuleApplicationStep step : b.getApplicationSteps()) {
-                result += step + "\n\n";
+                result.append(step).append("\n\n");
             }
         }
-        return result;
+        return result.toString();
     }
 
     @Override
@@ -0,0 +1,63 @@
+package edu.clemson.resolve.vcgen;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded hand-off of {@link VC}s from the thread generating them to the one proving them, so proving can start on
+ * the first VCs of a module while the rest are still being generated. The producer blocks once {@code capacity} VCs
+ * are waiting, which keeps VC generation from running arbitrarily far ahead of the prover.
+ */
+public final class VCQueue {
+
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> queue;
+    private volatile boolean abandoned = false;
+
+    public VCQueue(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /** Hands {@code vc} over, waiting for room if need be; dropped if the consumer has {@link #abandon()}ed. */
+    public void put(@NotNull VC vc) {
+        if (!abandoned) offer(vc);
+    }
+
+    /** Marks the end of the VCs; {@link #take()} returns {@code null} once every VC before this has been taken. */
+    public void close() {
+        if (!abandoned) offer(END);
+    }
+
+    /**
+     * Called by a consumer that has stopped taking VCs (it failed, say), so the producer isn't left waiting for room
+     * forever: whatever is waiting is dropped, and so is anything put from now on.
+     */
+    public void abandon() {
+        abandoned = true;
+        queue.clear();
+    }
+
+    /** The next VC, waiting for one if need be, or {@code null} if there are no more. */
+    @Nullable
+    public VC take() throws InterruptedException {
+        Object o = queue.take();
+        if (o == END) {
+            queue.put(END); // so that asking again still gets the end
+            return null;
+        }
+        return (VC) o;
+    }
+
+    private void offer(Object o) {
+        try {
+            queue.put(o);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while handing over vcs", e);
+        }
+    }
+}
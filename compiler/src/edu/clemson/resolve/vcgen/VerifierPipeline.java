@@ -4,12 +4,17 @@ import edu.clemson.resolve.compiler.AbstractCompilationPipeline;
 import edu.clemson.resolve.compiler.AnnotatedModule;
 import edu.clemson.resolve.RESOLVECompiler;
 import edu.clemson.resolve.parser.ResolveParser;
+import edu.clemson.resolve.proving.CongruenceClassProver;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class VerifierPipeline extends AbstractCompilationPipeline {
 
+    // how many generated vcs may wait for the prover before vc generation waits for it
+    private static final int VC_QUEUE_CAPACITY = 64;
+
     public VerifierPipeline(RESOLVECompiler rc, List<AnnotatedModule> compilationUnits) {
         super(rc, compilationUnits);
     }
@@ -23,30 +28,53 @@ public class VerifierPipeline extends AbstractCompilationPipeline {
                 else if (unit.getRoot().getChild(0) instanceof ResolveParser.ConceptModuleDeclContext) continue;
                 else if (unit.getRoot().getChild(0) instanceof ResolveParser.EnhancementModuleDeclContext) continue;
                 else if (unit.getRoot().getChild(0) instanceof ResolveParser.PrecisExtModuleDeclContext) continue;
-                VCGen gen = new VCGen(compiler, unit);
-                ParseTreeWalker.DEFAULT.walk(gen, unit.getRoot());
-                VCOutputFile x = gen.getOutputFile();
-                System.out.println(x.toString(35));
-                unit.setVCs(x);
-
-                //List<VC> proverInput = vco.getFinalVCs();
-                //VCClassftnPrintingListener p = new VCClassftnPrintingListener(compiler);
-                /*for (VC vc : proverInput) {
-                    vc.getAntecedent().accept(p);
-                    vc.getConsequent().accept(p);
-                }*/
-                //List<VC> pvcs = new ArrayList<>();
-                //pvcs.add(vco.getFinalVCs().get(0));
-                /*if (compiler.prove) {
-                    CongruenceClassProver prover = new CongruenceClassProver(compiler, unit,
-                            compiler.symbolTable.getTypeGraph(), vco.getFinalVCs());
+                if (!compiler.prove) {
+                    VCGen gen = new VCGen(compiler, unit);
+                    ParseTreeWalker.DEFAULT.walk(gen, unit.getRoot());
+                    VCOutputFile x = gen.getOutputFile();
+                    System.out.println(x.toString(35));
+                    unit.setVCs(x);
+                    continue;
+                }
+                //the prover starts on each vc as soon as it's generated, rather than once all of them are
+                VCQueue queue = new VCQueue(VC_QUEUE_CAPACITY);
+                CongruenceClassProver prover = new CongruenceClassProver(compiler, unit,
+                        compiler.symbolTable.getTypeGraph(), queue);
+                AtomicReference<Throwable> proverFailure = new AtomicReference<>();
+                Thread proving = new Thread(() -> {
                     try {
                         prover.start();
                     }
-                    catch (IOException ioe) {
-                        throw new RuntimeException(ioe);
+                    catch (Throwable t) {
+                        proverFailure.set(t);
                     }
-                }*/
+                    finally {
+                        queue.abandon();
+                    }
+                }, "prover-" + unit.getNameToken().getText());
+                proving.start();
+                VCOutputFile x;
+                try {
+                    VCGen gen = new VCGen(compiler, unit, queue);
+                    ParseTreeWalker.DEFAULT.walk(gen, unit.getRoot());
+                    x = gen.getOutputFile();
+                }
+                finally {
+                    queue.close();
+                }
+                if (compiler.vcs) System.out.println(x.toString(35));
+                unit.setVCs(x);
+                try {
+                    proving.join();
+                }
+                catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                Throwable t = proverFailure.get();
+                if (t instanceof RuntimeException) throw (RuntimeException) t;
+                if (t instanceof Error) throw (Error) t;
+                if (t != null) throw new RuntimeException(t); //the IOException of writing the proofs out
             }
         }
     }
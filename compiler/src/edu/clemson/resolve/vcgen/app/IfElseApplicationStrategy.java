@@ -8,7 +8,6 @@ import edu.clemson.resolve.proving.absyn.PSymbol;
 import edu.clemson.resolve.semantics.DumbMathClssftnHandler;
 import edu.clemson.resolve.semantics.MathFunctionClssftn;
 import edu.clemson.resolve.vcgen.VCAssertiveBlock;
-import edu.clemson.resolve.vcgen.RuleApplicationStep;
 import edu.clemson.resolve.vcgen.stats.VCIfElse;
 import edu.clemson.resolve.vcgen.VCAssertiveBlock.VCAssertiveBlockBuilder;
 import org.antlr.v4.runtime.ParserRuleContext;
@@ -36,7 +35,7 @@ public class IfElseApplicationStrategy implements RuleApplicationStrategy<VCIfEl
         neg.assume(negatedCondition, true, false); //make sure we "stipulate" the assumption
         neg.stats(Utils.apply(stat.getElseStmts(), e -> e.copyWithEnclosingBlock(neg)));
         neg.applicationSteps.clear();
-        neg.applicationSteps.add(new RuleApplicationStep(neg.snapshot().toString(), NEGATED_BRANCH_DESCRIPTION));
+        neg.step(neg.snapshot(), NEGATED_BRANCH_DESCRIPTION);
         branches.push(neg);
         return block.snapshot();
     }
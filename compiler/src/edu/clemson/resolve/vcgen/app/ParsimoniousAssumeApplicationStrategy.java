@@ -132,12 +132,10 @@ public class ParsimoniousAssumeApplicationStrategy implements RuleApplicationStr
     private boolean substitutesAny(Collection<Sequent> sequents, PExp s, PExp t) {
         for (Sequent sequent : sequents) {
             for (PExp wff : sequent.getLeftFormulas()) {
-                PExp substituted = wff.substitute(s, t);
-                if (!wff.equals(substituted)) return true;
+                if (!wff.staysSameAfterSubstitution(s, t)) return true;
             }
             for (PExp wff : sequent.getRightFormulas()) {
-                PExp substituted = wff.substitute(s, t);
-                if (!wff.equals(substituted)) return true;
+                if (!wff.staysSameAfterSubstitution(s, t)) return true;
             }
         }
         return false;
@@ -6,6 +6,7 @@ import edu.clemson.resolve.parser.ResolveLexer;
 import edu.clemson.resolve.proving.absyn.PApply;
 import edu.clemson.resolve.proving.absyn.PExp;
 import edu.clemson.resolve.proving.absyn.PExpBuildingListener;
+import edu.clemson.resolve.proving.absyn.PExpFactory;
 import edu.clemson.resolve.proving.absyn.PSymbol;
 import org.antlr.v4.runtime.CommonToken;
 import org.jetbrains.annotations.NotNull;
@@ -360,6 +361,58 @@ public class TestPExp extends BaseTest {
         Assert.assertEquals("(X = λ q : Inv, {{Y if j = i; Y(q) otherwise;}})", result.toString());
     }
 
+    @Test
+    public void testSubstitutePreservesSharing() {
+        PExp e = parseMathAssertionExp(g, "f(x + y) = g(z)");
+        Assert.assertSame(e, e.substitute(parseMathAssertionExp(g, "w"), parseMathAssertionExp(g, "v")));
+        Assert.assertTrue(e.staysSameAfterSubstitution(parseMathAssertionExp(g, "w"), parseMathAssertionExp(g, "v")));
+
+        PExp result = e.substitute(parseMathAssertionExp(g, "z"), parseMathAssertionExp(g, "v"));
+        Assert.assertEquals("(f((x + y)) = g(v))", result.toString());
+        Assert.assertSame(((PApply) e).getArguments().get(0), ((PApply) result).getArguments().get(0));
+        Assert.assertFalse(e.staysSameAfterSubstitution(parseMathAssertionExp(g, "z"), parseMathAssertionExp(g, "v")));
+
+        //keys that are applications are found too, and a shared subtree gets one shared replacement
+        PExpFactory factory = new PExpFactory();
+        PExp shared = factory.intern(parseMathAssertionExp(g, "f(x + y) = g(x + y)"));
+        result = shared.substitute(parseMathAssertionExp(g, "x + y"), parseMathAssertionExp(g, "v"));
+        Assert.assertEquals("(f(v) = g(v))", result.toString());
+        List<PExp> args = ((PApply) result).getArguments();
+        Assert.assertSame(((PApply) args.get(0)).getArguments().get(0), ((PApply) args.get(1)).getArguments().get(0));
+    }
+
+    @Test
+    public void testFactoryInternsEqualExpressions() {
+        PExpFactory factory = new PExpFactory();
+        PExp parsed = parseMathAssertionExp(g, "f(x + y) = g(x + y)");
+        PExp interned = factory.intern(parsed);
+        Assert.assertEquals(parsed, interned);
+        Assert.assertSame(interned, factory.intern(parseMathAssertionExp(g, "f(x + y) = g(x + y)")));
+
+        //both occurrences of x + y are now one and the same
+        List<PExp> args = ((PApply) interned).getArguments();
+        Assert.assertSame(((PApply) args.get(0)).getArguments().get(0), ((PApply) args.get(1)).getArguments().get(0));
+
+        //so are expressions built through the factory
+        PSymbol x = new PSymbol.PSymbolBuilder("x").mathClssfctn(g.BOOLEAN).factory(factory).build();
+        PSymbol y = new PSymbol.PSymbolBuilder("y").mathClssfctn(g.BOOLEAN).build();
+        PSymbol and = new PSymbol.PSymbolBuilder("and").mathClssfctn(g.BOOLEAN_FUNCTION).build();
+        Assert.assertSame(x, new PSymbol.PSymbolBuilder("x").mathClssfctn(g.BOOLEAN).factory(factory).build());
+        PApply xAndY = new PApply.PApplyBuilder(and).arguments(x, y)
+                .applicationType(g.BOOLEAN).factory(factory).build();
+        Assert.assertSame(xAndY, new PApply.PApplyBuilder(and).arguments(x, y)
+                .applicationType(g.BOOLEAN).factory(factory).build());
+        Assert.assertSame(xAndY, factory.intern(new PApply.PApplyBuilder(and).arguments(x, y)
+                .applicationType(g.BOOLEAN).build()));
+
+        //but only when they agree on everything, not just on what equals compares
+        PSymbol forallX = new PSymbol.PSymbolBuilder("x").mathClssfctn(g.BOOLEAN)
+                .quantification(UNIVERSAL).factory(factory).build();
+        Assert.assertEquals(x, forallX);
+        Assert.assertNotSame(x, forallX);
+        Assert.assertEquals(UNIVERSAL, forallX.getQuantification());
+    }
+
     protected static ParseTree getTree(String input) {
         try {
             ANTLRInputStream in = new ANTLRInputStream(new StringReader(input));
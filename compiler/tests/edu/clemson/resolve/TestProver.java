@@ -0,0 +1,181 @@
+package edu.clemson.resolve;
+
+import edu.clemson.resolve.compiler.AnnotatedModule;
+import edu.clemson.resolve.proving.CongruenceClassProver;
+import edu.clemson.resolve.proving.Metrics;
+import edu.clemson.resolve.proving.PerVCProverModel;
+import edu.clemson.resolve.proving.ProverListener;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks that the different ways the prover can be run all come to the same results. These compile a facility over
+ * the templates in {@code src}, so {@code $RESOLVEROOT} needs to point at the checkout.
+ */
+public class TestProver extends BaseTest {
+
+    private static final String MODULE_NAME = "Prover_Test";
+    private static final String MODULE =
+            "Facility Prover_Test;\n" +
+            "    uses Standard_Integers, Standard_Booleans;\n" +
+            "\n" +
+            "    Operation Exchange (updates i, j : Integer);\n" +
+            "        ensures i = #j ∧ j = #i;\n" +
+            "    Procedure\n" +
+            "        Var t : Integer;\n" +
+            "        t := i;\n" +
+            "        i := j;\n" +
+            "        j := t;\n" +
+            "    end Exchange;\n" +
+            "\n" +
+            "    Operation Add_Two (updates i : Integer);\n" +
+            "        requires i + 2 ≤ max_int;\n" +
+            "        ensures i = #i + 2;\n" +
+            "    Procedure\n" +
+            "        Increment(i);\n" +
+            "        Increment(i);\n" +
+            "    end Add_Two;\n" +
+            "\n" +
+            "    Operation Round_Trip (updates i : Integer);\n" +
+            "        requires min_int ≤ i - 1;\n" +
+            "        ensures i = #i;\n" +
+            "    Procedure\n" +
+            "        Decrement(i);\n" +
+            "        Increment(i);\n" +
+            "    end Round_Trip;\n" +
+            "\n" +
+            "    Operation Count_Down (updates i : Integer);\n" +
+            "        requires 0 ≤ i;\n" +
+            "        ensures i = 0;\n" +
+            "    Procedure\n" +
+            "        While Less(0, i)\n" +
+            "            changing i;\n" +
+            "            maintaining 0 ≤ i;\n" +
+            "            decreasing i;\n" +
+            "        do\n" +
+            "            Decrement(i);\n" +
+            "        end;\n" +
+            "    end Count_Down;\n" +
+            "end Prover_Test;\n";
+
+    @Test
+    public void testProverThreadsMatchSequential() throws IOException {
+        List<String> expected = proveAll(null);
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected, proveAll("4"));
+    }
+
+    @Test
+    public void testStreamingMatchesSequential() throws IOException {
+        List<String> expected = proveAll(null);
+        Assert.assertFalse(expected.isEmpty());
+
+        //vc generation hands each vc to the prover as it's done, and four workers prove them
+        Results streamed = new Results();
+        compileModule(streamed, "-prove", "-proverThreads", "4");
+        Assert.assertEquals(expected, streamed.vcs);
+
+        Results streamedOnOne = new Results();
+        compileModule(streamedOnOne, "-prove");
+        Assert.assertEquals(expected, streamedOnOne.vcs);
+    }
+
+    @Test
+    public void testPruningKeepsResults() throws IOException {
+        //by default only theorems that could never be tried on a vc are pruned, which can't change what gets proved
+        List<String> expected = proveAll(null);
+        Assert.assertFalse(expected.isEmpty());
+
+        Results unpruned = new Results();
+        compileModule(unpruned, "-prove", "-relevanceRounds", "off");
+        Assert.assertEquals(expected, unpruned.vcs);
+    }
+
+    @Test
+    public void testPortfolioOnWorkersMatchesOneThread() {
+        //each worker races every strategy, on closures built for it while the other workers prove
+        Results expected = new Results();
+        compileModule(expected, "-prove", "-portfolio", "all");
+        Assert.assertFalse(expected.vcs.isEmpty());
+
+        Results onWorkers = new Results();
+        compileModule(onWorkers, "-prove", "-portfolio", "all", "-proverThreads", "4");
+        Assert.assertEquals(expected.vcs, onWorkers.vcs);
+    }
+
+    @Test
+    public void testOutOfTimeStillReportsEveryVC() throws IOException {
+        List<String> expected = proveAll(null);
+        Assert.assertFalse(expected.isEmpty());
+
+        //every loop gives up straight away, so nothing gets proved that couldn't be without any time at all
+        Results outOfTime = new Results();
+        compileModule(outOfTime, "-prove", "-timeout", "0");
+        Assert.assertEquals(expected.size(), outOfTime.vcs.size());
+        for (int i = 0; i < expected.size(); i++) {
+            String result = outOfTime.vcs.get(i);
+            Assert.assertTrue(result.endsWith(" not proved") || result.equals(expected.get(i)));
+        }
+    }
+
+    /**
+     * Generates the vcs of {@link #MODULE} and proves them all at once, on {@code proverThreads} workers (or on
+     * the one thread if that's null), returning what became of each.
+     */
+    protected List<String> proveAll(String proverThreads) throws IOException {
+        RESOLVECompiler rc = compileModule(null, "-vcs");
+        Results results = new Results();
+        rc.addProverListener(results);
+        rc.proverThreads = proverThreads;
+        AnnotatedModule m = getModule(rc);
+        new CongruenceClassProver(rc, m, rc.symbolTable.getTypeGraph(),
+                new ArrayList<>(m.getVCOutput().getFinalVCs())).start();
+        return results.vcs;
+    }
+
+    protected RESOLVECompiler compileModule(ProverListener listener, String... extraOptions) {
+        mkdir(tmpdir);
+        String fileName = MODULE_NAME + RESOLVECompiler.NATIVE_FILE_EXTENSION;
+        writeFile(tmpdir, fileName, MODULE);
+        List<String> options = new ArrayList<>();
+        Collections.addAll(options, extraOptions);
+        options.addAll(Arrays.asList("-proofVerbosity", "summary", "-o", tmpdir, "-lib", tmpdir, fileName));
+        RESOLVECompiler rc = new RESOLVECompiler(options.toArray(new String[options.size()]));
+        rc.addProverListener(listener);
+        rc.processCommandLineTargets();
+        Assert.assertEquals(0, rc.errMgr.getErrorCount());
+        return rc;
+    }
+
+    private AnnotatedModule getModule(RESOLVECompiler rc) {
+        for (AnnotatedModule m : rc.commandlineTargets) {
+            if (m.getNameToken().getText().equals(MODULE_NAME)) return m;
+        }
+        throw new AssertionError("no module " + MODULE_NAME);
+    }
+
+    /** Each vc's number along with whether it was proved, in the order they were reported. */
+    private static final class Results implements ProverListener {
+        final List<String> vcs = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void progressUpdate(double progess) {
+        }
+
+        @Override
+        public void vcResult(boolean proved, PerVCProverModel finalModel, Metrics m) {
+            vcs.add(finalModel.getVCName() + (proved ? " proved" : " not proved"));
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package edu.clemson.resolve;
+
+import edu.clemson.resolve.proving.Registry;
+import edu.clemson.resolve.proving.VerificationConditionCongruenceClosureImpl;
+import edu.clemson.resolve.proving.absyn.PExp;
+import edu.clemson.resolve.proving.absyn.PSymbol;
+import edu.clemson.resolve.semantics.DumbMathClssftnHandler;
+import edu.clemson.resolve.semantics.MathClssftn;
+import edu.clemson.resolve.vcgen.ListBackedSequent;
+import edu.clemson.resolve.vcgen.VC;
+import org.antlr.v4.runtime.CommonToken;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+public class TestRegistry {
+
+    private final DumbMathClssftnHandler g = new DumbMathClssftnHandler();
+
+    @Test
+    public void testAddSymbolIsInterned() {
+        Registry r = new Registry(g);
+        int x = r.addSymbol("x", g.BOOLEAN, Registry.Usage.SINGULAR_VARIABLE);
+        Assert.assertEquals(x, r.addSymbol("x", g.BOOLEAN, Registry.Usage.SINGULAR_VARIABLE));
+        Assert.assertEquals(x, r.getIndexForSymbol("x"));
+        Assert.assertEquals(-1, r.getIndexForSymbol("y"));
+        Assert.assertEquals("", r.getRootSymbolForSymbol("y"));
+    }
+
+    @Test
+    public void testSetMatchingTypeTracksNewSymbols() {
+        Registry r = new Registry(g);
+        Assert.assertTrue(r.getSetMatchingType(g.BOOLEAN).contains("true"));
+        Assert.assertFalse(r.getSetMatchingType(g.BOOLEAN).contains("p"));
+        r.addSymbol("p", g.BOOLEAN, Registry.Usage.SINGULAR_VARIABLE);
+        Assert.assertTrue(r.getSetMatchingType(g.BOOLEAN).contains("p"));
+        Assert.assertTrue(r.isSubtype(g.BOOLEAN, g.SSET));
+        Assert.assertEquals(r.isSubtype(g.BOOLEAN, g.ENTITY), g.isSubtype(g.BOOLEAN, g.ENTITY));
+    }
+
+    @Test
+    public void testSetMatchingTypeIsASnapshot() {
+        Registry r = new Registry(g);
+        Set<String> before = r.getSetMatchingType(g.BOOLEAN);
+        r.addSymbol("p", g.BOOLEAN, Registry.Usage.SINGULAR_VARIABLE);
+        Assert.assertFalse(before.contains("p"));
+        Assert.assertTrue(r.getSetMatchingType(g.BOOLEAN).contains("p"));
+    }
+
+    @Test
+    public void testCompressedRegistryAnswersTheSame() {
+        Registry plain = new Registry(g);
+        Registry compressed = new Registry(g) {
+            {
+                addSymbol("p", g.BOOLEAN, Usage.SINGULAR_VARIABLE);
+                addSymbol("s", g.SSET, Usage.SINGULAR_VARIABLE);
+                compressAll();
+            }
+        };
+        plain.addSymbol("p", g.BOOLEAN, Registry.Usage.SINGULAR_VARIABLE);
+        plain.addSymbol("s", g.SSET, Registry.Usage.SINGULAR_VARIABLE);
+        for (MathClssftn a : Arrays.asList(g.BOOLEAN, g.SSET, g.ENTITY, g.EQUALITY_FUNCTION)) {
+            for (MathClssftn b : Arrays.asList(g.BOOLEAN, g.SSET, g.ENTITY, g.EQUALITY_FUNCTION)) {
+                Assert.assertEquals(plain.isSubtype(a, b), compressed.isSubtype(a, b));
+            }
+            Assert.assertEquals(plain.getSetMatchingType(a), compressed.getSetMatchingType(a));
+        }
+        // still kept up to date should the registry change after all
+        compressed.addSymbol("q", g.BOOLEAN, Registry.Usage.SINGULAR_VARIABLE);
+        Assert.assertTrue(compressed.getSetMatchingType(g.BOOLEAN).contains("q"));
+    }
+
+    @Test
+    public void testSubstituteKeepsChosenRepresentative() {
+        Registry r = new Registry(g);
+        int[] ids = new int[40];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = r.addSymbol("v" + i, g.BOOLEAN, Registry.Usage.SINGULAR_VARIABLE);
+        }
+        // build up two classes of different sizes, then merge the larger one into the smaller one's representative
+        for (int i = 1; i < 30; i++) {
+            r.substitute(r.getIndexForSymbol("v0"), r.getIndexForSymbol("v" + i));
+        }
+        for (int i = 31; i < 40; i++) {
+            r.substitute(r.getIndexForSymbol("v30"), r.getIndexForSymbol("v" + i));
+        }
+        Assert.assertEquals("v0", r.getRootSymbolForSymbol("v29"));
+        Assert.assertEquals("v30", r.getRootSymbolForSymbol("v39"));
+
+        r.substitute(r.getIndexForSymbol("v30"), r.getIndexForSymbol("v0"));
+        for (int i = 0; i < ids.length; i++) {
+            Assert.assertEquals("v30", r.getRootSymbolForSymbol("v" + i));
+            Assert.assertEquals(ids[30], r.getIndexForSymbol("v" + i));
+        }
+        Assert.assertEquals("true", r.getRootSymbolForSymbol("true"));
+    }
+
+    @Test
+    public void testRollbackRestoresClosure() {
+        PSymbol x = new PSymbol.PSymbolBuilder("x").mathClssfctn(g.BOOLEAN).build();
+        PSymbol y = new PSymbol.PSymbolBuilder("y").mathClssfctn(g.BOOLEAN).build();
+        PSymbol w = new PSymbol.PSymbolBuilder("w").mathClssfctn(g.BOOLEAN).build();
+        VC vc = new VC(new CommonToken(0, "test"), 1, "test", new ListBackedSequent(Arrays.<PExp>asList(x, y),
+                Collections.<PExp>singletonList(w)));
+        VerificationConditionCongruenceClosureImpl closure =
+                new VerificationConditionCongruenceClosureImpl(g, vc, g.BOOLEAN, g.BOOLEAN);
+        Registry r = closure.getRegistry();
+        String xRoot = r.getRootSymbolForSymbol("x");
+        Assert.assertEquals(xRoot, r.getRootSymbolForSymbol("y"));
+
+        int outer = closure.checkpoint();
+        r.addSymbol("z", g.BOOLEAN, Registry.Usage.SINGULAR_VARIABLE);
+        int inner = closure.checkpoint();
+        r.substitute(r.getIndexForSymbol("z"), r.getIndexForSymbol("x"));
+        Assert.assertEquals("z", r.getRootSymbolForSymbol("y"));
+
+        closure.rollback(inner);
+        Assert.assertEquals(xRoot, r.getRootSymbolForSymbol("y"));
+        Assert.assertEquals("z", r.getRootSymbolForSymbol("z"));
+
+        closure.rollback(outer);
+        Assert.assertFalse(r.isSymbolInTable("z"));
+        Assert.assertEquals(xRoot, r.getRootSymbolForSymbol("x"));
+        Assert.assertEquals(VerificationConditionCongruenceClosureImpl.STATUS.STILL_EVALUATING, closure.isProved());
+    }
+}
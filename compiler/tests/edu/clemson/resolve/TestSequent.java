@@ -0,0 +1,53 @@
+package edu.clemson.resolve;
+
+import edu.clemson.resolve.proving.absyn.PExp;
+import edu.clemson.resolve.proving.absyn.PSymbol;
+import edu.clemson.resolve.semantics.DumbMathClssftnHandler;
+import edu.clemson.resolve.vcgen.ListBackedSequent;
+import edu.clemson.resolve.vcgen.Sequent;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class TestSequent {
+
+    private final DumbMathClssftnHandler g = new DumbMathClssftnHandler();
+    private final PExp p = new PSymbol.PSymbolBuilder("p").mathClssfctn(g.BOOLEAN).build();
+    private final PExp q = new PSymbol.PSymbolBuilder("q").mathClssfctn(g.BOOLEAN).build();
+    private final PExp r = new PSymbol.PSymbolBuilder("r").mathClssfctn(g.BOOLEAN).build();
+
+    @Test
+    public void testAddLeavesOriginalUntouched() {
+        Sequent s = new ListBackedSequent(Collections.singletonList(p), Collections.singletonList(q));
+        Sequent t = s.addLeft(r);
+        Sequent u = s.addRight(r);
+        Assert.assertEquals(Collections.singletonList(p), s.getLeftFormulas());
+        Assert.assertEquals(Collections.singletonList(q), s.getRightFormulas());
+        Assert.assertEquals(Arrays.asList(p, r), t.getLeftFormulas());
+        Assert.assertEquals(Collections.singletonList(q), t.getRightFormulas());
+        Assert.assertEquals(Collections.singletonList(p), u.getLeftFormulas());
+        Assert.assertEquals(Arrays.asList(q, r), u.getRightFormulas());
+    }
+
+    @Test
+    public void testSiblingsDoNotSeeEachOther() {
+        Sequent s = new ListBackedSequent(Collections.singletonList(p), Collections.singletonList(q));
+        Sequent t = s.addLeft(q);
+        Sequent u = s.addLeft(r);
+        Assert.assertEquals(Arrays.asList(p, q), t.getLeftFormulas());
+        Assert.assertEquals(Arrays.asList(p, r), u.getLeftFormulas());
+        Assert.assertNotEquals(t, u);
+    }
+
+    @Test
+    public void testEqualityAndHashAreStructural() {
+        Sequent built = new ListBackedSequent(Collections.singletonList(p), Collections.singletonList(q)).addLeft(r);
+        Sequent direct = new ListBackedSequent(Arrays.asList(p, r), Collections.singletonList(q));
+        Assert.assertEquals(direct, built);
+        Assert.assertEquals(direct.hashCode(), built.hashCode());
+        Assert.assertEquals(Arrays.asList(p, r).hashCode(), built.getLeftFormulas().hashCode());
+        Assert.assertNotEquals(direct, new ListBackedSequent(Arrays.asList(r, p), Collections.singletonList(q)));
+    }
+}
@@ -1,6 +1,130 @@
 package edu.clemson.resolve;
 
+import edu.clemson.resolve.compiler.AnnotatedModule;
+import edu.clemson.resolve.vcgen.VC;
+import edu.clemson.resolve.vcgen.VCAssertiveBlock;
+import edu.clemson.resolve.vcgen.VCOutputFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 public class TestVCGen extends BaseTest {
 
     //public void testDefaultAssume
+
+    private static final String MODULE_NAME = "VCGen_Test";
+    private static final String MODULE =
+            "Facility VCGen_Test;\n" +
+            "    uses Standard_Integers, Standard_Booleans;\n" +
+            "\n" +
+            "    Operation Exchange (updates i, j : Integer);\n" +
+            "        ensures i = #j ∧ j = #i;\n" +
+            "    Procedure\n" +
+            "        Var t : Integer;\n" +
+            "        t := i;\n" +
+            "        i := j;\n" +
+            "        j := t;\n" +
+            "    end Exchange;\n" +
+            "\n" +
+            "    Operation Add_Two (updates i : Integer);\n" +
+            "        requires i + 2 ≤ max_int;\n" +
+            "        ensures i = #i + 2;\n" +
+            "    Procedure\n" +
+            "        Increment(i);\n" +
+            "        Increment(i);\n" +
+            "    end Add_Two;\n" +
+            "\n" +
+            "    Operation Round_Trip (updates i : Integer);\n" +
+            "        requires min_int ≤ i - 1;\n" +
+            "        ensures i = #i;\n" +
+            "    Procedure\n" +
+            "        Decrement(i);\n" +
+            "        Increment(i);\n" +
+            "    end Round_Trip;\n" +
+            "\n" +
+            "    Operation Count_Down (updates i : Integer);\n" +
+            "        requires 0 ≤ i;\n" +
+            "        ensures i = 0;\n" +
+            "    Procedure\n" +
+            "        While Less(0, i)\n" +
+            "            changing i;\n" +
+            "            maintaining 0 ≤ i;\n" +
+            "            decreasing i;\n" +
+            "        do\n" +
+            "            Decrement(i);\n" +
+            "        end;\n" +
+            "    end Count_Down;\n" +
+            "\n" +
+            "    Operation Both (evaluates a, b : Boolean) : Boolean;\n" +
+            "        ensures Both = (a ∧ b);\n" +
+            "    Procedure\n" +
+            "        Both := And(a, b);\n" +
+            "    end Both;\n" +
+            "end VCGen_Test;\n";
+
+    /** The vcs (along with how they were derived) of {@link #MODULE}, as printed with {@code -vcs}. */
+    private String generateVCs(String... extraOptions) {
+        List<String> options = new ArrayList<>(Arrays.asList(extraOptions));
+        options.add("-vcs");
+        return generate(options.toArray(new String[options.size()])).toString();
+    }
+
+    /**
+     * The vcs of {@link #MODULE}, compiled with {@code extraOptions}. Needs {@code $RESOLVEROOT} to point at the
+     * checkout, so that {@code Standard_Integers} can be found.
+     */
+    private VCOutputFile generate(String... extraOptions) {
+        mkdir(tmpdir);
+        String fileName = MODULE_NAME + RESOLVECompiler.NATIVE_FILE_EXTENSION;
+        writeFile(tmpdir, fileName, MODULE);
+        List<String> options = new ArrayList<>();
+        Collections.addAll(options, extraOptions);
+        options.addAll(Arrays.asList("-o", tmpdir, "-lib", tmpdir, fileName));
+        RESOLVECompiler rc = new RESOLVECompiler(options.toArray(new String[options.size()]));
+        rc.processCommandLineTargets();
+        Assert.assertEquals(0, rc.errMgr.getErrorCount());
+        for (AnnotatedModule m : rc.commandlineTargets) {
+            if (m.getNameToken().getText().equals(MODULE_NAME)) return m.getVCOutput();
+        }
+        throw new AssertionError("no module " + MODULE_NAME);
+    }
+
+    @Test
+    public void testParallelVCsMatchSequential() {
+        String expected = generateVCs();
+        Assert.assertFalse(expected.trim().isEmpty());
+        //run it a few times so blocks get the chance to finish in different orders
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(expected, generateVCs("-vcgenThreads", "4"));
+        }
+    }
+
+    @Test
+    public void testStepsOnlyKeptWhenShown() {
+        VCOutputFile shown = generate("-vcs");
+        VCOutputFile proved = generate("-prove");
+        Assert.assertEquals(render(shown), render(proved));
+        boolean anySteps = false;
+        for (VCAssertiveBlock b : shown.chunks) {
+            anySteps |= !b.getApplicationSteps().isEmpty();
+        }
+        Assert.assertTrue(anySteps);
+        for (VCAssertiveBlock b : proved.chunks) {
+            Assert.assertTrue(b.getApplicationSteps().isEmpty());
+        }
+        //asking for the vcs still gets the whole derivation
+        Assert.assertEquals(shown.toString(), generate("-prove", "-vcs").toString());
+    }
+
+    private static String render(VCOutputFile f) {
+        StringBuilder result = new StringBuilder();
+        for (VC vc : f.getFinalVCs()) {
+            result.append(vc.toString(35)).append("\n");
+        }
+        return result.toString();
+    }
 }
@@ -0,0 +1,44 @@
+package edu.clemson.resolve.proving;
+
+import edu.clemson.resolve.proving.absyn.PApply;
+import edu.clemson.resolve.proving.absyn.PExp;
+import edu.clemson.resolve.proving.absyn.PSymbol;
+import edu.clemson.resolve.semantics.DumbMathClssftnHandler;
+import edu.clemson.resolve.semantics.Quantification;
+import edu.clemson.resolve.vcgen.ListBackedSequent;
+import edu.clemson.resolve.vcgen.VC;
+import org.antlr.v4.runtime.CommonToken;
+
+import java.util.List;
+
+/**
+ * Builds the small boolean expressions the congruence closure tests are written in (symbols, applications of a
+ * binary {@code f}, and equalities) and the vcs made of them.
+ */
+public abstract class BaseClosureTest {
+
+    protected final DumbMathClssftnHandler g = new DumbMathClssftnHandler();
+
+    protected PSymbol var(String name) {
+        return new PSymbol.PSymbolBuilder(name).mathClssfctn(g.BOOLEAN).build();
+    }
+
+    protected PSymbol universal(String name) {
+        return new PSymbol.PSymbolBuilder(name).mathClssfctn(g.BOOLEAN)
+                .quantification(Quantification.UNIVERSAL).build();
+    }
+
+    protected PExp f(PExp l, PExp r) {
+        PSymbol f = new PSymbol.PSymbolBuilder("f").mathClssfctn(g.BOOLEAN_FUNCTION).build();
+        return new PApply.PApplyBuilder(f).arguments(l, r).applicationType(g.BOOLEAN).build();
+    }
+
+    protected PExp eq(PExp l, PExp r) {
+        PSymbol eq = new PSymbol.PSymbolBuilder("=B").mathClssfctn(g.EQUALITY_FUNCTION).build();
+        return new PApply.PApplyBuilder(eq).arguments(l, r).applicationType(g.BOOLEAN).build();
+    }
+
+    protected VC vc(int number, List<PExp> antecedents, List<PExp> goals) {
+        return new VC(new CommonToken(0, "test"), number, "test", new ListBackedSequent(antecedents, goals));
+    }
+}
@@ -0,0 +1,75 @@
+package edu.clemson.resolve.proving;
+
+import edu.clemson.resolve.semantics.DumbMathClssftnHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class TestAtomTable {
+
+    private final DumbMathClssftnHandler g = new DumbMathClssftnHandler();
+    private final Registry registry = new Registry(g);
+    private final List<NormalizedAtomicExpression> atoms = new ArrayList<>();
+    private final int f = registry.addSymbol("f", g.BOOLEAN_FUNCTION, Registry.Usage.LITERAL);
+
+    private NormalizedAtomicExpression atom(int... args) {
+        int[] ids = new int[args.length + 1];
+        ids[0] = f;
+        System.arraycopy(args, 0, ids, 1, args.length);
+        return new NormalizedAtomicExpression(registry, ids);
+    }
+
+    // gives nae the next atom id, as the conjunction does when it keeps an atom
+    private NormalizedAtomicExpression keep(NormalizedAtomicExpression nae) {
+        nae.setAtomId(atoms.size());
+        atoms.add(nae);
+        return nae;
+    }
+
+    @Test
+    public void testFindsAtomsByContent() {
+        AtomTable table = new AtomTable(atoms, 4);
+        NormalizedAtomicExpression a = keep(atom(1, 2));
+        table.add(a);
+        Assert.assertSame(a, table.get(atom(1, 2)));
+        Assert.assertTrue(table.contains(atom(1, 2)));
+        Assert.assertNull(table.get(atom(2, 1)));
+        Assert.assertNull(table.get(atom(1)));
+        Assert.assertEquals(1, table.size());
+
+        table.remove(a);
+        Assert.assertNull(table.get(atom(1, 2)));
+        Assert.assertEquals(0, table.size());
+        table.remove(a); // no longer there, so nothing happens
+        Assert.assertEquals(0, table.size());
+    }
+
+    @Test
+    public void testMatchesAHashMapThroughGrowthAndDeletions() {
+        AtomTable table = new AtomTable(atoms, 2);
+        Map<NormalizedAtomicExpression, NormalizedAtomicExpression> expected = new HashMap<>();
+        Random r = new Random(11);
+        for (int step = 0; step < 5000; step++) {
+            NormalizedAtomicExpression key = atom(r.nextInt(40), r.nextInt(40));
+            NormalizedAtomicExpression present = expected.get(key);
+            Assert.assertSame(present, table.get(key));
+            if (present == null) {
+                NormalizedAtomicExpression kept = keep(key);
+                table.add(kept);
+                expected.put(kept, kept);
+            }
+            else if (r.nextInt(3) == 0) {
+                table.remove(present);
+                expected.remove(present);
+            }
+            Assert.assertEquals(expected.size(), table.size());
+        }
+        for (NormalizedAtomicExpression nae : expected.keySet()) {
+            Assert.assertSame(nae, table.get(atom(nae.readPosition(1), nae.readPosition(2))));
+        }
+        table.clear();
+        Assert.assertEquals(0, table.size());
+        Assert.assertNull(table.get(atoms.get(0)));
+    }
+}
@@ -0,0 +1,103 @@
+package edu.clemson.resolve.proving;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class TestAtomUseIndex {
+
+    @Test
+    public void testPostingListsStaySorted() {
+        AtomUseIndex index = new AtomUseIndex();
+        Assert.assertTrue(index.add(5, 1, 10));
+        Assert.assertTrue(index.add(5, 1, 30));
+        Assert.assertTrue(index.add(5, 1, 20)); // an older atom picking up a use late
+        Assert.assertFalse(index.add(5, 1, 20));
+        Assert.assertTrue(index.add(5, -1, 20));
+        Assert.assertArrayEquals(new int[]{10, 20, 30}, index.getUses(5, 1));
+        Assert.assertArrayEquals(new int[]{20}, index.getUses(5, -1));
+        Assert.assertArrayEquals(new int[]{10, 20, 30}, index.getUses(5));
+        Assert.assertEquals(0, index.size(5, 0));
+        Assert.assertEquals(0, index.getUses(99).length);
+        Assert.assertFalse(index.isUsed(99));
+
+        Assert.assertTrue(index.remove(5, 1, 20));
+        Assert.assertFalse(index.remove(5, 1, 20));
+        Assert.assertFalse(index.remove(6, 0, 20));
+        Assert.assertArrayEquals(new int[]{10, 30}, index.getUses(5, 1));
+        Assert.assertArrayEquals(new int[]{10, 20, 30}, index.getUses(5));
+    }
+
+    @Test
+    public void testRemoveAndRestoreSymbol() {
+        AtomUseIndex index = new AtomUseIndex();
+        index.add(3, 0, 1);
+        index.add(3, 2, 4);
+        Object detached = index.removeSymbol(3);
+        Assert.assertFalse(index.isUsed(3));
+        Assert.assertEquals(0, index.getUses(3).length);
+        index.restoreSymbol(3, detached);
+        Assert.assertArrayEquals(new int[]{1, 4}, index.getUses(3));
+
+        Assert.assertNull(index.removeSymbol(7));
+        index.restoreSymbol(7, null);
+        Assert.assertFalse(index.isUsed(7));
+    }
+
+    @Test
+    public void testCopiesAreIndependent() {
+        AtomUseIndex index = new AtomUseIndex();
+        index.add(1, 0, 2);
+        AtomUseIndex copy = new AtomUseIndex(index);
+        copy.add(1, 0, 3);
+        index.remove(1, 0, 2);
+        Assert.assertArrayEquals(new int[]{2, 3}, copy.getUses(1, 0));
+        Assert.assertEquals(0, index.size(1, 0));
+    }
+
+    @Test
+    public void testIntersectMatchesBruteForce() {
+        Random r = new Random(7);
+        AtomUseIndex index = new AtomUseIndex();
+        // uses.get(atom) holds symbol * 8 + position + 1 for each use of a symbol by that atom
+        List<Set<Integer>> uses = new ArrayList<>();
+        for (int atom = 0; atom < 500; atom++) {
+            Set<Integer> u = new HashSet<>();
+            for (int k = 0; k < 4; k++) {
+                int symbol = r.nextInt(12), position = r.nextInt(4) - 1;
+                index.add(symbol, position, atom);
+                u.add(symbol * 8 + position + 1);
+            }
+            uses.add(u);
+        }
+        for (int atom = 0; atom < 500; atom += 3) { // take some back out again
+            Iterator<Integer> it = uses.get(atom).iterator();
+            int key = it.next();
+            it.remove();
+            Assert.assertTrue(index.remove(key / 8, key % 8 - 1, atom));
+        }
+        for (int q = 0; q < 300; q++) {
+            int n = 1 + r.nextInt(3);
+            int[] symbols = new int[n], positions = new int[n];
+            for (int k = 0; k < n; k++) {
+                symbols[k] = r.nextInt(12);
+                positions[k] = r.nextInt(4) - 1;
+            }
+            List<Integer> expected = new ArrayList<>();
+            for (int atom = 0; atom < uses.size(); atom++) {
+                boolean all = true;
+                for (int k = 0; k < n; k++) {
+                    all &= uses.get(atom).contains(symbols[k] * 8 + positions[k] + 1);
+                }
+                if (all) expected.add(atom);
+            }
+            int count = index.intersect(symbols, positions, n);
+            List<Integer> actual = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                actual.add(index.result()[i]);
+            }
+            Assert.assertEquals(expected, actual);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package edu.clemson.resolve.proving;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class TestBindingSet {
+
+    @Test
+    public void testBindingsAreComparedByContent() {
+        BindingSet s = new BindingSet();
+        Assert.assertTrue(s.isEmpty());
+        Assert.assertTrue(s.add(new int[]{3, BindingSet.UNBOUND, BindingSet.ABSENT}));
+        Assert.assertFalse(s.add(new int[]{3, BindingSet.UNBOUND, BindingSet.ABSENT}));
+        Assert.assertTrue(s.contains(new int[]{3, BindingSet.UNBOUND, BindingSet.ABSENT}));
+        Assert.assertFalse(s.contains(new int[]{3, BindingSet.ABSENT, BindingSet.UNBOUND}));
+        Assert.assertTrue(s.add(new int[]{3, BindingSet.ABSENT, BindingSet.UNBOUND}));
+        Assert.assertEquals(2, s.size());
+    }
+
+    @Test
+    public void testKeepsInsertionOrderAsItGrows() {
+        BindingSet s = new BindingSet(2);
+        List<int[]> added = new ArrayList<>();
+        Random r = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            int[] b = {r.nextInt(20), r.nextInt(20), r.nextInt(3) - 2};
+            boolean isNew = true;
+            for (int[] a : added) {
+                if (Arrays.equals(a, b)) isNew = false;
+            }
+            Assert.assertEquals(isNew, s.add(b));
+            if (isNew) added.add(b);
+        }
+        Assert.assertEquals(added.size(), s.size());
+        for (int i = 0; i < added.size(); i++) {
+            Assert.assertSame(added.get(i), s.get(i));
+            Assert.assertTrue(s.contains(added.get(i).clone()));
+        }
+    }
+
+    @Test
+    public void testAddAllAndClear() {
+        BindingSet s = new BindingSet();
+        s.add(new int[]{1, 2});
+        s.add(new int[]{2, 1});
+        BindingSet t = new BindingSet();
+        t.add(new int[]{2, 1});
+        t.add(new int[]{0, 0});
+        s.addAll(t);
+        Assert.assertEquals(3, s.size());
+        Assert.assertTrue(Arrays.equals(new int[]{0, 0}, s.get(2)));
+
+        s.clear();
+        Assert.assertTrue(s.isEmpty());
+        Assert.assertFalse(s.contains(new int[]{1, 2}));
+        Assert.assertTrue(s.add(new int[]{1, 2}));
+        Assert.assertEquals(1, s.size());
+    }
+}
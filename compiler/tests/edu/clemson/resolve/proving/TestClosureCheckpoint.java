@@ -0,0 +1,145 @@
+package edu.clemson.resolve.proving;
+
+import edu.clemson.resolve.proving.absyn.PExp;
+import edu.clemson.resolve.vcgen.VC;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TestClosureCheckpoint extends BaseClosureTest {
+
+    private final List<String> names =
+            Arrays.asList("a", "b", "c", "d", "e", "q", "f" + g.BOOLEAN, "=B", "true", "false");
+
+    // ∀x, f(x, a) = x
+    private final TheoremCongruenceClosureImpl theorem = theorem();
+
+    private TheoremCongruenceClosureImpl theorem() {
+        PExp lhs = f(universal("x"), var("a"));
+        PExp theorem = eq(lhs, universal("x"));
+        return new TheoremCongruenceClosureImpl(g, theorem, lhs, universal("x"), theorem, false, false, "t");
+    }
+
+    // f(a, b) ⊢ f(d, e)
+    private VerificationConditionCongruenceClosureImpl closure() {
+        VC vc = vc(1, Collections.singletonList(f(var("a"), var("b"))),
+                Collections.singletonList(f(var("d"), var("e"))));
+        return new VerificationConditionCongruenceClosureImpl(g, vc, g.BOOLEAN, g.BOOLEAN);
+    }
+
+    // c and f(c, e) as the prover would add them, then a = d
+    private void addFirst(VerificationConditionCongruenceClosureImpl vcc) {
+        ConjunctionOfNormalizedAtomicExpressions conj = vcc.getConjunct();
+        conj.addExpressionAndTrackChanges(prepared(var("c")), Deadline.NONE, "first");
+        conj.addExpressionAndTrackChanges(prepared(f(var("c"), var("e"))), Deadline.NONE, "first");
+        Registry r = vcc.getRegistry();
+        conj.mergeOperators(r.getIndexForSymbol("a"), r.getIndexForSymbol("d"));
+    }
+
+    // b = e: f(a, b) and f(d, e) become congruent, so the goal merges with true in turn
+    private void addSecond(VerificationConditionCongruenceClosureImpl vcc) {
+        Registry r = vcc.getRegistry();
+        vcc.getConjunct().mergeOperators(r.getIndexForSymbol("b"), r.getIndexForSymbol("e"));
+        vcc.addGoal("q");
+    }
+
+    private PExp prepared(PExp e) {
+        return Utilities.replacePExp(e, g, g.BOOLEAN, g.BOOLEAN);
+    }
+
+    @Test
+    public void testRollbackRestoresFreshClosure() {
+        VerificationConditionCongruenceClosureImpl vcc = closure();
+        String fresh = describe(closure());
+        Assert.assertEquals(fresh, describe(vcc));
+
+        int mark = vcc.checkpoint();
+        addFirst(vcc);
+        TheoremCongruenceClosureImpl.PerVCState state = vcc.getTheoremState(theorem);
+        addSecond(vcc);
+        Assert.assertEquals(VerificationConditionCongruenceClosureImpl.STATUS.PROVED, vcc.isProved());
+        Assert.assertNotEquals(fresh, describe(vcc));
+
+        vcc.rollback(mark);
+        Assert.assertEquals(fresh, describe(vcc));
+        Assert.assertNotSame(state, vcc.getTheoremState(theorem));
+        Assert.assertFalse(vcc.getUndoTrail().isRecording());
+
+        // the restored closure takes the same additions as a fresh one
+        VerificationConditionCongruenceClosureImpl expected = closure();
+        addFirst(expected);
+        addSecond(expected);
+        addFirst(vcc);
+        addSecond(vcc);
+        Assert.assertEquals(describe(expected), describe(vcc));
+    }
+
+    @Test
+    public void testNestedRollback() {
+        VerificationConditionCongruenceClosureImpl afterFirst = closure();
+        addFirst(afterFirst);
+
+        VerificationConditionCongruenceClosureImpl vcc = closure();
+        int outer = vcc.checkpoint();
+        addFirst(vcc);
+        int inner = vcc.checkpoint();
+        addSecond(vcc);
+        vcc.rollback(inner);
+        Assert.assertEquals(describe(afterFirst), describe(vcc));
+        Assert.assertTrue(vcc.getUndoTrail().isRecording());
+
+        vcc.rollback(outer);
+        Assert.assertEquals(describe(closure()), describe(vcc));
+    }
+
+    @Test
+    public void testCommit() {
+        VerificationConditionCongruenceClosureImpl afterBoth = closure();
+        addFirst(afterBoth);
+        addSecond(afterBoth);
+
+        // committing the inner checkpoint leaves its changes to the outer one
+        VerificationConditionCongruenceClosureImpl vcc = closure();
+        int outer = vcc.checkpoint();
+        addFirst(vcc);
+        int inner = vcc.checkpoint();
+        addSecond(vcc);
+        vcc.commit(inner);
+        Assert.assertEquals(describe(afterBoth), describe(vcc));
+        vcc.rollback(outer);
+        Assert.assertEquals(describe(closure()), describe(vcc));
+
+        // committing the outer one keeps everything
+        outer = vcc.checkpoint();
+        addFirst(vcc);
+        vcc.checkpoint();
+        addSecond(vcc);
+        vcc.commit(outer);
+        Assert.assertFalse(vcc.getUndoTrail().isRecording());
+        Assert.assertEquals(describe(afterBoth), describe(vcc));
+    }
+
+    // everything observable about the closure: its printed form, status, atoms, and the atoms using each symbol
+    private String describe(VerificationConditionCongruenceClosureImpl closure) {
+        ConjunctionOfNormalizedAtomicExpressions conj = closure.getConjunct();
+        Registry r = closure.getRegistry();
+        StringBuilder sb = new StringBuilder();
+        sb.append(closure).append('\n').append(closure.isProved()).append('\n').append(conj.getAtoms()).append('\n');
+        for (String name : names) {
+            if (!r.isSymbolInTable(name)) {
+                sb.append(name).append(" absent\n");
+                continue;
+            }
+            int i = r.getIndexForSymbol(name);
+            sb.append(name).append(' ').append(r.getRootSymbolForSymbol(name)).append(' ').append(conj.getUses(i));
+            for (int pos = 0; pos < 3; pos++) {
+                sb.append(' ').append(conj.getUses(i, pos));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package edu.clemson.resolve.proving;
+
+import edu.clemson.resolve.proving.absyn.PExp;
+import edu.clemson.resolve.vcgen.VC;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class TestClosureFork extends BaseClosureTest {
+
+    private final List<String> names = Arrays.asList("x", "y", "z", "w", "true", "false");
+
+    // x, y, z
+    private List<PExp> antecedents() {
+        return Arrays.asList(var("x"), var("y"), var("z"));
+    }
+
+    private VC vc(int number, PExp... goals) {
+        return vc(number, antecedents(), Arrays.asList(goals));
+    }
+
+    @Test
+    public void testForkMatchesFreshClosure() {
+        VerificationConditionCongruenceClosureImpl base =
+                new VerificationConditionCongruenceClosureImpl(g, antecedents(), g.BOOLEAN, g.BOOLEAN);
+        String baseBefore = base.toString();
+
+        for (VC vc : Arrays.asList(vc(1, var("x")), vc(2, var("w")), vc(3, f(var("x"), var("z")), var("w")))) {
+            VerificationConditionCongruenceClosureImpl fresh =
+                    new VerificationConditionCongruenceClosureImpl(g, vc, g.BOOLEAN, g.BOOLEAN);
+            VerificationConditionCongruenceClosureImpl forked = base.fork(vc);
+            Assert.assertEquals(fresh.m_name, forked.m_name);
+            Assert.assertEquals(fresh.isProved(), forked.isProved());
+            // symbols may be numbered differently, so compare the classes and goals they make up
+            Assert.assertEquals(describe(fresh), describe(forked));
+        }
+        Assert.assertEquals(VerificationConditionCongruenceClosureImpl.STATUS.PROVED,
+                new VerificationConditionCongruenceClosureImpl(g, vc(1, var("x")), g.BOOLEAN, g.BOOLEAN).isProved());
+        Assert.assertEquals(baseBefore, base.toString());
+        Assert.assertTrue(base.m_goal.isEmpty());
+    }
+
+    @Test
+    public void testForksAreIndependent() {
+        VerificationConditionCongruenceClosureImpl base =
+                new VerificationConditionCongruenceClosureImpl(g, antecedents(), g.BOOLEAN, g.BOOLEAN);
+        VerificationConditionCongruenceClosureImpl a = base.fork(vc(1, var("w")));
+        VerificationConditionCongruenceClosureImpl b = base.fork(vc(2, var("w")));
+        Registry r = a.getRegistry();
+        r.substitute(r.getIndexForSymbol("true"), r.getIndexForSymbol("w"));
+        Assert.assertEquals(r.getRootSymbolForSymbol("true"), r.getRootSymbolForSymbol("w"));
+        Assert.assertNotEquals(b.getRegistry().getRootSymbolForSymbol("true"),
+                b.getRegistry().getRootSymbolForSymbol("w"));
+        Assert.assertNotEquals(base.getRegistry().getRootSymbolForSymbol("true"),
+                base.getRegistry().getRootSymbolForSymbol("w"));
+    }
+
+    // for each pair of names whether they're in the same class, and for each name whether its class is a goal
+    private String describe(VerificationConditionCongruenceClosureImpl closure) {
+        Registry r = closure.getRegistry();
+        StringBuilder sb = new StringBuilder();
+        for (String a : names) {
+            if (!r.isSymbolInTable(a)) {
+                sb.append(a).append(" absent\n");
+                continue;
+            }
+            String root = r.getRootSymbolForSymbol(a);
+            sb.append(a).append(closure.m_goal.contains(root) ? " goal:" : ":");
+            for (String b : names) {
+                if (r.isSymbolInTable(b) && root.equals(r.getRootSymbolForSymbol(b))) sb.append(' ').append(b);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,57 @@
+package edu.clemson.resolve.proving;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestDeadline {
+
+    @Test
+    public void testNoneNeverExpires() {
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertFalse(Deadline.NONE.tick());
+        }
+        Assert.assertFalse(Deadline.NONE.expired());
+        Assert.assertEquals(Long.MAX_VALUE, Deadline.NONE.remainingMillis());
+        Assert.assertSame(Deadline.NONE, Deadline.until(Long.MAX_VALUE));
+        Assert.assertFalse(Deadline.after(Long.MAX_VALUE, null).expired());
+    }
+
+    @Test
+    public void testExpiresOnceTheBudgetIsUsed() throws InterruptedException {
+        Deadline d = Deadline.after(0, null);
+        Assert.assertTrue(d.expired());
+        Assert.assertEquals(0, d.remainingMillis());
+
+        Deadline later = Deadline.after(20, null);
+        Assert.assertFalse(later.expired());
+        Thread.sleep(40);
+        Assert.assertTrue(later.expired());
+        Assert.assertTrue(Deadline.until(System.currentTimeMillis() - 1).expired());
+    }
+
+    @Test
+    public void testTickOnlyNoticesEverySoOften() throws InterruptedException {
+        Deadline d = Deadline.after(20, null);
+        Thread.sleep(40);
+        // the clock is only read every so many ticks, but some tick within that many notices
+        boolean noticed = false;
+        for (int i = 0; i < 64 && !noticed; i++) {
+            noticed = d.tick();
+        }
+        Assert.assertTrue(noticed);
+        // and once noticed it stays expired
+        Assert.assertTrue(d.tick());
+        Assert.assertTrue(d.expired());
+    }
+
+    @Test
+    public void testCancellingExpires() {
+        ActionCanceller parent = new ActionCanceller();
+        ActionCanceller child = new ActionCanceller(parent);
+        Deadline d = Deadline.after(Long.MAX_VALUE, child);
+        Assert.assertFalse(d.expired());
+        parent.cancel();
+        Assert.assertTrue(d.expired());
+        Assert.assertEquals(0, d.remainingMillis());
+    }
+}
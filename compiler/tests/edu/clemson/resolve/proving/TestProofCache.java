@@ -0,0 +1,38 @@
+package edu.clemson.resolve.proving;
+
+import edu.clemson.resolve.proving.absyn.PExp;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TestProofCache extends BaseClosureTest {
+
+    // f(∀x, a), f(b, ∀y) ⊢ f(∀x, ∀y)
+    private String fingerprint(String x, String y, boolean swapAntecedents) {
+        PExp first = f(universal(x), var("a"));
+        PExp second = f(var("b"), universal(y));
+        List<PExp> antecedents = swapAntecedents ? Arrays.asList(second, first) : Arrays.asList(first, second);
+        return ProofCache.fingerprint(vc(1, antecedents, Collections.singletonList(f(universal(x), universal(y)))),
+                "theorems");
+    }
+
+    @Test
+    public void testFingerprintIgnoresAntecedentOrderAndNames() {
+        String expected = fingerprint("x", "y", false);
+        Assert.assertEquals(expected, fingerprint("x", "y", true));
+        Assert.assertEquals(expected, fingerprint("u", "v", true));
+        Assert.assertEquals(expected, fingerprint("y", "x", false));
+    }
+
+    @Test
+    public void testFingerprintKeepsWhichVariableIsWhich() {
+        PExp first = f(universal("x"), var("a"));
+        PExp second = f(var("b"), universal("y"));
+        String swappedGoal = ProofCache.fingerprint(vc(1, Arrays.asList(second, first),
+                Collections.singletonList(f(universal("y"), universal("x")))), "theorems");
+        Assert.assertNotEquals(fingerprint("x", "y", false), swappedGoal);
+    }
+}
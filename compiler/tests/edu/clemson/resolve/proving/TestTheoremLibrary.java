@@ -0,0 +1,77 @@
+package edu.clemson.resolve.proving;
+
+import edu.clemson.resolve.semantics.MathSymbolTable;
+import edu.clemson.resolve.semantics.ModuleIdentifier;
+import org.antlr.v4.runtime.CommonToken;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestTheoremLibrary {
+
+    private final MathSymbolTable table = new MathSymbolTable();
+    private final ModuleIdentifier module = module("Basic_Integer_Theory");
+    private final AtomicInteger compiles = new AtomicInteger();
+
+    private static ModuleIdentifier module(String name) {
+        return new ModuleIdentifier(new CommonToken(0, name), new File(name + ".resolve"));
+    }
+
+    private TheoremLibrary compile() {
+        compiles.incrementAndGet();
+        return new TheoremLibrary();
+    }
+
+    @Test
+    public void testCompiledOncePerTable() {
+        TheoremLibrary lib = TheoremLibrary.get(table, module, null, null, this::compile);
+        Assert.assertSame(lib, TheoremLibrary.get(table, module, null, null, this::compile));
+        Assert.assertEquals(1, compiles.get());
+
+        // another table has its own classifications, so gets its own library
+        Assert.assertNotSame(lib, TheoremLibrary.get(new MathSymbolTable(), module, null, null, this::compile));
+        TheoremLibrary.get(table, module("Boolean_Theory"), null, null, this::compile);
+        Assert.assertEquals(3, compiles.get());
+    }
+
+    @Test
+    public void testConcurrentProversShareOneCompile() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<TheoremLibrary>> libs = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                libs.add(pool.submit(() -> {
+                    started.await();
+                    return TheoremLibrary.get(table, module, null, null, this::compile);
+                }));
+            }
+            started.countDown();
+            for (Future<TheoremLibrary> lib : libs) {
+                Assert.assertSame(libs.get(0).get(), lib.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        Assert.assertEquals(1, compiles.get());
+    }
+
+    @Test
+    public void testFailedCompileIsNotKept() {
+        try {
+            TheoremLibrary.get(table, module, null, null, () -> {
+                throw new IllegalStateException("bad theorem");
+            });
+            Assert.fail("expected the compile to fail");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("bad theorem", e.getMessage());
+        }
+        TheoremLibrary.get(table, module, null, null, this::compile);
+        Assert.assertEquals(1, compiles.get());
+    }
+}
@@ -0,0 +1,110 @@
+package edu.clemson.resolve.proving;
+
+import edu.clemson.resolve.proving.absyn.PExp;
+import edu.clemson.resolve.vcgen.VC;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class TestTheoremPrioritizer extends BaseClosureTest {
+
+    private final List<TheoremCongruenceClosureImpl> theorems = new ArrayList<>();
+    private final Set<String> theoremSymbols = new HashSet<>();
+    private final Set<TheoremCongruenceClosureImpl> smallEnd = new HashSet<>();
+    private final Map<String, Integer> applied = new HashMap<>();
+
+    private void theorem(String name, PExp lhs, PExp rhs) {
+        PExp theorem = eq(lhs, rhs);
+        TheoremCongruenceClosureImpl t =
+                new TheoremCongruenceClosureImpl(g, theorem, lhs, rhs, theorem, false, false, name);
+        theorems.add(t);
+        theoremSymbols.addAll(t.getNonQuantifiedSymbols());
+        if (lhs.getSymbolNames().size() < rhs.getSymbolNames().size()) smallEnd.add(t);
+    }
+
+    // f(a, c) = c, a = c ⊢ b; the equalities go straight into the conjunction, since the constructor would tag =B with
+    // its range (see Utilities.replacePExp) and a tagged equality is never merged
+    private VerificationConditionCongruenceClosureImpl closure() {
+        VC vc = vc(1, Collections.singletonList(g.getTrueExp()), Collections.<PExp>singletonList(var("b")));
+        VerificationConditionCongruenceClosureImpl vcc =
+                new VerificationConditionCongruenceClosureImpl(g, vc, g.BOOLEAN, g.BOOLEAN);
+        vcc.getConjunct().addExpression(eq(f(var("a"), var("c")), var("c")));
+        vcc.getConjunct().addExpression(eq(var("a"), var("c")));
+        return vcc;
+    }
+
+    private TheoremPrioritizer prioritizer(VerificationConditionCongruenceClosureImpl vcc) {
+        return new TheoremPrioritizer(theorems, applied, vcc, theoremSymbols, smallEnd);
+    }
+
+    // each queued theorem with its score, best first; empties the queue
+    private static List<String> drain(TheoremPrioritizer p) {
+        List<String> result = new ArrayList<>();
+        while (!p.isEmpty()) {
+            int score = p.peekScore();
+            result.add(p.poll().m_name + " " + score);
+        }
+        return result;
+    }
+
+    @Test
+    public void testRefreshMatchesFreshRanking() {
+        theorem("t0", f(var("a"), var("b")), var("c"));
+        theorem("t1", f(var("d"), var("a")), var("b"));
+        theorem("t2", f(var("c"), var("c")), var("h"));
+        theorem("t3", f(var("b"), var("b")), f(var("a"), var("a")));
+        theorem("t4", f(var("h"), var("d")), f(var("d"), var("h")));
+
+        VerificationConditionCongruenceClosureImpl vcc = closure();
+        TheoremPrioritizer incremental = prioritizer(vcc);
+        incremental.refresh();
+        Assert.assertEquals(drain(fresh(vcc)), snapshot(incremental));
+
+        // apply the best couple of theorems, as a round of the prover would
+        for (int i = 0; i < 2; i++) {
+            applied.merge(incremental.poll().m_name, 1, Integer::sum);
+        }
+        // the vc learns new symbols, a merge, an atom rooted at the goal and a new goal
+        vcc.getConjunct().addExpression(eq(var("d"), var("a")));
+        vcc.getConjunct().addExpression(var("h"));
+        vcc.getConjunct().addExpression(eq(f(var("d"), var("h")), var("b")));
+        vcc.addGoal("d");
+        incremental.refresh();
+        Assert.assertEquals(drain(fresh(vcc)), snapshot(incremental));
+
+        // a round in which nothing changes but the applied counts
+        applied.merge(incremental.poll().m_name, 1, Integer::sum);
+        incremental.refresh();
+        Assert.assertEquals(drain(fresh(vcc)), drain(incremental));
+    }
+
+    @Test
+    public void testRemovedTheoremsStayRemoved() {
+        theorem("t0", f(var("a"), var("b")), var("c"));
+        theorem("t1", f(var("b"), var("a")), var("c"));
+        VerificationConditionCongruenceClosureImpl vcc = closure();
+        TheoremPrioritizer p = prioritizer(vcc);
+        p.refresh();
+        TheoremCongruenceClosureImpl first = p.poll();
+        p.remove(first);
+        vcc.getConjunct().addExpression(eq(var("a"), var("b")));
+        p.refresh();
+        for (String s : drain(p)) {
+            Assert.assertFalse(s.startsWith(first.m_name + " "));
+        }
+    }
+
+    private TheoremPrioritizer fresh(VerificationConditionCongruenceClosureImpl vcc) {
+        TheoremPrioritizer p = prioritizer(vcc);
+        p.refresh();
+        return p;
+    }
+
+    // the ranking of p, leaving it queued as it was: what's polled gets requeued (as is) by the next refresh
+    private static List<String> snapshot(TheoremPrioritizer p) {
+        List<String> result = new ArrayList<>(drain(p));
+        p.refresh();
+        return result;
+    }
+}
@@ -0,0 +1,72 @@
+package edu.clemson.resolve.proving;
+
+import edu.clemson.resolve.proving.absyn.PExp;
+import edu.clemson.resolve.proving.absyn.PSymbol;
+import edu.clemson.resolve.vcgen.VC;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class TestTheoremTriggers extends BaseClosureTest {
+
+    // b = c, a = h ⊢ b; the equalities go straight into the conjunction, since the constructor would tag =B with
+    // its range (see Utilities.replacePExp) and a tagged equality is never merged
+    private VerificationConditionCongruenceClosureImpl closure() {
+        VC vc = vc(1, Collections.singletonList(g.getTrueExp()), Collections.<PExp>singletonList(var("b")));
+        VerificationConditionCongruenceClosureImpl vcc =
+                new VerificationConditionCongruenceClosureImpl(g, vc, g.BOOLEAN, g.BOOLEAN);
+        vcc.getConjunct().addExpression(eq(var("b"), var("c")));
+        vcc.getConjunct().addExpression(eq(var("a"), var("h")));
+        return vcc;
+    }
+
+    // ∀x, f(x, a) = x
+    private TheoremCongruenceClosureImpl theorem() {
+        PSymbol x = universal("x");
+        PExp lhs = f(x, var("a"));
+        PExp theorem = eq(lhs, x);
+        return new TheoremCongruenceClosureImpl(g, theorem, lhs, x, theorem, false, false, "t");
+    }
+
+    @Test
+    public void testChangedSinceTracksOperatorsAndMerges() {
+        VerificationConditionCongruenceClosureImpl vcc = closure();
+        ConjunctionOfNormalizedAtomicExpressions conj = vcc.getConjunct();
+        int mark = conj.changeMark();
+        Assert.assertFalse(conj.changedSince(mark, "f"));
+        Assert.assertFalse(conj.changedSince(mark, "b"));
+
+        conj.addExpression(eq(f(var("c"), var("d")), var("e")));
+        Assert.assertTrue(conj.changedSince(mark, "f"));
+        Assert.assertFalse(conj.changedSince(mark, "b"));
+        Assert.assertFalse(conj.changedSince(mark, "a"));
+
+        mark = conj.changeMark();
+        conj.addExpression(eq(var("d"), var("b")));
+        Assert.assertTrue(conj.changedSince(mark, "b"));
+        Assert.assertTrue(conj.changedSince(mark, "d"));
+        Assert.assertFalse(conj.changedSince(mark, "a"));
+        Assert.assertFalse(conj.changedSince(mark, "g"));
+    }
+
+    @Test
+    public void testSkippingFindsWhatMatchingAfreshWould() {
+        VerificationConditionCongruenceClosureImpl vcc = closure();
+        TheoremCongruenceClosureImpl t = theorem();
+        // a theorem that has never been matched in vcc can't skip; t has, at every step, so it may
+        Assert.assertEquals(0, t.applyTo(vcc, Long.MAX_VALUE));
+
+        vcc.getConjunct().addExpression(eq(var("p"), var("q")));
+        Assert.assertEquals(theorem().applyTo(vcc, Long.MAX_VALUE), t.applyTo(vcc, Long.MAX_VALUE));
+
+        vcc.getConjunct().addExpression(eq(f(var("c"), var("d")), var("e")));
+        Assert.assertEquals(theorem().applyTo(vcc, Long.MAX_VALUE), t.applyTo(vcc, Long.MAX_VALUE));
+
+        // f(c, d) now matches, but only through the class of a
+        vcc.getConjunct().addExpression(eq(var("d"), var("a")));
+        int found = theorem().applyTo(vcc, Long.MAX_VALUE);
+        Assert.assertTrue(found > 0);
+        Assert.assertEquals(found, t.applyTo(vcc, Long.MAX_VALUE));
+    }
+}